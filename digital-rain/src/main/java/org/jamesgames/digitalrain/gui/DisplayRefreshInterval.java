@@ -0,0 +1,43 @@
+package org.jamesgames.digitalrain.gui;
+
+import java.awt.*;
+
+/**
+ * DisplayRefreshInterval works out how long a display shows each frame for, which is how often the rain drawn on that
+ * display is updated and how long each update and paint has to finish in.
+ *
+ * @author James Murphy
+ */
+final class DisplayRefreshInterval {
+    private static final int refreshRateUsedWhenUnknown = 60;
+
+    private DisplayRefreshInterval() {
+    }
+
+    /**
+     * @return Milliseconds between refreshes of the default screen, or of a 60 Hz screen if there's no screen or its
+     * refresh rate can't be found
+     */
+    static int ofDefaultScreenInMilliseconds() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return inMilliseconds(DisplayMode.REFRESH_RATE_UNKNOWN);
+        }
+        return ofDisplayInMilliseconds(GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice());
+    }
+
+    /**
+     * @return Milliseconds between refreshes of the passed display, or of a 60 Hz display if its refresh rate can't be
+     * found
+     */
+    static int ofDisplayInMilliseconds(GraphicsDevice device) {
+        return inMilliseconds(device.getDisplayMode().getRefreshRate());
+    }
+
+    private static int inMilliseconds(int refreshRate) {
+        if (refreshRate <= 0) {
+            refreshRate = refreshRateUsedWhenUnknown;
+        }
+        // Rounded rather than truncated, so a 144 Hz display is updated every 7 ms rather than every 6 ms
+        return (int) Math.max(1, Math.round(1000.0 / refreshRate));
+    }
+}
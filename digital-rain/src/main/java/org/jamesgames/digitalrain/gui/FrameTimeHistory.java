@@ -0,0 +1,66 @@
+package org.jamesgames.digitalrain.gui;
+
+/**
+ * FrameTimeHistory is a fixed size ring of the most recent durations of one phase of a frame (like updating or
+ * painting). Recording and reading never allocate, so the history can be kept and drawn every frame. Durations are
+ * recorded by one thread and read by another; a reader may see a partially refreshed ring, which is fine for display.
+ *
+ * @author James Murphy
+ */
+class FrameTimeHistory {
+    private final long[] durationsInNanoseconds;
+    private int nextIndex;
+    private int recordedCount;
+
+    FrameTimeHistory(int capacity) {
+        durationsInNanoseconds = new long[capacity];
+    }
+
+    void record(long durationInNanoseconds) {
+        durationsInNanoseconds[nextIndex] = durationInNanoseconds;
+        nextIndex = (nextIndex + 1) % durationsInNanoseconds.length;
+        if (recordedCount < durationsInNanoseconds.length) {
+            recordedCount++;
+        }
+    }
+
+    int getCapacity() {
+        return durationsInNanoseconds.length;
+    }
+
+    int getRecordedCount() {
+        return recordedCount;
+    }
+
+    /**
+     * @param age
+     *         0 for the latest recorded duration, 1 for the one before that, and so on
+     */
+    long getDuration(int age) {
+        int index = nextIndex - 1 - age;
+        if (index < 0) {
+            index += durationsInNanoseconds.length;
+        }
+        return durationsInNanoseconds[index];
+    }
+
+    long getAverageDuration() {
+        int count = recordedCount;
+        if (count == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int age = 0; age < count; age++) {
+            total += getDuration(age);
+        }
+        return total / count;
+    }
+
+    long getLargestDuration() {
+        long largest = 0;
+        for (int age = 0; age < recordedCount; age++) {
+            largest = Math.max(largest, getDuration(age));
+        }
+        return largest;
+    }
+}
@@ -0,0 +1,166 @@
+package org.jamesgames.digitalrain.gui;
+
+import net.jcip.annotations.ThreadSafe;
+import org.jamesgames.digitalrain.rain.RainPaneSprite;
+
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+
+/**
+ * FullScreenRainWindow displays a {@link org.jamesgames.digitalrain.rain.RainPaneSprite} over a whole display in
+ * full-screen exclusive mode. Rather than painting through Swing, frames are actively rendered on a dedicated thread
+ * into a BufferStrategy, which flips pages where the display supports it and copies from a back buffer otherwise. A
+ * frame is rendered each time the RainPaneSprite announces a frame as complete. Pressing escape or clicking closes the
+ * window and leaves full-screen mode.
+ * <p>
+ * While open, the window is the only thing drawing the RainPaneSprite, anything else displaying it should hold off
+ * drawing it until the window is closed.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+class FullScreenRainWindow {
+    private static final int bufferCount = 2;
+
+    private final GraphicsDevice device;
+    private final RainPaneSprite rainPaneSprite;
+    private final FrameTimeHistory renderTimes;
+    private final Runnable actionAfterClosing;
+    private final Frame window;
+
+    private final Object frameLock = new Object();
+    /**
+     * True when a frame was completed that hasn't been rendered yet, guarded by frameLock.
+     */
+    private boolean frameCompleted = false;
+    private volatile boolean rendering = false;
+    private Thread renderingThread;
+
+    /**
+     * @param renderTimes
+     *         History to record how long rendering each frame took
+     * @param actionAfterClosing
+     *         Ran on the event dispatch thread once the window has closed
+     */
+    FullScreenRainWindow(GraphicsDevice device, RainPaneSprite rainPaneSprite, FrameTimeHistory renderTimes,
+            Runnable actionAfterClosing) {
+        this.device = device;
+        this.rainPaneSprite = rainPaneSprite;
+        this.renderTimes = renderTimes;
+        this.actionAfterClosing = actionAfterClosing;
+        window = new Frame(device.getDefaultConfiguration());
+        window.setUndecorated(true);
+        window.setIgnoreRepaint(true);
+        window.setBackground(Color.BLACK);
+        window.setCursor(Toolkit.getDefaultToolkit().createCustomCursor(
+                new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), new Point(), "Hidden"));
+        window.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    close();
+                }
+            }
+        });
+        window.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                close();
+            }
+        });
+    }
+
+    /**
+     * Makes the window the full-screen window of its display and starts rendering, must be called on the event
+     * dispatch thread. The RainPaneSprite is resized to the display.
+     */
+    void open() {
+        if (rendering) {
+            return;
+        }
+        device.setFullScreenWindow(window);
+        window.createBufferStrategy(bufferCount);
+        window.requestFocus();
+        rainPaneSprite.requestResize(window.getWidth(), window.getHeight());
+        rendering = true;
+        renderingThread = new Thread(this::renderFrames, "Digital rain full screen renderer");
+        renderingThread.setDaemon(true);
+        renderingThread.start();
+    }
+
+    /**
+     * Stops rendering and leaves full-screen mode, must be called on the event dispatch thread.
+     */
+    void close() {
+        if (!rendering) {
+            return;
+        }
+        rendering = false;
+        synchronized (frameLock) {
+            frameLock.notifyAll();
+        }
+        try {
+            renderingThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        device.setFullScreenWindow(null);
+        window.dispose();
+        actionAfterClosing.run();
+    }
+
+    boolean isOpen() {
+        return rendering;
+    }
+
+    /**
+     * Lets the rendering thread know a new frame of the RainPaneSprite is complete. Frames completed while an earlier
+     * one is still being rendered are rendered as one.
+     */
+    void frameCompleted() {
+        synchronized (frameLock) {
+            frameCompleted = true;
+            frameLock.notifyAll();
+        }
+    }
+
+    private void renderFrames() {
+        BufferStrategy bufferStrategy = window.getBufferStrategy();
+        while (rendering) {
+            synchronized (frameLock) {
+                while (!frameCompleted && rendering) {
+                    try {
+                        frameLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                frameCompleted = false;
+            }
+            if (!rendering) {
+                return;
+            }
+            long renderStartInNanoseconds = System.nanoTime();
+            // Contents of the buffers can be lost at any time (like the display mode changing), so draw until shown
+            do {
+                do {
+                    Graphics2D g = (Graphics2D) bufferStrategy.getDrawGraphics();
+                    try {
+                        // Only published frames are drawn, so the window never reads the scene while it updates
+                        rainPaneSprite.drawLatestFrame(g);
+                    } finally {
+                        g.dispose();
+                    }
+                } while (bufferStrategy.contentsRestored());
+                bufferStrategy.show();
+            } while (bufferStrategy.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+            renderTimes.record(System.nanoTime() - renderStartInNanoseconds);
+        }
+    }
+}
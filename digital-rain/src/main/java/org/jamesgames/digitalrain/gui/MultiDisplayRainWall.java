@@ -0,0 +1,168 @@
+package org.jamesgames.digitalrain.gui;
+
+import org.jamesgames.digitalrain.rain.QualityLevel;
+import org.jamesgames.digitalrain.rain.RainPaneSprite;
+import org.jamesgames.digitalrain.rain.RainRenderMode;
+import org.jamesgames.digitalrain.rain.SimulationClock;
+import org.jamesgames.easysprite.Sprite;
+import org.jamesgames.easysprite.updater.SpriteUpdater;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MultiDisplayRainWall displays one {@link org.jamesgames.digitalrain.rain.RainPaneSprite} per display, each in a
+ * {@link FullScreenRainWindow} on its display. Rather than one RainPaneSprite covering every display, each display's
+ * RainPaneSprite is updated by its own SpriteUpdater at the pace of its display and renders on its own render thread
+ * with character images compatible with its display, so the work is spread over as many threads as there are
+ * displays. All of the RainPaneSprites follow one SimulationClock, so the rain stays in phase across the displays.
+ * Closing any of the windows closes them all.
+ * <p>
+ * Changes to the rain speed and to whether quality adapts to the frame rate apply to every display. Each display has
+ * its own {@link QualityGovernor}, budgeted by the display's refresh interval, so a slower display lowers the quality
+ * of its own RainPaneSprite only.
+ * <p>
+ * Must only be used on the event dispatch thread.
+ *
+ * @author James Murphy
+ */
+class MultiDisplayRainWall {
+
+    private final List<Display> displays = new ArrayList<>();
+    private final Runnable actionAfterClosing;
+    private volatile boolean adaptingQuality;
+    private boolean open = false;
+
+    /**
+     * @param rainPaneSpritesPerDisplay
+     *         The RainPaneSprite to display on each display, which should have been created with the display's
+     *         GraphicsConfiguration and shouldn't be displayed anywhere else
+     * @param adaptingQuality
+     *         True to lower and raise the quality of each display's RainPaneSprite to keep up with the display
+     * @param actionAfterClosing
+     *         Ran once every window has closed
+     */
+    MultiDisplayRainWall(Map<GraphicsDevice, RainPaneSprite> rainPaneSpritesPerDisplay, boolean adaptingQuality,
+            Runnable actionAfterClosing) {
+        this.actionAfterClosing = actionAfterClosing;
+        this.adaptingQuality = adaptingQuality;
+        SimulationClock simulationClock = new SimulationClock();
+        for (Map.Entry<GraphicsDevice, RainPaneSprite> display : rainPaneSpritesPerDisplay.entrySet()) {
+            RainPaneSprite rainPaneSprite = display.getValue();
+            // Every pane steps the same length of time, so their steps stay in phase on the shared clock
+            rainPaneSprite.setSimulationStepInMilliseconds(RainPaneSprite.defaultSimulationStepInMilliseconds);
+            rainPaneSprite.setSimulationClock(simulationClock);
+            rainPaneSprite.setRenderMode(RainRenderMode.RENDER_THREAD);
+            displays.add(new Display(display.getKey(), rainPaneSprite));
+        }
+    }
+
+    void open() {
+        if (open) {
+            return;
+        }
+        open = true;
+        for (Display display : displays) {
+            display.fullScreenRainWindow.open();
+        }
+        for (Display display : displays) {
+            display.spriteUpdater.scheduleSpriteUpdate(display.spriteUpdatePaceInMilliseconds);
+        }
+    }
+
+    void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        for (Display display : displays) {
+            display.spriteUpdater.stopUpdating();
+        }
+        for (Display display : displays) {
+            display.fullScreenRainWindow.close();
+        }
+        for (Display display : displays) {
+            display.rainPaneSprite.stopRenderThread();
+        }
+        actionAfterClosing.run();
+    }
+
+    /**
+     * Changes the speed the rain falls at on every display.
+     */
+    void setRainDropYVelocityInUnitsPerMillisecond(float yVelocityInUnitsPerMillisecond) {
+        for (Display display : displays) {
+            display.rainPaneSprite.changeRainLineYVelocities(yVelocityInUnitsPerMillisecond);
+        }
+    }
+
+    /**
+     * Starts or stops adapting the quality of every display's RainPaneSprite, every RainPaneSprite is set back to full
+     * quality when stopping.
+     */
+    void setAdaptingQualityToFrameRate(boolean adaptingQuality) {
+        this.adaptingQuality = adaptingQuality;
+        for (Display display : displays) {
+            display.qualityGovernor.reset();
+            if (!adaptingQuality) {
+                display.rainPaneSprite.setQualityLevel(QualityLevel.FULL);
+            }
+        }
+    }
+
+    /**
+     * The RainPaneSprite of one display, and everything updating and rendering it.
+     */
+    private class Display {
+        private final RainPaneSprite rainPaneSprite;
+        private final int spriteUpdatePaceInMilliseconds;
+        private final SpriteUpdater spriteUpdater;
+        private final FullScreenRainWindow fullScreenRainWindow;
+        private final QualityGovernor qualityGovernor;
+        /**
+         * Durations of the latest update and render, each only recorded by the thread doing that work.
+         */
+        private final FrameTimeHistory updateTimes = new FrameTimeHistory(1);
+        private final FrameTimeHistory renderTimes = new FrameTimeHistory(1);
+        /**
+         * Time the update in progress started, only touched by the SpriteUpdater's thread.
+         */
+        private long updateStartInNanoseconds;
+
+        private Display(GraphicsDevice device, RainPaneSprite rainPaneSprite) {
+            this.rainPaneSprite = rainPaneSprite;
+            this.spriteUpdatePaceInMilliseconds = DisplayRefreshInterval.ofDisplayInMilliseconds(device);
+            this.qualityGovernor = new QualityGovernor(spriteUpdatePaceInMilliseconds * 1_000_000L);
+            this.fullScreenRainWindow =
+                    new FullScreenRainWindow(device, rainPaneSprite, renderTimes, MultiDisplayRainWall.this::close);
+            rainPaneSprite.addFrameRenderedListener(fullScreenRainWindow::frameCompleted);
+            // Updated through a root sprite, like RainPanel does, so the time each update starts can be recorded
+            Sprite rootSprite = new Sprite() {
+                @Override
+                protected void updateBeforeChildren(long elapsedTimeInMilliseconds) {
+                    updateStartInNanoseconds = System.nanoTime();
+                }
+            };
+            rootSprite.addChildSprite(rainPaneSprite);
+            this.spriteUpdater = new SpriteUpdater(rootSprite, spriteUpdatePaceInMilliseconds);
+            spriteUpdater.addAdditionalActionPerUpdate(elapsedTimeInMilliseconds -> {
+                updateTimes.record(System.nanoTime() - updateStartInNanoseconds);
+                adaptQuality();
+            });
+        }
+
+        private void adaptQuality() {
+            if (!adaptingQuality) {
+                return;
+            }
+            QualityLevel currentLevel = rainPaneSprite.getQualityLevel();
+            QualityLevel chosenLevel = qualityGovernor
+                    .chooseQualityLevel(currentLevel, updateTimes.getDuration(0) + renderTimes.getDuration(0));
+            if (chosenLevel != currentLevel) {
+                rainPaneSprite.setQualityLevel(chosenLevel);
+            }
+        }
+    }
+}
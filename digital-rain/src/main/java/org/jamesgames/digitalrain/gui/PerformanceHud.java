@@ -0,0 +1,249 @@
+package org.jamesgames.digitalrain.gui;
+
+import org.jamesgames.digitalrain.rain.QualityLevel;
+import org.jamesgames.digitalrain.rain.RainPaneStatistics;
+
+import java.awt.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PerformanceHud draws an overlay of pipeline statistics over the rain: sprite and cache counters from a {@link
+ * RainPaneStatistics}, a sparkline of recent durations per frame phase, and garbage collection totals. Everything drawn
+ * comes from counters that are already maintained, and the text is written into reused character buffers, so drawing
+ * the overlay does not allocate and does not distort the numbers it shows.
+ *
+ * @author James Murphy
+ */
+class PerformanceHud {
+    private static final Font hudFont = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color backgroundColor = new Color(0, 0, 0, 190);
+    private static final Color textColor = Color.WHITE;
+    private static final Color sparklineColor = new Color(120, 255, 120);
+    private static final Color frameBudgetColor = new Color(255, 80, 80);
+    private static final int maxCharactersPerLine = 64;
+    private static final int hudTextColumns = 60;
+    private static final int margin = 6;
+    private static final int sparklineHeight = 24;
+    private static final long defaultFrameBudgetInNanoseconds = 16_666_667;
+
+    private final List<FrameTimeHistory> phaseHistories = new ArrayList<>();
+    private final List<HudTextLine> phaseLines = new ArrayList<>();
+    private final List<String> phaseNames = new ArrayList<>();
+    private final List<GarbageCollectorMXBean> garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private final HudTextLine spriteCountLine = new HudTextLine();
+    private final HudTextLine glyphMemoryLine = new HudTextLine();
+    private final HudTextLine offsetTableLine = new HudTextLine();
+    private final HudTextLine garbageCollectionLine = new HudTextLine();
+    private final HudTextLine simulationLine = new HudTextLine();
+    private final HudTextLine qualityLine = new HudTextLine();
+    private final HudTextLine skippedPaintLine = new HudTextLine();
+
+    private final AtomicLong skippedPaintCount = new AtomicLong();
+    private volatile long frameBudgetInNanoseconds = defaultFrameBudgetInNanoseconds;
+    private boolean visible;
+
+    /**
+     * Adds a phase of the frame (like updating or painting) whose recent durations will be shown as a sparkline.
+     */
+    void addPhase(String name, FrameTimeHistory history) {
+        phaseNames.add(name);
+        phaseHistories.add(history);
+        phaseLines.add(new HudTextLine());
+    }
+
+    /**
+     * Sets the duration a frame phase has to complete in to keep up with the display, marked on each sparkline.
+     */
+    void setFrameBudgetInNanoseconds(long frameBudgetInNanoseconds) {
+        this.frameBudgetInNanoseconds = frameBudgetInNanoseconds;
+    }
+
+    /**
+     * Counts a frame that wasn't painted, as the previous frame was still waiting to be painted.
+     */
+    void paintSkipped() {
+        skippedPaintCount.incrementAndGet();
+    }
+
+    void toggleVisible() {
+        visible = !visible;
+    }
+
+    boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Draws the overlay with its bottom left corner at the bottom left of the passed area.
+     *
+     * @param statistics
+     *         Counters of the RainPaneSprite being displayed, or null if there's no RainPaneSprite displayed
+     * @param paneHeight
+     *         Height of the displayed RainPaneSprite
+     */
+    void draw(Graphics2D g, RainPaneStatistics statistics, int paneHeight, int areaHeight) {
+        if (!visible) {
+            return;
+        }
+        g.setFont(hudFont);
+        FontMetrics metrics = g.getFontMetrics();
+        int lineHeight = metrics.getHeight();
+        int sparklineWidth = phaseHistories.isEmpty() ? 0 : phaseHistories.get(0).getCapacity();
+        int textLineCount = 2 + (statistics == null ? 0 : 5);
+        int hudHeight =
+                margin * 2 + lineHeight * textLineCount + phaseHistories.size() * (lineHeight + sparklineHeight);
+        int hudWidth = margin * 2 + Math.max(metrics.charWidth('0') * hudTextColumns, sparklineWidth);
+        int left = margin;
+        int top = areaHeight - hudHeight - margin;
+
+        g.setColor(backgroundColor);
+        g.fillRect(left, top, hudWidth, hudHeight);
+
+        int baseline = top + margin + metrics.getAscent();
+        g.setColor(textColor);
+        if (statistics != null) {
+            spriteCountLine.clear().append("Lines ").append(statistics.getRainLineSpriteCount())
+                    .append("  Drops ").append(statistics.getRainDropSpriteCount())
+                    .append("  Idle ").append(statistics.getCachedRainDropSpriteCount())
+                    .append("  Peak ").append(statistics.getRainDropSpriteHighWaterMark())
+                    .append("  Retired ").append(statistics.getRetiredRainLineSpriteCount());
+            baseline = spriteCountLine.draw(g, left + margin, baseline, lineHeight);
+            glyphMemoryLine.clear().append("Glyphs ").append(statistics.getCachedGlyphCount())
+                    .append("  ").append(statistics.getApproximateGlyphMemoryInBytes() / 1024).append(" KB")
+                    .append("  hits ").appendPercentage(statistics.getGlyphCacheHitRatio())
+                    .append("  evicted ").append(statistics.getGlyphCacheEvictionCount());
+            baseline = glyphMemoryLine.draw(g, left + margin, baseline, lineHeight);
+            offsetTableLine.clear().append("Offsets ").append(statistics.getCachedOffsetCount())
+                    .append("  fill ").appendPercentage(statistics.getOffsetTableFillRatio(paneHeight))
+                    .append("  hits ").appendPercentage(statistics.getOffsetCacheHitRatio());
+            baseline = offsetTableLine.draw(g, left + margin, baseline, lineHeight);
+            simulationLine.clear().append("Steps per update ").append(statistics.getLastUpdateSimulationStepCount())
+                    .append("  skipped ").append(statistics.getSkippedSimulationStepCount());
+            baseline = simulationLine.draw(g, left + margin, baseline, lineHeight);
+            QualityLevel qualityLevel = statistics.getQualityLevel();
+            qualityLine.clear().append("Quality ").append(qualityLevel.ordinal()).append(' ')
+                    .append(qualityLevel.toString());
+            baseline = qualityLine.draw(g, left + margin, baseline, lineHeight);
+        }
+        skippedPaintLine.clear().append("Skipped paints ").append(skippedPaintCount.get());
+        baseline = skippedPaintLine.draw(g, left + margin, baseline, lineHeight);
+        long collectionCount = 0;
+        long collectionTime = 0;
+        for (int i = 0; i < garbageCollectors.size(); i++) {
+            GarbageCollectorMXBean collector = garbageCollectors.get(i);
+            collectionCount += Math.max(0, collector.getCollectionCount());
+            collectionTime += Math.max(0, collector.getCollectionTime());
+        }
+        garbageCollectionLine.clear().append("GC ").append(collectionCount).append(" collections, ")
+                .append(collectionTime).append(" ms paused");
+        baseline = garbageCollectionLine.draw(g, left + margin, baseline, lineHeight);
+
+        for (int i = 0; i < phaseHistories.size(); i++) {
+            FrameTimeHistory history = phaseHistories.get(i);
+            g.setColor(textColor);
+            phaseLines.get(i).clear().append(phaseNames.get(i)).append(" avg ")
+                    .appendMilliseconds(history.getAverageDuration()).append(" max ")
+                    .appendMilliseconds(history.getLargestDuration()).append(" ms");
+            baseline = phaseLines.get(i).draw(g, left + margin, baseline, lineHeight);
+            int sparklineBottom = baseline - metrics.getAscent() + sparklineHeight;
+            drawSparkline(g, history, left + margin, sparklineBottom);
+            baseline += sparklineHeight;
+        }
+    }
+
+    private void drawSparkline(Graphics2D g, FrameTimeHistory history, int left, int bottom) {
+        long scale = Math.max(frameBudgetInNanoseconds, history.getLargestDuration());
+        int budgetY = bottom - (int) (sparklineHeight * frameBudgetInNanoseconds / scale);
+        g.setColor(frameBudgetColor);
+        g.drawLine(left, budgetY, left + history.getCapacity() - 1, budgetY);
+        g.setColor(sparklineColor);
+        int count = history.getRecordedCount();
+        // Oldest duration on the left, newest on the right
+        int previousX = -1;
+        int previousY = 0;
+        for (int age = count - 1; age >= 0; age--) {
+            int x = left + history.getCapacity() - 1 - age;
+            int y = bottom - (int) (sparklineHeight * history.getDuration(age) / scale);
+            if (previousX >= 0) {
+                g.drawLine(previousX, previousY, x, y);
+            }
+            previousX = x;
+            previousY = y;
+        }
+    }
+
+    /**
+     * A line of text written into a reused character buffer, so numbers can be formatted every frame without creating
+     * Strings.
+     */
+    private static class HudTextLine {
+        private final char[] characters = new char[maxCharactersPerLine];
+        private final char[] digits = new char[20];
+        private int length;
+
+        HudTextLine clear() {
+            length = 0;
+            return this;
+        }
+
+        HudTextLine append(String text) {
+            for (int i = 0; i < text.length() && length < characters.length; i++) {
+                characters[length++] = text.charAt(i);
+            }
+            return this;
+        }
+
+        HudTextLine append(char character) {
+            if (length < characters.length) {
+                characters[length++] = character;
+            }
+            return this;
+        }
+
+        HudTextLine append(long value) {
+            if (value < 0) {
+                append('-');
+                value = -value;
+            }
+            int digitCount = 0;
+            do {
+                digits[digitCount++] = (char) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            while (digitCount > 0) {
+                append(digits[--digitCount]);
+            }
+            return this;
+        }
+
+        HudTextLine appendPercentage(float ratio) {
+            return append(Math.round(ratio * 100)).append('%');
+        }
+
+        /**
+         * Appends the nanosecond duration as milliseconds with two decimal places.
+         */
+        HudTextLine appendMilliseconds(long durationInNanoseconds) {
+            long hundredthsOfMilliseconds = durationInNanoseconds / 10_000;
+            append(hundredthsOfMilliseconds / 100).append('.');
+            long hundredths = hundredthsOfMilliseconds % 100;
+            if (hundredths < 10) {
+                append('0');
+            }
+            return append(hundredths);
+        }
+
+        /**
+         * @return Baseline for the next line of text
+         */
+        int draw(Graphics2D g, int x, int baseline, int lineHeight) {
+            g.drawChars(characters, 0, length, x, baseline);
+            return baseline + lineHeight;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.jamesgames.digitalrain.gui;
+
+import net.jcip.annotations.ThreadSafe;
+import org.jamesgames.digitalrain.rain.QualityLevel;
+
+/**
+ * QualityGovernor picks the {@link QualityLevel} a RainPaneSprite should render at, so the time spent per frame stays
+ * within the time between refreshes of the display. The level is lowered after frames have been over budget for a
+ * while, and raised again only after frames have been well under budget for a longer while, so the level doesn't flip
+ * back and forth around the budget. After each change no other change is made until frames reflect the new level.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+class QualityGovernor {
+    private static final float lowerQualityAboveBudgetRatio = 0.9f;
+    private static final float raiseQualityBelowBudgetRatio = 0.5f;
+    private static final int framesOverBudgetBeforeLowering = 30;
+    private static final int framesUnderBudgetBeforeRaising = 180;
+    private static final int framesToSettleAfterChange = 60;
+
+    private final long frameBudgetInNanoseconds;
+    private int framesOverBudget;
+    private int framesUnderBudget;
+    private int framesSinceChange;
+
+    QualityGovernor(long frameBudgetInNanoseconds) {
+        this.frameBudgetInNanoseconds = frameBudgetInNanoseconds;
+    }
+
+    /**
+     * Records the time spent on the latest frame, and picks the level to render at.
+     *
+     * @param currentLevel
+     *         The level the latest frame was rendered at
+     * @param frameDurationInNanoseconds
+     *         Time spent on the latest frame
+     * @return The level to render at from now on, which is the current level unless a change is due
+     */
+    synchronized QualityLevel chooseQualityLevel(QualityLevel currentLevel, long frameDurationInNanoseconds) {
+        framesSinceChange++;
+        if (frameDurationInNanoseconds > frameBudgetInNanoseconds * lowerQualityAboveBudgetRatio) {
+            framesOverBudget++;
+            framesUnderBudget = 0;
+        } else if (frameDurationInNanoseconds < frameBudgetInNanoseconds * raiseQualityBelowBudgetRatio) {
+            framesUnderBudget++;
+            framesOverBudget = 0;
+        } else {
+            framesOverBudget = 0;
+            framesUnderBudget = 0;
+        }
+        if (framesSinceChange < framesToSettleAfterChange) {
+            return currentLevel;
+        }
+        QualityLevel chosenLevel = currentLevel;
+        if (framesOverBudget >= framesOverBudgetBeforeLowering) {
+            chosenLevel = currentLevel.lower();
+        } else if (framesUnderBudget >= framesUnderBudgetBeforeRaising) {
+            chosenLevel = currentLevel.higher();
+        }
+        if (chosenLevel != currentLevel) {
+            reset();
+        }
+        return chosenLevel;
+    }
+
+    /**
+     * Forgets the frames recorded so far, used when what's rendered changes entirely, like for a new RainPaneSprite.
+     */
+    synchronized void reset() {
+        framesOverBudget = 0;
+        framesUnderBudget = 0;
+        framesSinceChange = 0;
+    }
+}
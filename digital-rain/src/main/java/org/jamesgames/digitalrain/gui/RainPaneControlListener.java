@@ -1,5 +1,9 @@
 package org.jamesgames.digitalrain.gui;
 
+import org.jamesgames.digitalrain.rain.RainRenderMode;
+
+import java.io.File;
+
 /**
  * RainPaneControlListener defines events that can come from a {@link RainPaneControlPanel}.
  *
@@ -17,15 +21,36 @@ interface RainPaneControlListener {
     public void setRainDropYVelocityInUnitsPerMillisecond(float yVelocityUnitsInMilliseconds);
 
     /**
-     * When called with true, expects the timing stats to be drawn to the screen.
+     * Toggles drawing the timing stats and the rest of the performance overlay to the screen.
+     */
+    public void toggleDrawingOfPerformanceHud();
+
+    /**
+     * Set's the way the potential associated RainPaneSprite draws its rain.
+     */
+    public void setRenderMode(RainRenderMode renderMode);
+
+    /**
+     * Sets if the potential associated RainPaneSprite's quality level is lowered and raised to keep up with the
+     * display, when false it renders at full quality.
+     */
+    public void setAdaptingQualityToFrameRate(boolean adaptingQuality);
+
+    /**
+     * Saves a snapshot of the potential associated RainPaneSprite's scene to the passed file
      */
-    public void toggleDrawingOfFPSUPS();
+    public void saveSceneSnapshot(File snapshotFile);
 
     /**
      * Make the window full screen across all displays
      */
     public void setWindowFullScreenOverAllDisplays();
 
+    /**
+     * Display the potential associated RainPaneSprite alone in full-screen exclusive mode on the window's display
+     */
+    public void setFullScreenExclusive();
+
     /**
      * Restore the window to a default size
      */
@@ -1,11 +1,13 @@
 package org.jamesgames.digitalrain.gui;
 
 import org.jamesgames.digitalrain.rain.RainPaneSprite;
+import org.jamesgames.digitalrain.rain.RainRenderMode;
 import org.jamesgames.jamesjavautils.general.ObserverSet;
 import org.jamesgames.jamesjavautils.gui.swing.SwingHelper;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
 import java.util.Hashtable;
 
 /**
@@ -25,6 +27,12 @@ class RainPaneControlPanel extends JPanel {
     private final JSlider rainSpeed = new JSlider(JSlider.VERTICAL,
             minRainSpeed, maxRainSpeed, defaultRainSpeed);
 
+    private final JComboBox<RainRenderMode> renderModes = new JComboBox<>(RainRenderMode.values());
+
+    private final JCheckBox adaptQuality = new JCheckBox("Lower quality to keep up the frame rate", true);
+
+    private final JFileChooser snapshotFileChooser = new JFileChooser();
+
     public RainPaneControlPanel() {
         this.setLayout(new BorderLayout());
         setBorder(BorderFactory.createTitledBorder("Control current rain scene"));
@@ -49,10 +57,10 @@ class RainPaneControlPanel extends JPanel {
 
         JPanel buttonPanel = new JPanel();
         buttonPanel.setLayout(new BoxLayout(buttonPanel, BoxLayout.Y_AXIS));
-        JButton displayUpdateSpeeds = new JButton("Toggle display of FPS/UPS");
+        JButton displayUpdateSpeeds = new JButton("Toggle display of FPS/UPS and performance HUD");
         displayUpdateSpeeds.addActionListener(e -> {
             for (RainPaneControlListener listener : listeners)
-                listener.toggleDrawingOfFPSUPS();
+                listener.toggleDrawingOfPerformanceHud();
         });
         buttonPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.LEFT, false, displayUpdateSpeeds));
         JButton displayDebugGraphics = new JButton("Toggle display of debug graphics");
@@ -61,6 +69,27 @@ class RainPaneControlPanel extends JPanel {
                 listener.toggleDrawingOFDebugGraphics();
         });
         buttonPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.LEFT, false, displayDebugGraphics));
+        renderModes.addActionListener(e -> {
+            for (RainPaneControlListener listener : listeners)
+                listener.setRenderMode(renderModes.getItemAt(renderModes.getSelectedIndex()));
+        });
+        buttonPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.LEFT, false,
+                new JLabel("Render mode:"), renderModes));
+        // Listens for item changes rather than actions, so resetting the check box is passed on to listeners too
+        adaptQuality.addItemListener(e -> {
+            for (RainPaneControlListener listener : listeners)
+                listener.setAdaptingQualityToFrameRate(adaptQuality.isSelected());
+        });
+        buttonPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.LEFT, false, adaptQuality));
+        JButton saveSnapshot = new JButton("Save Scene Snapshot");
+        saveSnapshot.addActionListener(e -> {
+            if (snapshotFileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                File snapshotFile = snapshotFileChooser.getSelectedFile();
+                for (RainPaneControlListener listener : listeners)
+                    listener.saveSceneSnapshot(snapshotFile);
+            }
+        });
+        buttonPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.LEFT, false, saveSnapshot));
         JButton fullScreen = new JButton("Full Screen");
         fullScreen.addActionListener(e -> {
             for (RainPaneControlListener listener : listeners)
@@ -71,12 +100,29 @@ class RainPaneControlPanel extends JPanel {
             for (RainPaneControlListener listener : listeners)
                 listener.restoreWindowSize();
         });
-        buttonPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.LEFT, false, fullScreen, restoreScreen));
+        JButton fullScreenExclusive = new JButton("Exclusive Full Screen");
+        fullScreenExclusive.setToolTipText("Press escape or click to leave");
+        fullScreenExclusive.addActionListener(e -> {
+            for (RainPaneControlListener listener : listeners)
+                listener.setFullScreenExclusive();
+        });
+        buttonPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.LEFT, false, fullScreen, restoreScreen,
+                fullScreenExclusive));
         this.add(buttonPanel, BorderLayout.CENTER);
     }
 
+    /**
+     * Moves the rain speed slider to the passed speed, which is passed on to listeners like any other change of the
+     * slider.
+     */
+    public void setRainSpeed(float yVelocityUnitsInMilliseconds) {
+        rainSpeed.setValue(Math.round(yVelocityUnitsInMilliseconds * 100));
+    }
+
     public void resetPanelComponentsToDefault() {
         rainSpeed.setValue(defaultRainSpeed);
+        renderModes.setSelectedItem(RainRenderMode.SPRITES);
+        adaptQuality.setSelected(true);
     }
 
     public void addRainPaneControlListener(RainPaneControlListener listener) {
@@ -2,6 +2,9 @@ package org.jamesgames.digitalrain.gui;
 
 import org.jamesgames.digitalrain.rain.RainPaneSprite;
 
+import java.awt.*;
+import java.util.Map;
+
 /**
  * RainPaneCreatorListener is an interface that defines an event from when a new {@link
  * org.jamesgames.digitalrain.rain.RainPaneSprite} is created.
@@ -11,10 +14,21 @@ import org.jamesgames.digitalrain.rain.RainPaneSprite;
 interface RainPaneCreatorListener {
 
     /**
-     * Called when a new RainPaneSprite has been created
+     * Called when a new RainPaneSprite has been created, on the thread that built it rather than the event dispatch
+     * thread. Work done before returning, like preparing the RainPaneSprite to be displayed, counts towards the
+     * scene's build time.
      *
      * @param sprite
      *         The new RainPaneSprite created.
      */
     public void rainPaneSpriteCreated(RainPaneSprite sprite);
+
+    /**
+     * Called when a new RainPaneSprite has been created for each display, to be displayed on the display it was
+     * created for, on the thread that built them rather than the event dispatch thread
+     *
+     * @param spritesPerDisplay
+     *         The new RainPaneSprites, by the display they were created for
+     */
+    public void rainPaneSpritesCreatedForEachDisplay(Map<GraphicsDevice, RainPaneSprite> spritesPerDisplay);
 }
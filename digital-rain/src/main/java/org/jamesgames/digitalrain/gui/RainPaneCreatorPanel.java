@@ -1,7 +1,9 @@
 package org.jamesgames.digitalrain.gui;
 
 import org.jamesgames.digitalrain.gui.jython.OffsetFunctionPanel;
+import org.jamesgames.digitalrain.jython.JythonOffsetFunction;
 import org.jamesgames.digitalrain.rain.OffsetAnimationMap;
+import org.jamesgames.digitalrain.rain.RainCharacterSet;
 import org.jamesgames.digitalrain.rain.RainPaneSprite;
 import org.jamesgames.jamesjavautils.general.ObserverSet;
 import org.jamesgames.jamesjavautils.gui.swing.ColorSetChooser;
@@ -11,11 +13,23 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RainPaneCreatorPanel is a {@link javax.swing.JPanel} that has various options to create {@link
- * org.jamesgames.digitalrain.rain.RainPaneSprite}s.
+ * org.jamesgames.digitalrain.rain.RainPaneSprite}s. Scenes are built on a background thread, so whatever scene is
+ * displayed keeps animating while the next one is built, and the time each build took is displayed once done.
  *
  * @author James Murphy
  */
@@ -33,8 +47,21 @@ class RainPaneCreatorPanel extends JPanel {
             new Integer(1) // step, value from one to next
     );
     private final JSpinner fontSizeSpinner = new JSpinner(validFontSizes);
+    private final JComboBox<RainCharacterSet> characterSetComboBox =
+            new JComboBox<>(RainCharacterSet.getBuiltInCharacterSets().toArray(new RainCharacterSet[0]));
+    private final JTextField customCharactersField = new JTextField(20);
     private final ColorSetChooser colorList = new ColorSetChooser("Digital Rain colors", 100, 100);
     private final JLabel warningLabel = new JLabel();
+    private final JLabel buildStatusLabel = new JLabel();
+    private final JButton createNewRainPaneSprite = new JButton("Create Digital Rain Scene");
+    private final JButton createNewRainPaneSpritePerDisplay = new JButton("Create Scene On Each Display");
+    private final JButton loadSnapshot = new JButton("Load Scene Snapshot");
+    private final JFileChooser snapshotFileChooser = new JFileChooser();
+    private final ExecutorService sceneBuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread sceneBuildingThread = new Thread(runnable, "Digital rain scene builder");
+        sceneBuildingThread.setDaemon(true);
+        return sceneBuildingThread;
+    });
     private final OffsetFunctionPanel offsetFunctionChooser = new OffsetFunctionPanel();
 
     public RainPaneCreatorPanel() {
@@ -50,6 +77,7 @@ class RainPaneCreatorPanel extends JPanel {
         useDefaultMonospacedFont.setSelected(true);
         fontComboBox.setEnabled(!isUsingDefaultMonospacedFontAtStart);
         fontComboBox.setToolTipText("Try to pick a monospaced font for best effect");
+        customCharactersField.setToolTipText("Characters to use instead of the chosen set, leave empty to use the set");
 
 
         // Laying out of components
@@ -66,7 +94,11 @@ class RainPaneCreatorPanel extends JPanel {
         topOfTopPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.LEFT,
                 false, new JLabel("Font Size: "), fontSizeSpinner));
         topOfTopPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.LEFT,
-                false, new JLabel("Note, not all fonts may support the characters used")));
+                false, new JLabel("Characters: "), characterSetComboBox));
+        topOfTopPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.LEFT,
+                false, new JLabel("Custom characters: "), customCharactersField));
+        topOfTopPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.LEFT,
+                false, new JLabel("Note, characters the font can't display are left out")));
         topPanel.add(topOfTopPanel, BorderLayout.NORTH);
         // Center of top
         topPanel.add(colorList, BorderLayout.CENTER);
@@ -74,35 +106,151 @@ class RainPaneCreatorPanel extends JPanel {
         JPanel bottomOfTopPanel = new JPanel();
         bottomOfTopPanel.setLayout(new BoxLayout(bottomOfTopPanel, BoxLayout.Y_AXIS));
         bottomOfTopPanel.add(offsetFunctionChooser);
-        JButton createNewRainPaneSprite = new JButton("Create Digital Rain Scene");
+        createNewRainPaneSpritePerDisplay.setToolTipText("Displays a separate scene full screen on every display, " +
+                "press escape or click to leave");
         bottomOfTopPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.CENTER, false,
-                createNewRainPaneSprite), BorderLayout.SOUTH);
+                createNewRainPaneSprite, createNewRainPaneSpritePerDisplay), BorderLayout.SOUTH);
+        loadSnapshot.setToolTipText("Continues a saved scene, animated with the selected offset function");
+        bottomOfTopPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.CENTER, false, loadSnapshot),
+                BorderLayout.SOUTH);
         bottomOfTopPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.CENTER, false, warningLabel),
                 BorderLayout.SOUTH);
+        bottomOfTopPanel.add(SwingHelper.putComponentsInFlowLayoutPanel(FlowLayout.CENTER, false, buildStatusLabel),
+                BorderLayout.SOUTH);
         createNewRainPaneSprite.addActionListener(e -> createNewRainPaneSprite());
+        createNewRainPaneSpritePerDisplay.addActionListener(e -> createNewRainPaneSpritePerDisplay());
+        loadSnapshot.addActionListener(e -> loadRainPaneSpriteFromSnapshot());
         warningLabel.setForeground(Color.RED);
         topPanel.add(bottomOfTopPanel, BorderLayout.SOUTH);
         this.add(topPanel, BorderLayout.NORTH);
     }
 
     private void createNewRainPaneSprite() {
-        Set<Color> colorsSelected = colorList.getColors();
-        if (colorsSelected.isEmpty()) {
-            warningLabel.setText("Must supply at least one color");
-        } else {
-            warningLabel.setText("");
-            int fontStyle = getFontStyle();
-            OffsetAnimationMap offsetAnimationMap =
-                    new OffsetAnimationMap(offsetFunctionChooser.getSelectedJythonFunction().createFunction());
-            RainPaneSprite rainPaneSprite = useDefaultMonospacedFont.isSelected() ?
-                    new RainPaneSprite(colorsSelected, fontStyle, (Integer) fontSizeSpinner.getModel().getValue(),
-                            offsetAnimationMap)
-                    :
-                    new RainPaneSprite(colorsSelected, new Font(fontComboBox.getItemAt(fontComboBox.getSelectedIndex()),
-                            fontStyle, (Integer) fontSizeSpinner.getModel().getValue()), offsetAnimationMap);
+        if (areSettingsValid()) {
+            SceneSettings settings = new SceneSettings();
+            GraphicsConfiguration graphicsConfiguration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            buildScene(() -> {
+                RainPaneSprite rainPaneSprite = settings.createRainPaneSprite(graphicsConfiguration);
+                for (RainPaneCreatorListener listener : listeners) {
+                    listener.rainPaneSpriteCreated(rainPaneSprite);
+                }
+            });
+        }
+    }
+
+    private void createNewRainPaneSpritePerDisplay() {
+        if (areSettingsValid()) {
+            SceneSettings settings = new SceneSettings();
+            GraphicsDevice[] devices = GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices();
+            buildScene(() -> {
+                Map<GraphicsDevice, RainPaneSprite> rainPaneSpritesPerDisplay = new LinkedHashMap<>();
+                for (GraphicsDevice device : devices) {
+                    rainPaneSpritesPerDisplay
+                            .put(device, settings.createRainPaneSprite(device.getDefaultConfiguration()));
+                }
+                for (RainPaneCreatorListener listener : listeners) {
+                    listener.rainPaneSpritesCreatedForEachDisplay(rainPaneSpritesPerDisplay);
+                }
+            });
+        }
+    }
+
+    private void loadRainPaneSpriteFromSnapshot() {
+        if (snapshotFileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File snapshotFile = snapshotFileChooser.getSelectedFile();
+        JythonOffsetFunction offsetFunction = offsetFunctionChooser.getSelectedJythonFunction();
+        GraphicsConfiguration graphicsConfiguration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        buildScene(() -> {
+            RainPaneSprite rainPaneSprite;
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+                rainPaneSprite = RainPaneSprite.readSnapshot(in,
+                        new OffsetAnimationMap(offsetFunction.createFunction()), graphicsConfiguration);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
             for (RainPaneCreatorListener listener : listeners) {
                 listener.rainPaneSpriteCreated(rainPaneSprite);
             }
+        });
+    }
+
+    /**
+     * Runs the passed build on the scene building thread, with the create buttons disabled until it's done, then
+     * displays how long the build took. The buttons are enabled again however the build ends, even when it throws an
+     * error.
+     */
+    private void buildScene(Runnable build) {
+        createNewRainPaneSprite.setEnabled(false);
+        createNewRainPaneSpritePerDisplay.setEnabled(false);
+        loadSnapshot.setEnabled(false);
+        buildStatusLabel.setText("Building scene...");
+        sceneBuilder.execute(() -> {
+            long buildStartInNanoseconds = System.nanoTime();
+            String buildStatus = "Scene could not be built";
+            try {
+                build.run();
+                buildStatus = "Scene built in " +
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - buildStartInNanoseconds) + " ms";
+            } catch (RuntimeException | OutOfMemoryError e) {
+                // Running out of memory only fails this build, the scene being built is dropped along with its memory
+                buildStatus = "Scene could not be built: " + (e.getMessage() != null ? e.getMessage() : e);
+            } finally {
+                String finalBuildStatus = buildStatus;
+                SwingUtilities.invokeLater(() -> {
+                    buildStatusLabel.setText(finalBuildStatus);
+                    createNewRainPaneSprite.setEnabled(true);
+                    createNewRainPaneSpritePerDisplay.setEnabled(true);
+                    loadSnapshot.setEnabled(true);
+                });
+            }
+        });
+    }
+
+    private boolean areSettingsValid() {
+        if (colorList.getColors().isEmpty()) {
+            warningLabel.setText("Must supply at least one color");
+            return false;
+        }
+        if (customCharactersField.getText().length() > RainCharacterSet.maxCharacterCount) {
+            warningLabel.setText("At most " + RainCharacterSet.maxCharacterCount + " custom characters can be used");
+            return false;
+        }
+        warningLabel.setText("");
+        return true;
+    }
+
+    /**
+     * SceneSettings holds the settings chosen in the panel's components when a scene was asked for, read on the event
+     * dispatch thread, so the scene can be built from them on the scene building thread.
+     */
+    private class SceneSettings {
+        private final Set<Color> colorsSelected = colorList.getColors();
+        private final Font rainFont;
+        private final RainCharacterSet characterSet = customCharactersField.getText().isEmpty() ?
+                characterSetComboBox.getItemAt(characterSetComboBox.getSelectedIndex()) :
+                new RainCharacterSet("Custom", customCharactersField.getText());
+        private final JythonOffsetFunction offsetFunction = offsetFunctionChooser.getSelectedJythonFunction();
+
+        private SceneSettings() {
+            int fontStyle = getFontStyle();
+            int fontSize = (Integer) fontSizeSpinner.getModel().getValue();
+            rainFont = useDefaultMonospacedFont.isSelected() ?
+                    new Font(Font.MONOSPACED, fontStyle, fontSize) :
+                    new Font(fontComboBox.getItemAt(fontComboBox.getSelectedIndex()), fontStyle, fontSize);
+        }
+
+        /**
+         * @return A RainPaneSprite made from the settings, with character images compatible with the passed
+         * configuration
+         */
+        private RainPaneSprite createRainPaneSprite(GraphicsConfiguration graphicsConfiguration) {
+            return new RainPaneSprite(colorsSelected, rainFont, characterSet,
+                    new OffsetAnimationMap(offsetFunction.createFunction()), graphicsConfiguration);
         }
     }
 
@@ -1,6 +1,13 @@
 package org.jamesgames.digitalrain.gui;
 
+import org.jamesgames.digitalrain.jfr.FramePaintEvent;
+import org.jamesgames.digitalrain.jfr.FrameUpdateEvent;
+import org.jamesgames.digitalrain.jfr.SceneCreatedEvent;
+import org.jamesgames.digitalrain.rain.DirtyRegionState;
+import org.jamesgames.digitalrain.rain.FrameRenderedListener;
+import org.jamesgames.digitalrain.rain.QualityLevel;
 import org.jamesgames.digitalrain.rain.RainPaneSprite;
+import org.jamesgames.digitalrain.rain.RainRenderMode;
 import org.jamesgames.easysprite.Sprite;
 import org.jamesgames.easysprite.gui.swing.SpritePanel;
 import org.jamesgames.easysprite.updater.SpriteUpdater;
@@ -8,8 +15,17 @@ import org.jamesgames.jamesjavautils.gui.swing.SwingHelper;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.ContainerEvent;
 import java.awt.event.ContainerListener;
+import java.awt.event.HierarchyEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * RainPanel is the main user interface component in the digital rain application. It displays a {@link
@@ -17,18 +33,57 @@ import java.awt.event.ContainerListener;
  * also displays a {@link org.jamesgames.digitalrain.gui.RainPaneCreatorPanel} to create RainPaneSprites for the
  * SpritePanel. RainPanel is also a ContainerListener, which if added as a listener to it's parent container will stop
  * or continue updating on removal and adding.
+ * <p>
+ * To save power, updating stops while the SpritePanel can't be seen (the window is minimized, or the SpritePanel is
+ * hidden or has no area, like when the controls are dragged over it), and slows down while the rain is stopped, where
+ * only flickering characters change.
  *
  * @author James Murphy
  */
-public class RainPanel extends JPanel implements RainPaneCreatorListener, RainPaneControlListener, ContainerListener {
+public class RainPanel extends JPanel
+        implements RainPaneCreatorListener, RainPaneControlListener, ContainerListener, FrameRenderedListener {
 
-    private static final int spriteUpdatePaceInMilliseconds = 16;
+    private static final int frameTimeHistoryLength = 120;
+    private static final int spriteUpdatePaceWhileRainIsStoppedInMilliseconds = 125;
+    /**
+     * Most separate areas of the displayed RainPaneSprite painted after an update, changes beyond that are joined into
+     * larger areas.
+     */
+    private static final int maxChangedAreasPaintedPerUpdate = 8;
+
+    /**
+     * Milliseconds between updates, which is also the length of each simulation step of a RainPaneSprite, following
+     * the refresh rate of the display.
+     */
+    private final int spriteUpdatePaceInMilliseconds = DisplayRefreshInterval.ofDefaultScreenInMilliseconds();
+
+    /**
+     * Milliseconds between updates the spriteUpdater is currently updating at, or 0 if it's stopped, only changed by
+     * the event dispatch thread.
+     */
+    private volatile int currentSpriteUpdatePaceInMilliseconds = spriteUpdatePaceInMilliseconds;
+
+    /**
+     * The latest RainPaneSprite built and prepared to be displayed, waiting for the start of the next update to replace
+     * the displayed one, or null if none is waiting.
+     */
+    private final AtomicReference<RainPaneSprite> builtRainPaneSpriteToDisplay = new AtomicReference<>();
+
+    /**
+     * False while the rain speed is set to stopped, only touched by the event dispatch thread.
+     */
+    private boolean rainFalling = true;
+
+    /**
+     * False while RainPanel is removed from it's parent container, only touched by the event dispatch thread.
+     */
+    private boolean addedToParent = true;
 
     /**
      * Last created RainPaneSprite. Reference is kept track of so one can remove it from the rootSprite when a new
      * RainPaneSprite is created.
      */
-    private Sprite lastCreatedRainPaneSprite = new Sprite() {
+    private volatile Sprite lastCreatedRainPaneSprite = new Sprite() {
         @Override
         protected void drawUnderChildren(Graphics2D g) {
             Graphics tempGraphics = g.create();
@@ -45,20 +100,146 @@ public class RainPanel extends JPanel implements RainPaneCreatorListener, RainPa
      * as the user creates them.
      */
     private final Sprite rootSprite = new Sprite() {
+        /**
+         * The root sprite is the first sprite updated in a frame, so this is where the frame's update event begins.
+         * The event is ended and committed by the additional action per update, which runs after the whole tree has
+         * been updated.
+         */
+        @Override
+        protected void updateBeforeChildren(long elapsedTimeInMilliseconds) {
+            frameUpdateEvent = new FrameUpdateEvent();
+            frameUpdateEvent.begin();
+            frameUpdateStartInNanoseconds = System.nanoTime();
+            RainPaneSprite builtRainPaneSprite = builtRainPaneSpriteToDisplay.getAndSet(null);
+            if (builtRainPaneSprite != null) {
+                swapInRainPaneSprite(builtRainPaneSprite);
+            }
+        }
+
         /**
          * The root sprite will be auto resized to SpritePanel's size, but lastCreatedRainPaneSprite will not,
          * so on resize of the root Sprite, also resize lastCreatedRainPaneSprite.
          */
         @Override
         protected void onResize(int newWidth, int newHeight, int oldWidth, int oldHeight) {
-            lastCreatedRainPaneSprite.resize(newWidth, newHeight);
+            Sprite displayedSprite = lastCreatedRainPaneSprite;
+            if (fullScreenRainWindow != null) {
+                // Sized to the display until full-screen mode ends
+                return;
+            }
+            if (displayedSprite instanceof RainPaneSprite) {
+                ((RainPaneSprite) displayedSprite).requestResize(newWidth, newHeight);
+            } else {
+                displayedSprite.resize(newWidth, newHeight);
+            }
         }
     };
 
+    /**
+     * Flight recorder event for the frame currently being updated, only touched by the SpriteUpdater's thread.
+     */
+    private FrameUpdateEvent frameUpdateEvent = new FrameUpdateEvent();
+
+    /**
+     * Time the frame currently being updated started updating, only touched by the SpriteUpdater's thread.
+     */
+    private long frameUpdateStartInNanoseconds;
+
+    /**
+     * Recent durations of updating the sprite tree and of painting the SpritePanel, displayed by the performanceHud.
+     */
+    private final FrameTimeHistory updateTimes = new FrameTimeHistory(frameTimeHistoryLength);
+    private final FrameTimeHistory paintTimes = new FrameTimeHistory(frameTimeHistoryLength);
+
+    /**
+     * Overlay of pipeline statistics drawn over the SpritePanel, toggled along with the SpritePanel's FPS/UPS display.
+     */
+    private final PerformanceHud performanceHud = new PerformanceHud();
+
+    /**
+     * Reused to receive the areas of the displayed RainPaneSprite that changed each update. Filled by the
+     * SpriteUpdater's thread while no repaint is pending, then painted by the event dispatch thread, which clears
+     * repaintPending once every area is painted.
+     */
+    private final Rectangle[] changedAreas = new Rectangle[maxChangedAreasPaintedPerUpdate];
+    private final Runnable paintChangedAreas = this::paintChangedAreasOfSpritePanel;
+
+    /**
+     * True while the event dispatch thread paints the changedAreas one after another, only touched by the event
+     * dispatch thread.
+     */
+    private boolean paintingChangedAreas = false;
+
+    /**
+     * True from requesting a repaint of the SpritePanel until the SpritePanel is painted. Frames completed while a
+     * repaint is still pending are not painted, so painting that can't keep up doesn't fall further and further behind.
+     */
+    private volatile boolean repaintPending = false;
+
+    /**
+     * Lowers and raises the quality level of the displayed RainPaneSprite to keep up with the display, while
+     * adaptingQuality is true.
+     */
+    private final QualityGovernor qualityGovernor = new QualityGovernor(spriteUpdatePaceInMilliseconds * 1_000_000L);
+    private volatile boolean adaptingQuality = true;
+
+    /**
+     * Window displaying the RainPaneSprite in full-screen exclusive mode, or null while not in that mode. While set,
+     * the SpritePanel doesn't draw the RainPaneSprite, as the window is drawing it.
+     */
+    private volatile FullScreenRainWindow fullScreenRainWindow;
+
+    /**
+     * Displays a RainPaneSprite on each display, or null while not displaying one. While set, nothing in RainPanel is
+     * updated, only touched by the event dispatch thread.
+     */
+    private MultiDisplayRainWall multiDisplayRainWall;
+
+    /**
+     * True while debug graphics are drawn, which are not tracked by the RainPaneSprite's dirty region.
+     */
+    private volatile boolean drawingDebugGraphics = false;
+
     /**
      * SpritePanel that displays the latest created RainPaneSprite.
      */
-    private final SpritePanel spritePanel = new SpritePanel(rootSprite, true);
+    private final SpritePanel spritePanel = new SpritePanel(rootSprite, true) {
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (!paintingChangedAreas) {
+                repaintPending = false;
+            }
+            FramePaintEvent paintEvent = new FramePaintEvent();
+            paintEvent.begin();
+            long paintStartInNanoseconds = System.nanoTime();
+            Sprite displayedSprite = lastCreatedRainPaneSprite;
+            if (fullScreenRainWindow != null) {
+                g.setColor(Color.BLACK);
+                g.fillRect(0, 0, getWidth(), getHeight());
+                return;
+            }
+            // A frame completed on a render thread is drawn as is, without drawing (or waiting on) the sprites
+            if (!(displayedSprite instanceof RainPaneSprite) ||
+                    !((RainPaneSprite) displayedSprite).drawLatestRenderedFrame((Graphics2D) g)) {
+                super.paintComponent(g);
+            }
+            if (!paintingChangedAreas) {
+                paintTimes.record(System.nanoTime() - paintStartInNanoseconds);
+            }
+            paintEvent.end();
+            if (paintEvent.shouldCommit()) {
+                Rectangle clip = g.getClipBounds();
+                paintEvent.clipWidth = clip == null ? getWidth() : clip.width;
+                paintEvent.clipHeight = clip == null ? getHeight() : clip.height;
+                paintEvent.commit();
+            }
+            if (performanceHud.isVisible()) {
+                performanceHud.draw((Graphics2D) g, displayedSprite instanceof RainPaneSprite ?
+                                ((RainPaneSprite) displayedSprite).getStatistics() : null,
+                        displayedSprite.getHeight(), getHeight());
+            }
+        }
+    };
 
     /**
      * RainPaneCreatorPanel used to create a new {@link org.jamesgames.digitalrain.rain.RainPaneSprite}.
@@ -99,13 +280,56 @@ public class RainPanel extends JPanel implements RainPaneCreatorListener, RainPa
 
     public RainPanel(Frame frame) {
         frameContainingRainPanel = frame;
+        for (int i = 0; i < changedAreas.length; i++) {
+            changedAreas[i] = new Rectangle();
+        }
         this.setLayout(new BorderLayout());
         spritePanel.setBackground(Color.BLACK);
         spriteUpdater.addUpdateListener(spritePanel);
-        spriteUpdater.addAdditionalActionPerUpdate(elapsedTimeInMilliseconds -> spritePanel.repaint());
+        spriteUpdater.addAdditionalActionPerUpdate(elapsedTimeInMilliseconds -> {
+            updateTimes.record(System.nanoTime() - frameUpdateStartInNanoseconds);
+            frameUpdateEvent.end();
+            if (frameUpdateEvent.shouldCommit()) {
+                frameUpdateEvent.elapsedTimeInMilliseconds = elapsedTimeInMilliseconds;
+                frameUpdateEvent.commit();
+            }
+            adaptQualityOfRainPaneSprite();
+            FullScreenRainWindow fullScreenWindow = fullScreenRainWindow;
+            if (fullScreenWindow == null) {
+                repaintChangedAreaOfSpritePanel();
+            } else if (!(lastCreatedRainPaneSprite instanceof RainPaneSprite) ||
+                    ((RainPaneSprite) lastCreatedRainPaneSprite).getRenderMode() != RainRenderMode.RENDER_THREAD) {
+                fullScreenWindow.frameCompleted();
+            }
+        });
         rootSprite.addChildSprite(lastCreatedRainPaneSprite);
+        performanceHud.addPhase("Update", updateTimes);
+        performanceHud.addPhase("Paint ", paintTimes);
+        performanceHud.setFrameBudgetInNanoseconds(spriteUpdatePaceInMilliseconds * 1_000_000L);
         rainPaneCreator.addRainPaneCreatorListener(this);
         rainPaneController.addRainPaneControlListener(this);
+        spritePanel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                adjustSpriteUpdatePaceToWhatCanBeSeen();
+            }
+
+            @Override
+            public void componentShown(ComponentEvent e) {
+                adjustSpriteUpdatePaceToWhatCanBeSeen();
+            }
+
+            @Override
+            public void componentHidden(ComponentEvent e) {
+                adjustSpriteUpdatePaceToWhatCanBeSeen();
+            }
+        });
+        spritePanel.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                adjustSpriteUpdatePaceToWhatCanBeSeen();
+            }
+        });
+        frameContainingRainPanel.addWindowStateListener(e -> adjustSpriteUpdatePaceToWhatCanBeSeen());
 
         // Laying out components
         JPanel controlsPanel = new JPanel(new BorderLayout());
@@ -118,19 +342,210 @@ public class RainPanel extends JPanel implements RainPaneCreatorListener, RainPa
         splitPane.setOneTouchExpandable(true);
     }
 
+    /**
+     * Repaints only the area of the displayed RainPaneSprite that changed since the last update. Everything is
+     * repainted when something not tracked by the RainPaneSprite is displayed, like the performance HUD, debug graphics
+     * or the message shown before any RainPaneSprite is created. Nothing is repainted for a RainPaneSprite rendering on
+     * a render thread, it's repainted once the render thread completes a frame. While an earlier repaint is pending the
+     * frame is skipped, and its changed areas are left to be repainted with the next frame.
+     * <p>
+     * Changed areas are painted one at a time on the event dispatch thread rather than through repaint requests, as
+     * Swing joins every repaint request of a component into the one rectangle that bounds them all.
+     */
+    private void repaintChangedAreaOfSpritePanel() {
+        Sprite displayedSprite = lastCreatedRainPaneSprite;
+        if (displayedSprite instanceof RainPaneSprite &&
+                ((RainPaneSprite) displayedSprite).getRenderMode() == RainRenderMode.RENDER_THREAD) {
+            return;
+        }
+        if (repaintPending) {
+            performanceHud.paintSkipped();
+            return;
+        }
+        if (!(displayedSprite instanceof RainPaneSprite) || performanceHud.isVisible() || drawingDebugGraphics) {
+            repaintPending = true;
+            spritePanel.repaint();
+            return;
+        }
+        DirtyRegionState dirtyRegionState = ((RainPaneSprite) displayedSprite).takeDirtyRegion(changedAreas);
+        if (dirtyRegionState == DirtyRegionState.EVERYTHING) {
+            repaintPending = true;
+            spritePanel.repaint();
+        } else if (dirtyRegionState == DirtyRegionState.AREA) {
+            repaintPending = true;
+            SwingUtilities.invokeLater(paintChangedAreas);
+        }
+    }
+
+    private void paintChangedAreasOfSpritePanel() {
+        long paintStartInNanoseconds = System.nanoTime();
+        paintingChangedAreas = true;
+        try {
+            for (Rectangle changedArea : changedAreas) {
+                if (!changedArea.isEmpty()) {
+                    spritePanel.paintImmediately(changedArea);
+                }
+            }
+        } finally {
+            paintingChangedAreas = false;
+            repaintPending = false;
+        }
+        paintTimes.record(System.nanoTime() - paintStartInNanoseconds);
+    }
+
+    private void adaptQualityOfRainPaneSprite() {
+        Sprite displayedSprite = lastCreatedRainPaneSprite;
+        if (!adaptingQuality || !(displayedSprite instanceof RainPaneSprite)) {
+            return;
+        }
+        RainPaneSprite rainPaneSprite = (RainPaneSprite) displayedSprite;
+        QualityLevel currentLevel = rainPaneSprite.getQualityLevel();
+        QualityLevel chosenLevel = qualityGovernor
+                .chooseQualityLevel(currentLevel, updateTimes.getDuration(0) + paintTimes.getDuration(0));
+        if (chosenLevel != currentLevel) {
+            rainPaneSprite.setQualityLevel(chosenLevel);
+        }
+    }
+
+    /**
+     * Stops updating while the SpritePanel can't be seen, updates slowly while the rain is stopped so flickering
+     * characters still change, and otherwise updates at the pace of the display. The displayed RainPaneSprite's
+     * simulation step follows the pace, so each update still runs one step. Called on the event dispatch thread
+     * whenever any of those conditions may have changed.
+     */
+    private void adjustSpriteUpdatePaceToWhatCanBeSeen() {
+        int pace;
+        if (!addedToParent || multiDisplayRainWall != null ||
+                (fullScreenRainWindow == null && !isSpritePanelSeen())) {
+            pace = 0;
+        } else if (!rainFalling) {
+            pace = Math.max(spriteUpdatePaceInMilliseconds, spriteUpdatePaceWhileRainIsStoppedInMilliseconds);
+        } else {
+            pace = spriteUpdatePaceInMilliseconds;
+        }
+        if (pace == currentSpriteUpdatePaceInMilliseconds) {
+            return;
+        }
+        currentSpriteUpdatePaceInMilliseconds = pace;
+        spriteUpdater.stopUpdating();
+        if (pace > 0) {
+            Sprite displayedSprite = lastCreatedRainPaneSprite;
+            if (displayedSprite instanceof RainPaneSprite) {
+                ((RainPaneSprite) displayedSprite).setSimulationStepInMilliseconds(pace);
+            }
+            spriteUpdater.scheduleSpriteUpdate(pace);
+        }
+    }
+
+    /**
+     * @return True if the SpritePanel is on screen with some area in a window that isn't minimized. Being covered by
+     * other windows can't be detected.
+     */
+    private boolean isSpritePanelSeen() {
+        return spritePanel.isShowing() && spritePanel.getWidth() > 0 && spritePanel.getHeight() > 0 &&
+                (frameContainingRainPanel.getExtendedState() & Frame.ICONIFIED) == 0;
+    }
+
+    /**
+     * Sizes and prewarms the new RainPaneSprite on the scene building thread, while the displayed RainPaneSprite keeps
+     * animating, then leaves it to replace the displayed one at the start of the next update.
+     */
     @Override
     public void rainPaneSpriteCreated(RainPaneSprite sprite) {
+        int paceInMilliseconds = currentSpriteUpdatePaceInMilliseconds;
+        sprite.setSimulationStepInMilliseconds(paceInMilliseconds > 0 ? paceInMilliseconds :
+                spriteUpdatePaceInMilliseconds);
+        SceneCreatedEvent sceneCreatedEvent = new SceneCreatedEvent();
+        sceneCreatedEvent.begin();
+        // Resized directly rather than requested, as the new RainPaneSprite isn't being updated by anything yet
+        sprite.resize(rootSprite.getWidth(), rootSprite.getHeight());
+        sprite.prewarm();
+        sceneCreatedEvent.end();
+        if (sceneCreatedEvent.shouldCommit()) {
+            sceneCreatedEvent.width = sprite.getWidth();
+            sceneCreatedEvent.height = sprite.getHeight();
+            sceneCreatedEvent.rainLineSpriteCount = sprite.getStatistics().getRainLineSpriteCount();
+            sceneCreatedEvent.rainDropSpriteCount = sprite.getStatistics().getRainDropSpriteCount();
+            sceneCreatedEvent.commit();
+        }
+        builtRainPaneSpriteToDisplay.set(sprite);
+    }
+
+    /**
+     * Replaces the displayed sprite with the passed RainPaneSprite, on the SpriteUpdater's thread before anything in
+     * the frame is updated, so no frame mixes the two.
+     */
+    private void swapInRainPaneSprite(RainPaneSprite sprite) {
+        Sprite replacedSprite = lastCreatedRainPaneSprite;
+        rootSprite.removeChildSprite(replacedSprite);
+        if (replacedSprite instanceof RainPaneSprite) {
+            ((RainPaneSprite) replacedSprite).removeFrameRenderedListener(this);
+            ((RainPaneSprite) replacedSprite).stopRenderThread();
+        }
+        // The displayed area may have been resized since the RainPaneSprite was built
+        if (sprite.getWidth() != rootSprite.getWidth() || sprite.getHeight() != rootSprite.getHeight()) {
+            sprite.resize(rootSprite.getWidth(), rootSprite.getHeight());
+        }
+        sprite.addFrameRenderedListener(this);
+        lastCreatedRainPaneSprite = sprite;
+        rootSprite.addChildSprite(sprite);
+        qualityGovernor.reset();
+        // New RainPaneSprites start without debug graphics
+        drawingDebugGraphics = false;
         SwingUtilities.invokeLater(() -> {
-            rootSprite.removeChildSprite(lastCreatedRainPaneSprite);
-            lastCreatedRainPaneSprite = sprite;
-            lastCreatedRainPaneSprite.resize(rootSprite.getWidth(), rootSprite.getHeight());
-            rootSprite.addChildSprite(lastCreatedRainPaneSprite);
+            // The full-screen window shows the replaced RainPaneSprite, so it's closed to show the new one in the panel
+            FullScreenRainWindow fullScreenWindow = fullScreenRainWindow;
+            if (fullScreenWindow != null) {
+                fullScreenWindow.close();
+            }
             // Reset the controller's component's to default values as well, as their
             // old values corresponded to the latest values of the last RainPaneSprite
             rainPaneController.resetPanelComponentsToDefault();
+            // The speed is kept though, as a RainPaneSprite restored from a snapshot may fall at another speed
+            rainPaneController.setRainSpeed(sprite.getRainLineYVelocityInUnitsPerMillisecond());
+            spritePanel.repaint();
         });
     }
 
+    @Override
+    public void rainPaneSpritesCreatedForEachDisplay(Map<GraphicsDevice, RainPaneSprite> spritesPerDisplay) {
+        SwingUtilities.invokeLater(() -> {
+            if (multiDisplayRainWall != null) {
+                multiDisplayRainWall.close();
+            }
+            if (fullScreenRainWindow != null) {
+                fullScreenRainWindow.close();
+            }
+            multiDisplayRainWall = new MultiDisplayRainWall(spritesPerDisplay, adaptingQuality, () -> {
+                multiDisplayRainWall = null;
+                adjustSpriteUpdatePaceToWhatCanBeSeen();
+            });
+            // The wall's rain falls at the speed the controller is set to, which is the displayed RainPaneSprite's
+            Sprite displayedSprite = lastCreatedRainPaneSprite;
+            if (displayedSprite instanceof RainPaneSprite) {
+                multiDisplayRainWall.setRainDropYVelocityInUnitsPerMillisecond(
+                        ((RainPaneSprite) displayedSprite).getRainLineYVelocityInUnitsPerMillisecond());
+            }
+            multiDisplayRainWall.open();
+            adjustSpriteUpdatePaceToWhatCanBeSeen();
+        });
+    }
+
+    @Override
+    public void frameRendered() {
+        FullScreenRainWindow fullScreenWindow = fullScreenRainWindow;
+        if (fullScreenWindow != null) {
+            fullScreenWindow.frameCompleted();
+            return;
+        }
+        if (repaintPending) {
+            performanceHud.paintSkipped();
+            return;
+        }
+        repaintPending = true;
+        spritePanel.repaint();
+    }
+
     @Override
     public void paint(Graphics g) {
         super.paint(g);
@@ -154,7 +569,13 @@ public class RainPanel extends JPanel implements RainPaneCreatorListener, RainPa
 
     @Override
     public void toggleDrawingOFDebugGraphics() {
-        lastCreatedRainPaneSprite.toggleDrawingDebugGraphicsIncludingChildSprites();
+        drawingDebugGraphics = !drawingDebugGraphics;
+        Sprite displayedSprite = lastCreatedRainPaneSprite;
+        if (displayedSprite instanceof RainPaneSprite) {
+            ((RainPaneSprite) displayedSprite).requestToggleOfDebugGraphics();
+        } else {
+            displayedSprite.toggleDrawingDebugGraphicsIncludingChildSprites();
+        }
     }
 
     @Override
@@ -162,11 +583,57 @@ public class RainPanel extends JPanel implements RainPaneCreatorListener, RainPa
         if (lastCreatedRainPaneSprite instanceof RainPaneSprite) {
             ((RainPaneSprite) lastCreatedRainPaneSprite).changeRainLineYVelocities(yVelocityUnitsInMilliseconds);
         }
+        if (multiDisplayRainWall != null) {
+            multiDisplayRainWall.setRainDropYVelocityInUnitsPerMillisecond(yVelocityUnitsInMilliseconds);
+        }
+        rainFalling = yVelocityUnitsInMilliseconds != 0;
+        adjustSpriteUpdatePaceToWhatCanBeSeen();
+    }
+
+    @Override
+    public void setRenderMode(RainRenderMode renderMode) {
+        if (lastCreatedRainPaneSprite instanceof RainPaneSprite) {
+            ((RainPaneSprite) lastCreatedRainPaneSprite).setRenderMode(renderMode);
+        }
+    }
+
+    @Override
+    public void setAdaptingQualityToFrameRate(boolean adaptingQuality) {
+        this.adaptingQuality = adaptingQuality;
+        qualityGovernor.reset();
+        if (!adaptingQuality && lastCreatedRainPaneSprite instanceof RainPaneSprite) {
+            ((RainPaneSprite) lastCreatedRainPaneSprite).setQualityLevel(QualityLevel.FULL);
+        }
+        if (multiDisplayRainWall != null) {
+            multiDisplayRainWall.setAdaptingQualityToFrameRate(adaptingQuality);
+        }
+    }
+
+    @Override
+    public void saveSceneSnapshot(File snapshotFile) {
+        Sprite displayedSprite = lastCreatedRainPaneSprite;
+        if (!(displayedSprite instanceof RainPaneSprite)) {
+            return;
+        }
+        ((RainPaneSprite) displayedSprite).requestSnapshot().thenAcceptAsync(snapshot -> {
+            try {
+                Files.write(snapshotFile.toPath(), snapshot);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).exceptionally(e -> {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "The scene snapshot could not be saved: " + (e.getCause() == null ? e : e.getCause()).getMessage(),
+                    "Snapshot not saved",
+                    JOptionPane.ERROR_MESSAGE));
+            return null;
+        });
     }
 
     @Override
-    public void toggleDrawingOfFPSUPS() {
+    public void toggleDrawingOfPerformanceHud() {
         spritePanel.toggleSetDisplayingTimeValues();
+        performanceHud.toggleVisible();
     }
 
     @Override
@@ -175,6 +642,24 @@ public class RainPanel extends JPanel implements RainPaneCreatorListener, RainPa
         repositionSplitPaneToFarRight();
     }
 
+    @Override
+    public void setFullScreenExclusive() {
+        Sprite displayedSprite = lastCreatedRainPaneSprite;
+        if (fullScreenRainWindow != null || !(displayedSprite instanceof RainPaneSprite)) {
+            return;
+        }
+        RainPaneSprite rainPaneSprite = (RainPaneSprite) displayedSprite;
+        fullScreenRainWindow = new FullScreenRainWindow(frameContainingRainPanel.getGraphicsConfiguration().getDevice(),
+                rainPaneSprite, paintTimes, () -> {
+            fullScreenRainWindow = null;
+            rainPaneSprite.requestResize(rootSprite.getWidth(), rootSprite.getHeight());
+            adjustSpriteUpdatePaceToWhatCanBeSeen();
+            spritePanel.repaint();
+        });
+        fullScreenRainWindow.open();
+        adjustSpriteUpdatePaceToWhatCanBeSeen();
+    }
+
     @Override
     public void restoreWindowSize() {
         frameContainingRainPanel.setSize(defaultWindowWidth, defaultWindowHeight);
@@ -185,14 +670,17 @@ public class RainPanel extends JPanel implements RainPaneCreatorListener, RainPa
     @Override
     public void componentAdded(ContainerEvent e) {
         if (e.getChild() == this) {
-            spriteUpdater.scheduleSpriteUpdate(spriteUpdatePaceInMilliseconds);
+            addedToParent = true;
+            currentSpriteUpdatePaceInMilliseconds = 0;
+            adjustSpriteUpdatePaceToWhatCanBeSeen();
         }
     }
 
     @Override
     public void componentRemoved(ContainerEvent e) {
         if (e.getChild() == this) {
-            spriteUpdater.stopUpdating();
+            addedToParent = false;
+            adjustSpriteUpdatePaceToWhatCanBeSeen();
         }
     }
 }
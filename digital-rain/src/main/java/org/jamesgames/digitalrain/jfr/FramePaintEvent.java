@@ -0,0 +1,28 @@
+package org.jamesgames.digitalrain.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * FramePaintEvent is a Java Flight Recorder event that covers one paint of the sprite panel. Only paints slower than
+ * the threshold are recorded by default.
+ *
+ * @author James Murphy
+ */
+@Name("org.jamesgames.digitalrain.FramePaint")
+@Label("Frame Paint")
+@Category({"Digital Rain", "Frame"})
+@Description("The sprite panel was painted for one frame")
+@StackTrace(false)
+@Threshold("10 ms")
+public class FramePaintEvent extends jdk.jfr.Event {
+    @Label("Clip Width")
+    public int clipWidth;
+
+    @Label("Clip Height")
+    public int clipHeight;
+}
@@ -0,0 +1,27 @@
+package org.jamesgames.digitalrain.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * FrameUpdateEvent is a Java Flight Recorder event that covers one update of the sprite tree. Only updates slower than
+ * the threshold are recorded by default.
+ *
+ * @author James Murphy
+ */
+@Name("org.jamesgames.digitalrain.FrameUpdate")
+@Label("Frame Update")
+@Category({"Digital Rain", "Frame"})
+@Description("The sprite tree was updated for one frame")
+@StackTrace(false)
+@Threshold("10 ms")
+public class FrameUpdateEvent extends jdk.jfr.Event {
+    @Label("Elapsed Simulation Time")
+    @Timespan(Timespan.MILLISECONDS)
+    public long elapsedTimeInMilliseconds;
+}
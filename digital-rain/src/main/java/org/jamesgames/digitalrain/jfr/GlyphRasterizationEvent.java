@@ -0,0 +1,43 @@
+package org.jamesgames.digitalrain.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * GlyphRasterizationEvent is a Java Flight Recorder event that covers the rendering of every rain character image for
+ * every rain color when a scene's character image store is built.
+ *
+ * @author James Murphy
+ */
+@Name("org.jamesgames.digitalrain.GlyphRasterization")
+@Label("Glyph Rasterization")
+@Category({"Digital Rain", "Scene"})
+@Description("Rain character images were rasterized for a new scene")
+@StackTrace(false)
+public class GlyphRasterizationEvent extends jdk.jfr.Event {
+    @Label("Font")
+    public String fontName;
+
+    @Label("Font Size")
+    public int fontSize;
+
+    @Label("Colors")
+    public int colorCount;
+
+    @Label("Glyphs")
+    public int glyphCount;
+
+    @Label("Glyph Width")
+    public int glyphWidth;
+
+    @Label("Glyph Height")
+    public int glyphHeight;
+
+    @Label("Approximate Image Memory")
+    @DataAmount
+    public long approximateImageBytes;
+}
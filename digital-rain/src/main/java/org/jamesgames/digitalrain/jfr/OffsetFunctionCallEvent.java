@@ -0,0 +1,31 @@
+package org.jamesgames.digitalrain.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * OffsetFunctionCallEvent is a Java Flight Recorder event that covers one call into a Jython offset function. Only
+ * calls slower than the threshold are recorded by default.
+ *
+ * @author James Murphy
+ */
+@Name("org.jamesgames.digitalrain.OffsetFunctionCall")
+@Label("Offset Function Call")
+@Category({"Digital Rain", "Jython"})
+@Description("A Jython animation offset function was called for a y coordinate")
+@StackTrace(false)
+@Threshold("1 ms")
+public class OffsetFunctionCallEvent extends jdk.jfr.Event {
+    @Label("Function Name")
+    public String functionName;
+
+    @Label("Y Coordinate")
+    public int yCoordinate;
+
+    @Label("Failed")
+    public boolean failed;
+}
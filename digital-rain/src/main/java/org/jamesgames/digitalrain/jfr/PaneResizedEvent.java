@@ -0,0 +1,43 @@
+package org.jamesgames.digitalrain.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * PaneResizedEvent is a Java Flight Recorder event that covers a {@link org.jamesgames.digitalrain.rain.RainPaneSprite}
+ * adjusting to a new size, including how many RainLineSprites that adjustment added or removed, and how many requested
+ * sizes were coalesced into it.
+ *
+ * @author James Murphy
+ */
+@Name("org.jamesgames.digitalrain.PaneResized")
+@Label("Rain Pane Resized")
+@Category({"Digital Rain", "Scene"})
+@Description("A rain pane was resized and added or removed rain lines to fit")
+@StackTrace(false)
+public class PaneResizedEvent extends jdk.jfr.Event {
+    @Label("Old Width")
+    public int oldWidth;
+
+    @Label("Old Height")
+    public int oldHeight;
+
+    @Label("New Width")
+    public int newWidth;
+
+    @Label("New Height")
+    public int newHeight;
+
+    @Label("Rain Lines Added")
+    public int rainLinesAdded;
+
+    @Label("Rain Lines Removed")
+    public int rainLinesRemoved;
+
+    @Label("Resize Requests")
+    @Description("Sizes requested since the previous resize, of which only the latest was applied")
+    public int resizeRequests;
+}
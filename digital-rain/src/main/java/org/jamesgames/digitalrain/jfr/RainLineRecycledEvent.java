@@ -0,0 +1,32 @@
+package org.jamesgames.digitalrain.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * RainLineRecycledEvent is a Java Flight Recorder event that covers a RainLineSprite falling off the bottom of its pane
+ * and being reset to a new length, color and position. Lines recycle constantly, so the event is disabled by default
+ * and has to be switched on in the recording settings.
+ *
+ * @author James Murphy
+ */
+@Name("org.jamesgames.digitalrain.RainLineRecycled")
+@Label("Rain Line Recycled")
+@Category({"Digital Rain", "Simulation"})
+@Description("A rain line fell off the bottom of the pane and was reset above it")
+@StackTrace(false)
+@Enabled(false)
+public class RainLineRecycledEvent extends jdk.jfr.Event {
+    @Label("X Coordinate")
+    public int xCoordinate;
+
+    @Label("Previous Rain Drop Count")
+    public int previousRainDropCount;
+
+    @Label("New Rain Drop Count")
+    public int newRainDropCount;
+}
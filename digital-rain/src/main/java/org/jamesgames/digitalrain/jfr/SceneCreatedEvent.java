@@ -0,0 +1,34 @@
+package org.jamesgames.digitalrain.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * SceneCreatedEvent is a Java Flight Recorder event that covers a new {@link
+ * org.jamesgames.digitalrain.rain.RainPaneSprite} being sized and filled with its initial RainLineSprites and
+ * RainDropSprites, and prewarmed, on the thread building scenes. Glyph rasterization for the scene is recorded
+ * separately by a {@link GlyphRasterizationEvent}.
+ *
+ * @author James Murphy
+ */
+@Name("org.jamesgames.digitalrain.SceneCreated")
+@Label("Scene Created")
+@Category({"Digital Rain", "Scene"})
+@Description("A new digital rain scene was sized and filled with its initial sprites")
+@StackTrace(false)
+public class SceneCreatedEvent extends jdk.jfr.Event {
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Rain Line Sprites")
+    public int rainLineSpriteCount;
+
+    @Label("Rain Drop Sprites")
+    public int rainDropSpriteCount;
+}
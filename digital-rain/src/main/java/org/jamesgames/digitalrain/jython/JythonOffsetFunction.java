@@ -1,5 +1,6 @@
 package org.jamesgames.digitalrain.jython;
 
+import org.jamesgames.digitalrain.jfr.OffsetFunctionCallEvent;
 import org.jamesgames.jamesjavautils.general.IntPair;
 import org.jamesgames.jamesjavautils.general.ObserverSet;
 import org.python.core.*;
@@ -16,6 +17,11 @@ public class JythonOffsetFunction {
 
     public static final String functionSignature = "def computeOffsets(y):";
 
+    /**
+     * Offsets handed out when the Jython function could not be called or returned something unusable.
+     */
+    private static final IntPair offsetsUsedOnError = new IntPair(0, 0);
+
     private String functionSourceCode;
     private PyFunction computeOffsetsPythonFunction;
 
@@ -50,44 +56,62 @@ public class JythonOffsetFunction {
 
     public Function<Integer, IntPair> createFunction() {
         return yCoordinate -> {
-            try {
-                // Call the function made
-                PyObject potentialReturnTuple = computeOffsetsPythonFunction
-                        .__call__(new PyInteger(yCoordinate));
-                if (!(potentialReturnTuple instanceof PyTuple)) {
-                    throw new IllegalStateException("Expected function to return a tuples, " +
-                            "but it did not.");
-                }
-                PyTuple returnTuple = (PyTuple) potentialReturnTuple;
-                if (returnTuple.size() != 2) {
-                    throw new IllegalStateException("Expected function to return a tuple of size 2, " +
-                            "but it did not.");
-                }
-                Object potentialXOffset = returnTuple.get(0);
-                Object potentialYOffset = returnTuple.get(1);
-                if (!(potentialXOffset instanceof Number)) {
-                    throw new IllegalStateException(
-                            "Expected function's first tuple return value (x offset) to be a number, " +
-                                    "but it was not.");
-                }
-                if (!(potentialYOffset instanceof Number)) {
-                    throw new IllegalStateException(
-                            "Expected function's second tuple return value (y offset) to be a number, " +
-                                    "but it was not.");
-                }
-                // Get the values made
-                return new IntPair(((Number) returnTuple.get(0)).intValue(),
-                        ((Number) returnTuple.get(1)).intValue());
-            } catch (PyException e) {
-                listeners.forEach(listener -> listener.offsetFunctionError(e.toString()));
-                return new IntPair(0, 0);
-            } catch (IllegalStateException e) {
-                listeners.forEach(listener -> listener.offsetFunctionError(e.toString()));
-                return new IntPair(0, 0);
+            OffsetFunctionCallEvent callEvent = new OffsetFunctionCallEvent();
+            callEvent.begin();
+            IntPair offsets = computeOffsets(yCoordinate);
+            callEvent.end();
+            if (callEvent.shouldCommit()) {
+                callEvent.functionName = functionName;
+                callEvent.yCoordinate = yCoordinate;
+                callEvent.failed = offsets == offsetsUsedOnError;
+                callEvent.commit();
             }
+            return offsets;
         };
     }
 
+    /**
+     * Synchronized as the Python interpreter must not be called from several threads at once, and offsets can be
+     * computed while updating, drawing and rendering.
+     */
+    private synchronized IntPair computeOffsets(int yCoordinate) {
+        try {
+            // Call the function made
+            PyObject potentialReturnTuple = computeOffsetsPythonFunction
+                    .__call__(new PyInteger(yCoordinate));
+            if (!(potentialReturnTuple instanceof PyTuple)) {
+                throw new IllegalStateException("Expected function to return a tuples, " +
+                        "but it did not.");
+            }
+            PyTuple returnTuple = (PyTuple) potentialReturnTuple;
+            if (returnTuple.size() != 2) {
+                throw new IllegalStateException("Expected function to return a tuple of size 2, " +
+                        "but it did not.");
+            }
+            Object potentialXOffset = returnTuple.get(0);
+            Object potentialYOffset = returnTuple.get(1);
+            if (!(potentialXOffset instanceof Number)) {
+                throw new IllegalStateException(
+                        "Expected function's first tuple return value (x offset) to be a number, " +
+                                "but it was not.");
+            }
+            if (!(potentialYOffset instanceof Number)) {
+                throw new IllegalStateException(
+                        "Expected function's second tuple return value (y offset) to be a number, " +
+                                "but it was not.");
+            }
+            // Get the values made
+            return new IntPair(((Number) returnTuple.get(0)).intValue(),
+                    ((Number) returnTuple.get(1)).intValue());
+        } catch (PyException e) {
+            listeners.forEach(listener -> listener.offsetFunctionError(e.toString()));
+            return offsetsUsedOnError;
+        } catch (IllegalStateException e) {
+            listeners.forEach(listener -> listener.offsetFunctionError(e.toString()));
+            return offsetsUsedOnError;
+        }
+    }
+
     public String getFunctionName() {
         return functionName;
     }
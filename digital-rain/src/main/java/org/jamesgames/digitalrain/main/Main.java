@@ -1,13 +1,41 @@
 package org.jamesgames.digitalrain.main;
 
 import org.jamesgames.digitalrain.gui.RainPanel;
+import org.jamesgames.digitalrain.rain.AnsiTerminalRenderer;
+import org.jamesgames.digitalrain.rain.CharacterGrid;
+import org.jamesgames.digitalrain.rain.FrameSequenceExporter;
+import org.jamesgames.digitalrain.rain.OffsetAnimationMap;
+import org.jamesgames.digitalrain.rain.RainPaneSprite;
+import org.jamesgames.digitalrain.rain.SharedMemoryFrameRing;
+import org.jamesgames.jamesjavautils.general.IntPair;
 import org.jamesgames.jamesjavautils.gui.swing.JFrameSizedAfterInsets;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
- * Contains the main method that displays a JFrame with digital rain animation and related controls.
+ * Contains the main method that displays a JFrame with digital rain animation and related controls. When passed
+ * --export, it instead writes frames of digital rain to a directory without displaying anything, and when passed
+ * --terminal, it draws digital rain as text in the terminal it was started from until interrupted. When passed
+ * --shared-frames, it publishes frames through a memory-mapped file for another process to read until interrupted, see
+ * {@link SharedMemoryFrameRing} for the layout of the file:
+ * <p>
+ * --export &lt;directory&gt; [--frames count] [--width pixels] [--height pixels] [--fps rate] [--encoders threads]
+ * [--raw]
+ * <p>
+ * --terminal [--columns count] [--rows count] [--fps rate] [--basic-colors | --truecolor]
+ * <p>
+ * --shared-frames &lt;file&gt; [--width pixels] [--height pixels] [--fps rate] [--slots count]
  *
  * @author James Murphy
  */
@@ -15,7 +43,35 @@ public class Main {
 
     private static final String version = "1.0";
 
+    private static final String exportOption = "--export";
+    private static final int defaultExportFrameCount = 600;
+    private static final int defaultExportWidth = 1280;
+    private static final int defaultExportHeight = 720;
+    private static final int defaultExportFramesPerSecond = 60;
+    private static final String terminalOption = "--terminal";
+    private static final int defaultTerminalColumns = 80;
+    private static final int defaultTerminalRows = 24;
+    private static final int defaultTerminalFramesPerSecond = 20;
+    private static final String sharedFramesOption = "--shared-frames";
+    private static final int defaultSharedFrameSlotCount = 3;
+    private static final int headlessFontSize = 16;
+    private static final Set<Color> headlessRainColors = new HashSet<>(Arrays.asList(
+            new Color(0, 255, 70), new Color(0, 190, 40), new Color(0, 130, 0)));
+
     public static void main(String[] args) {
+        exitIfFlightRecorderIsMissing();
+        if (args.length > 0 && args[0].equals(exportOption)) {
+            exportFrames(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals(terminalOption)) {
+            drawInTerminal(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals(sharedFramesOption)) {
+            publishSharedFrames(args);
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             Color base = new Color(0, 130, 0);
             UIManager.put("nimbusBase", base); // "nimbusBlueGrey" and "control" form two other overall colors in Nimbus
@@ -39,4 +95,262 @@ public class Main {
         });
 
     }
+
+    /**
+     * Flight Recorder events are created while the rain is updated and drawn, so the runtime must include Flight
+     * Recorder even when nothing is recorded. Checked up front, as otherwise the first event created fails with a
+     * NoClassDefFoundError, part way into building the first scene.
+     */
+    private static void exitIfFlightRecorderIsMissing() {
+        try {
+            Class.forName("jdk.jfr.Event", false, Main.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            System.err.println("This Java runtime doesn't include Java Flight Recorder, Java 1.8 update 262 or later " +
+                    "is needed");
+            System.exit(1);
+        }
+    }
+
+    private static void exportFrames(String[] args) {
+        if (args.length < 2) {
+            exitWithUsage("Missing the directory to export to");
+        }
+        int frameCount = defaultExportFrameCount;
+        int width = defaultExportWidth;
+        int height = defaultExportHeight;
+        int framesPerSecond = defaultExportFramesPerSecond;
+        int encoderThreadCount = Runtime.getRuntime().availableProcessors();
+        FrameSequenceExporter.FrameFormat frameFormat = FrameSequenceExporter.FrameFormat.PNG;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--raw")) {
+                frameFormat = FrameSequenceExporter.FrameFormat.RAW_RGB;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                exitWithUsage("Missing a value for " + args[i]);
+            }
+            int value = parsePositiveInteger(args[i], args[++i]);
+            switch (args[i - 1]) {
+                case "--frames":
+                    frameCount = value;
+                    break;
+                case "--width":
+                    width = value;
+                    break;
+                case "--height":
+                    height = value;
+                    break;
+                case "--fps":
+                    framesPerSecond = value;
+                    break;
+                case "--encoders":
+                    encoderThreadCount = value;
+                    break;
+                default:
+                    exitWithUsage("Unknown option " + args[i - 1]);
+            }
+        }
+
+        RainPaneSprite rainPaneSprite = createHeadlessRainPaneSprite();
+        rainPaneSprite.resize(width, height);
+        // Two frames per encoder keeps every encoder busy while the next frames are rendered
+        FrameSequenceExporter exporter = new FrameSequenceExporter(rainPaneSprite, Paths.get(args[1]), frameFormat,
+                encoderThreadCount, encoderThreadCount * 2);
+        long frameLengthInMilliseconds = Math.max(1, Math.round(1000.0 / framesPerSecond));
+        long exportStartInNanoseconds = System.nanoTime();
+        try {
+            exporter.export(frameCount, frameLengthInMilliseconds);
+        } catch (IOException e) {
+            System.err.println("Could not export frames: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        double exportSeconds = (System.nanoTime() - exportStartInNanoseconds) / 1_000_000_000.0;
+        System.out.printf("Exported %d %dx%d frames in %.1f seconds (%.1f frames per second, %.1fx real time)%n",
+                frameCount, width, height, exportSeconds, frameCount / exportSeconds,
+                frameCount * frameLengthInMilliseconds / 1000.0 / exportSeconds);
+    }
+
+    private static void drawInTerminal(String[] args) {
+        int columns = defaultTerminalColumns;
+        int rows = defaultTerminalRows;
+        int framesPerSecond = defaultTerminalFramesPerSecond;
+        AnsiTerminalRenderer.ColorMode colorMode = AnsiTerminalRenderer.ColorMode.INDEXED_256;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--basic-colors")) {
+                colorMode = AnsiTerminalRenderer.ColorMode.BASIC_16;
+                continue;
+            }
+            if (args[i].equals("--truecolor")) {
+                colorMode = AnsiTerminalRenderer.ColorMode.TRUE_COLOR;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                exitWithUsage("Missing a value for " + args[i]);
+            }
+            int value = parsePositiveInteger(args[i], args[++i]);
+            switch (args[i - 1]) {
+                case "--columns":
+                    columns = value;
+                    break;
+                case "--rows":
+                    rows = value;
+                    break;
+                case "--fps":
+                    framesPerSecond = value;
+                    break;
+                default:
+                    exitWithUsage("Unknown option " + args[i - 1]);
+            }
+        }
+
+        RainPaneSprite rainPaneSprite = createHeadlessRainPaneSprite();
+        rainPaneSprite.requestResizeToCharacterGrid(columns, rows);
+        AnsiTerminalRenderer renderer = new AnsiTerminalRenderer(columns, rows, colorMode);
+        PrintStream terminal;
+        try {
+            // The rain characters are only drawn correctly in a UTF-8 terminal, whatever the platform's default charset
+            terminal = new PrintStream(new FileOutputStream(FileDescriptor.out), false, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("Every Java platform supports UTF-8", e);
+        }
+        Thread drawingThread = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            drawingThread.interrupt();
+            try {
+                drawingThread.join(1000);
+            } catch (InterruptedException e) {
+                // Restore the terminal regardless
+            }
+            StringBuilder restoringText = new StringBuilder();
+            renderer.restoreTerminal(restoringText);
+            terminal.print(restoringText);
+            terminal.flush();
+        }));
+
+        StringBuilder frameText = new StringBuilder();
+        drawFramesUntilInterrupted(rainPaneSprite, framesPerSecond, grid -> {
+            frameText.setLength(0);
+            renderer.render(grid, frameText);
+            // One write per frame, so a slow terminal receives each frame in one piece
+            terminal.print(frameText);
+            terminal.flush();
+        });
+    }
+
+    private static void publishSharedFrames(String[] args) {
+        if (args.length < 2) {
+            exitWithUsage("Missing the file to share frames through");
+        }
+        int width = defaultExportWidth;
+        int height = defaultExportHeight;
+        int framesPerSecond = defaultExportFramesPerSecond;
+        int slotCount = defaultSharedFrameSlotCount;
+        for (int i = 2; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                exitWithUsage("Missing a value for " + args[i]);
+            }
+            int value = parsePositiveInteger(args[i], args[++i]);
+            switch (args[i - 1]) {
+                case "--width":
+                    width = value;
+                    break;
+                case "--height":
+                    height = value;
+                    break;
+                case "--fps":
+                    framesPerSecond = value;
+                    break;
+                case "--slots":
+                    slotCount = value;
+                    break;
+                default:
+                    exitWithUsage("Unknown option " + args[i - 1]);
+            }
+        }
+
+        RainPaneSprite rainPaneSprite = createHeadlessRainPaneSprite();
+        rainPaneSprite.requestResize(width, height);
+        try (SharedMemoryFrameRing frameRing = new SharedMemoryFrameRing(Paths.get(args[1]), rainPaneSprite, width,
+                height, slotCount)) {
+            Thread drawingThread = Thread.currentThread();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                drawingThread.interrupt();
+                try {
+                    drawingThread.join(1000);
+                } catch (InterruptedException e) {
+                    // Close the ring regardless
+                }
+                // Waits for a frame still being published, the drawing thread has usually closed it already though
+                try {
+                    frameRing.close();
+                } catch (IOException e) {
+                    System.err.println("Could not close the shared frames: " + e.getMessage());
+                }
+            }));
+            drawFramesUntilInterrupted(rainPaneSprite, framesPerSecond, frameRing::publishFrame);
+        } catch (IOException e) {
+            System.err.println("Could not share frames: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Updates the RainPaneSprite at the passed frame rate on the calling thread, handing the character grid of each
+     * frame to the passed action, until the thread is interrupted.
+     */
+    private static void drawFramesUntilInterrupted(RainPaneSprite rainPaneSprite, int framesPerSecond,
+            Consumer<CharacterGrid> drawFrame) {
+        long frameLengthInMilliseconds = Math.max(1, Math.round(1000.0 / framesPerSecond));
+        rainPaneSprite.setSimulationStepInMilliseconds(frameLengthInMilliseconds);
+        CharacterGrid grid = new CharacterGrid();
+        long lastFrameTimeInNanoseconds = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            long frameTimeInNanoseconds = System.nanoTime();
+            rainPaneSprite.update((frameTimeInNanoseconds - lastFrameTimeInNanoseconds) / 1_000_000);
+            lastFrameTimeInNanoseconds = frameTimeInNanoseconds;
+            rainPaneSprite.compileCharacterGrid(grid);
+            drawFrame.accept(grid);
+            long sleepInMilliseconds =
+                    frameLengthInMilliseconds - (System.nanoTime() - frameTimeInNanoseconds) / 1_000_000;
+            if (sleepInMilliseconds > 0) {
+                try {
+                    Thread.sleep(sleepInMilliseconds);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static RainPaneSprite createHeadlessRainPaneSprite() {
+        return new RainPaneSprite(headlessRainColors, Font.PLAIN, headlessFontSize,
+                new OffsetAnimationMap(y -> new IntPair(0, 0)));
+    }
+
+    private static int parsePositiveInteger(String option, String value) {
+        try {
+            int parsedValue = Integer.parseInt(value);
+            if (parsedValue > 0) {
+                return parsedValue;
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to the usage below
+        }
+        exitWithUsage(option + " must be a positive integer (" + value + " was supplied)");
+        return 0;
+    }
+
+    private static void exitWithUsage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: " + exportOption + " <directory> [--frames count] [--width pixels] " +
+                "[--height pixels] [--fps rate] [--encoders threads] [--raw]");
+        System.err.println("   or: " + terminalOption + " [--columns count] [--rows count] [--fps rate] " +
+                "[--basic-colors | --truecolor]");
+        System.err.println("   or: " + sharedFramesOption + " <file> [--width pixels] [--height pixels] [--fps rate] " +
+                "[--slots count]");
+        System.exit(1);
+    }
 }
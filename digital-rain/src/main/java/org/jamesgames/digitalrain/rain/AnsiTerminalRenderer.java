@@ -0,0 +1,289 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.awt.*;
+
+/**
+ * AnsiTerminalRenderer renders {@link CharacterGrid}s as text for a terminal that understands ANSI escape sequences,
+ * one terminal cell per grid cell. Only the cells that changed since the previously rendered grid are written, so a
+ * frame costs bytes in proportion to how much of the rain moved rather than to the size of the terminal. Changed cells
+ * are visited row by row, and the cursor is only moved when the next changed cell isn't the one the cursor already
+ * sits on after writing the last, so a run of changed cells on a row costs one cursor move. Short gaps of unchanged
+ * cells are written over again when that takes fewer bytes than moving the cursor past them. Likewise the color is
+ * only changed when the next written cell has a different color than the last, so a run of cells of one color costs
+ * one color change. Cells beyond the terminal's size are left out.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class AnsiTerminalRenderer {
+
+    /**
+     * How colors are described to the terminal.
+     */
+    public enum ColorMode {
+        /**
+         * The nearest of the 16 basic colors every color terminal supports, which takes the fewest bytes per color
+         * change, suited to slow connections.
+         */
+        BASIC_16,
+        /**
+         * The nearest color of the 256 color palette most terminals support, which takes fewer bytes per color change.
+         */
+        INDEXED_256,
+        /**
+         * The exact 24-bit color, for terminals that support it.
+         */
+        TRUE_COLOR
+    }
+
+    private static final String controlSequenceIntroducer = "\u001B[";
+    /**
+     * Levels of red, green and blue of the 6x6x6 color cube that makes up indices 16 to 231 of the 256 color palette.
+     */
+    private static final int[] colorCubeLevels = {0, 95, 135, 175, 215, 255};
+    private static final int firstColorCubeIndex = 16;
+    /**
+     * Red, green and blue of the 16 basic colors (as xterm shows them by default), followed by the parameter that
+     * selects each as the foreground color.
+     */
+    private static final int[][] basicColors = {
+            {0, 0, 0, 30}, {205, 0, 0, 31}, {0, 205, 0, 32}, {205, 205, 0, 33}, {0, 0, 238, 34}, {205, 0, 205, 35},
+            {0, 205, 205, 36}, {229, 229, 229, 37}, {127, 127, 127, 90}, {255, 0, 0, 91}, {0, 255, 0, 92},
+            {255, 255, 0, 93}, {92, 92, 255, 94}, {255, 0, 255, 95}, {0, 255, 255, 96}, {255, 255, 255, 97}};
+    /**
+     * Cursor row or column not known, like before anything was written.
+     */
+    private static final int unknown = -1;
+
+    private final int terminalColumns;
+    private final int terminalRows;
+    private final ColorMode colorMode;
+    private final CellWriter cellWriter = new CellWriter();
+
+    private final CharacterGrid previousGrid = new CharacterGrid();
+    private boolean screenNeedsClearing = true;
+
+    /**
+     * The select graphic rendition sequence that sets each palette index's color, and the colors they were made for.
+     */
+    private String[] colorSequences = new String[0];
+    private Color[] colorsOfColorSequences = new Color[0];
+
+    /**
+     * @param terminalColumns
+     *         Number of columns of the terminal, grid columns past this are not rendered
+     * @param terminalRows
+     *         Number of rows of the terminal, grid rows past this are not rendered
+     */
+    public AnsiTerminalRenderer(int terminalColumns, int terminalRows, ColorMode colorMode) {
+        this.terminalColumns = terminalColumns;
+        this.terminalRows = terminalRows;
+        this.colorMode = colorMode;
+    }
+
+    /**
+     * Appends the text that turns the previously rendered grid on the terminal into the passed grid. The first grid
+     * rendered, and any grid of different dimensions than the previous one, starts by clearing the screen and hiding
+     * the cursor.
+     *
+     * @return Number of characters appended
+     */
+    public int render(CharacterGrid grid, StringBuilder out) {
+        int lengthBefore = out.length();
+        prepareColorSequences(grid);
+        cellWriter.start(grid, out);
+        if (screenNeedsClearing || !grid.hasSameDimensions(previousGrid)) {
+            out.append(controlSequenceIntroducer).append("0m");
+            out.append(controlSequenceIntroducer).append("2J");
+            out.append(controlSequenceIntroducer).append("?25l");
+            screenNeedsClearing = false;
+            // Every cell is reported as changed against a grid of other dimensions, but cleared cells are already empty
+            cellWriter.skippingEmptyCells = true;
+        }
+        grid.diff(previousGrid, cellWriter);
+        previousGrid.copyFrom(grid);
+        return out.length() - lengthBefore;
+    }
+
+    /**
+     * Appends the text that leaves the terminal usable for other output: colors reset, the cursor shown again and
+     * placed below the rendered rows. The next grid rendered starts with a cleared screen.
+     */
+    public void restoreTerminal(StringBuilder out) {
+        out.append(controlSequenceIntroducer).append("0m");
+        appendCursorPosition(Math.min(previousGrid.getRows(), terminalRows), 0, out);
+        out.append(controlSequenceIntroducer).append("?25h");
+        out.append(System.lineSeparator());
+        screenNeedsClearing = true;
+    }
+
+    private void prepareColorSequences(CharacterGrid grid) {
+        if (colorSequences.length != grid.getPaletteSize()) {
+            colorSequences = new String[grid.getPaletteSize()];
+            colorsOfColorSequences = new Color[grid.getPaletteSize()];
+        }
+        for (int i = 0; i < colorSequences.length; i++) {
+            Color color = grid.getColor((byte) i);
+            if (!color.equals(colorsOfColorSequences[i])) {
+                colorSequences[i] = createColorSequence(color);
+                colorsOfColorSequences[i] = color;
+            }
+        }
+    }
+
+    private String createColorSequence(Color color) {
+        if (colorMode == ColorMode.BASIC_16) {
+            int[] nearestBasicColor = basicColors[0];
+            int nearestDistance = Integer.MAX_VALUE;
+            for (int[] basicColor : basicColors) {
+                int redDistance = basicColor[0] - color.getRed();
+                int greenDistance = basicColor[1] - color.getGreen();
+                int blueDistance = basicColor[2] - color.getBlue();
+                int distance = redDistance * redDistance + greenDistance * greenDistance + blueDistance * blueDistance;
+                if (distance < nearestDistance) {
+                    nearestBasicColor = basicColor;
+                    nearestDistance = distance;
+                }
+            }
+            return controlSequenceIntroducer + nearestBasicColor[3] + "m";
+        }
+        if (colorMode == ColorMode.TRUE_COLOR) {
+            return controlSequenceIntroducer + "38;2;" + color.getRed() + ";" + color.getGreen() + ";" +
+                    color.getBlue() + "m";
+        }
+        int colorIndex = firstColorCubeIndex + 36 * nearestColorCubeLevel(color.getRed()) +
+                6 * nearestColorCubeLevel(color.getGreen()) + nearestColorCubeLevel(color.getBlue());
+        return controlSequenceIntroducer + "38;5;" + colorIndex + "m";
+    }
+
+    private static int nearestColorCubeLevel(int component) {
+        int nearestLevel = 0;
+        for (int level = 1; level < colorCubeLevels.length; level++) {
+            if (Math.abs(colorCubeLevels[level] - component) < Math.abs(colorCubeLevels[nearestLevel] - component)) {
+                nearestLevel = level;
+            }
+        }
+        return nearestLevel;
+    }
+
+    /**
+     * Appends the shortest sequence that moves the cursor from where it is to the passed zero based row and column.
+     */
+    private static void appendCursorMove(int fromRow, int fromColumn, int row, int column, StringBuilder out) {
+        if (row == fromRow && fromColumn != unknown && column > fromColumn) {
+            int distance = column - fromColumn;
+            out.append(controlSequenceIntroducer);
+            if (distance > 1) {
+                out.append(distance);
+            }
+            out.append('C');
+        } else {
+            appendCursorPosition(row, column, out);
+        }
+    }
+
+    private static void appendCursorPosition(int row, int column, StringBuilder out) {
+        out.append(controlSequenceIntroducer).append(row + 1);
+        if (column > 0) {
+            out.append(';').append(column + 1);
+        }
+        out.append('H');
+    }
+
+    /**
+     * @return Bytes the passed character takes once encoded as UTF-8, which is what a terminal is usually sent
+     */
+    private static int encodedLength(char character) {
+        return character < 0x80 ? 1 : character < 0x800 ? 2 : 3;
+    }
+
+    /**
+     * Writes each changed cell reported by a grid diff, keeping track of where the cursor and which color the terminal
+     * is left at.
+     */
+    private class CellWriter implements CharacterGridCellListener {
+        private CharacterGrid grid;
+        private StringBuilder out;
+        private boolean skippingEmptyCells;
+        private int cursorRow;
+        private int cursorColumn;
+        private String currentColorSequence;
+
+        private void start(CharacterGrid grid, StringBuilder out) {
+            this.grid = grid;
+            this.out = out;
+            skippingEmptyCells = false;
+            // Unknown, so the first written cell always positions the cursor and sets its color
+            cursorRow = unknown;
+            cursorColumn = unknown;
+            currentColorSequence = null;
+        }
+
+        @Override
+        public void cellChanged(int column, int row, short glyphIndex, byte paletteIndex) {
+            if (column >= terminalColumns || row >= terminalRows ||
+                    (paletteIndex == CharacterGrid.emptyPaletteIndex && skippingEmptyCells)) {
+                return;
+            }
+            if (row != cursorRow || column != cursorColumn) {
+                if (row == cursorRow && cursorColumn != unknown && column > cursorColumn &&
+                        isRewritingCheaperThanMoving(row, cursorColumn, column)) {
+                    // The cells in between haven't changed, so writing them again leaves them as they are
+                    for (int skippedColumn = cursorColumn; skippedColumn < column; skippedColumn++) {
+                        writeCell(skippedColumn, row, grid.getGlyphIndex(skippedColumn, row),
+                                grid.getPaletteIndex(skippedColumn, row));
+                    }
+                } else {
+                    appendCursorMove(cursorRow, cursorColumn, row, column, out);
+                }
+            }
+            writeCell(column, row, glyphIndex, paletteIndex);
+        }
+
+        /**
+         * Compares the bytes needed to move the cursor forward over unchanged cells on its row, with the bytes needed
+         * to write those cells again, which is cheaper for a gap of a cell or two.
+         */
+        private boolean isRewritingCheaperThanMoving(int row, int fromColumn, int toColumn) {
+            int distance = toColumn - fromColumn;
+            int movingLength =
+                    controlSequenceIntroducer.length() + 1 + (distance > 1 ? Integer.toString(distance).length() : 0);
+            int rewritingLength = 0;
+            String colorSequence = currentColorSequence;
+            for (int column = fromColumn; column < toColumn && rewritingLength <= movingLength; column++) {
+                byte paletteIndex = grid.getPaletteIndex(column, row);
+                if (paletteIndex == CharacterGrid.emptyPaletteIndex) {
+                    rewritingLength++;
+                    continue;
+                }
+                String cellColorSequence = colorSequences[paletteIndex & 0xFF];
+                if (!cellColorSequence.equals(colorSequence)) {
+                    rewritingLength += cellColorSequence.length();
+                    colorSequence = cellColorSequence;
+                }
+                rewritingLength += encodedLength(grid.getCharacter(grid.getGlyphIndex(column, row)));
+            }
+            return rewritingLength <= movingLength;
+        }
+
+        private void writeCell(int column, int row, short glyphIndex, byte paletteIndex) {
+            if (paletteIndex == CharacterGrid.emptyPaletteIndex) {
+                // A space looks the same in any color, so the current color is kept for the next character
+                out.append(' ');
+            } else {
+                // Palette colors that look the same on the terminal share a sequence, so they form one run
+                String colorSequence = colorSequences[paletteIndex & 0xFF];
+                if (!colorSequence.equals(currentColorSequence)) {
+                    out.append(colorSequence);
+                    currentColorSequence = colorSequence;
+                }
+                out.append(grid.getCharacter(glyphIndex));
+            }
+            cursorRow = row;
+            // Writing to the last column leaves the cursor there, so its position is unknown after that
+            cursorColumn = column + 1 < terminalColumns ? column + 1 : unknown;
+        }
+    }
+}
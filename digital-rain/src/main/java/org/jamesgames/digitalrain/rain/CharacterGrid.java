@@ -0,0 +1,143 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * CharacterGrid is a compact, backend neutral representation of one frame of digital rain. As RainDropSprites are drawn
+ * on rows when rendering by row, and each RainLineSprite is a column, what's visible is a grid of cells that each hold
+ * a character and a color. Each cell is stored as a glyph index (the position of a character in the grid's {@link
+ * RainCharacterSet}) and an index into the grid's palette, where palette index 0 is reserved for an empty cell.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class CharacterGrid {
+    /**
+     * Palette index of a cell that has no character.
+     */
+    public static final byte emptyPaletteIndex = 0;
+
+    private int columns;
+    private int rows;
+    private short[] glyphIndices = new short[0];
+    private byte[] paletteIndices = new byte[0];
+    private Color[] palette = new Color[]{Color.BLACK};
+    private RainCharacterSet characterSet = RainCharacterSet.halfWidthKatakana;
+
+    /**
+     * Resizes the grid if needed and empties every cell.
+     */
+    public void reset(int columns, int rows, Color[] palette, RainCharacterSet characterSet) {
+        int cellCount = columns * rows;
+        if (paletteIndices.length < cellCount) {
+            glyphIndices = new short[cellCount];
+            paletteIndices = new byte[cellCount];
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.palette = palette;
+        this.characterSet = characterSet;
+        Arrays.fill(paletteIndices, 0, cellCount, emptyPaletteIndex);
+        Arrays.fill(glyphIndices, 0, cellCount, (short) 0);
+    }
+
+    public void setCell(int column, int row, short glyphIndex, byte paletteIndex) {
+        int cell = row * columns + column;
+        glyphIndices[cell] = glyphIndex;
+        paletteIndices[cell] = paletteIndex;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public short getGlyphIndex(int column, int row) {
+        return glyphIndices[row * columns + column];
+    }
+
+    public byte getPaletteIndex(int column, int row) {
+        return paletteIndices[row * columns + column];
+    }
+
+    public boolean isEmpty(int column, int row) {
+        return paletteIndices[row * columns + column] == emptyPaletteIndex;
+    }
+
+    /**
+     * @return The character the passed glyph index represents
+     */
+    public char getCharacter(short glyphIndex) {
+        return characterSet.getCharacter(glyphIndex);
+    }
+
+    public RainCharacterSet getCharacterSet() {
+        return characterSet;
+    }
+
+    /**
+     * @return The color the passed palette index represents, palette index 0 maps to the background color
+     */
+    public Color getColor(byte paletteIndex) {
+        return palette[paletteIndex & 0xFF];
+    }
+
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    /**
+     * @return True if the passed grid has the same number of columns and rows as this grid
+     */
+    public boolean hasSameDimensions(CharacterGrid other) {
+        return columns == other.columns && rows == other.rows;
+    }
+
+    /**
+     * Reports every cell of this grid that differs from the same cell of the previous grid. If the grids have different
+     * dimensions, every cell of this grid is reported.
+     *
+     * @param previous
+     *         The grid of the previous frame
+     * @param listener
+     *         Called once per changed cell
+     * @return Number of cells changed
+     */
+    public int diff(CharacterGrid previous, CharacterGridCellListener listener) {
+        boolean everyCellChanged = !hasSameDimensions(previous);
+        int changedCellCount = 0;
+        for (int row = 0, cell = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++, cell++) {
+                if (everyCellChanged || paletteIndices[cell] != previous.paletteIndices[cell] ||
+                        glyphIndices[cell] != previous.glyphIndices[cell]) {
+                    listener.cellChanged(column, row, glyphIndices[cell], paletteIndices[cell]);
+                    changedCellCount++;
+                }
+            }
+        }
+        return changedCellCount;
+    }
+
+    /**
+     * Makes this grid an exact copy of the passed grid.
+     */
+    public void copyFrom(CharacterGrid other) {
+        int cellCount = other.columns * other.rows;
+        if (paletteIndices.length < cellCount) {
+            glyphIndices = new short[cellCount];
+            paletteIndices = new byte[cellCount];
+        }
+        columns = other.columns;
+        rows = other.rows;
+        palette = other.palette;
+        characterSet = other.characterSet;
+        System.arraycopy(other.glyphIndices, 0, glyphIndices, 0, cellCount);
+        System.arraycopy(other.paletteIndices, 0, paletteIndices, 0, cellCount);
+    }
+}
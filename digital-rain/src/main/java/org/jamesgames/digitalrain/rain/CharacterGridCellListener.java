@@ -0,0 +1,11 @@
+package org.jamesgames.digitalrain.rain;
+
+/**
+ * CharacterGridCellListener is an interface that defines an event from when a cell of a {@link CharacterGrid} differs
+ * from the same cell of a previous CharacterGrid.
+ *
+ * @author James Murphy
+ */
+public interface CharacterGridCellListener {
+    public void cellChanged(int column, int row, short glyphIndex, byte paletteIndex);
+}
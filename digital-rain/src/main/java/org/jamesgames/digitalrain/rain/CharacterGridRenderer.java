@@ -0,0 +1,75 @@
+package org.jamesgames.digitalrain.rain;
+
+import java.awt.*;
+
+/**
+ * CharacterGridRenderer draws the cells of a {@link CharacterGrid} using the character images of a {@link
+ * RainDropCharacterImageStore}, applying the same animation offsets RainDropSprites apply to themselves.
+ *
+ * @author James Murphy
+ */
+class CharacterGridRenderer {
+    private final RainDropCharacterImageStore characterImageStore;
+    private final OffsetAnimationMap offsetAnimationMap;
+    private final int unitsFromOneColumnToAnother;
+    private final int unitsFromOneRowToAnother;
+    private final int cellWidth;
+    private final int cellHeight;
+
+    CharacterGridRenderer(RainDropCharacterImageStore characterImageStore, OffsetAnimationMap offsetAnimationMap,
+            int unitsFromOneColumnToAnother, int unitsFromOneRowToAnother) {
+        this.characterImageStore = characterImageStore;
+        this.offsetAnimationMap = offsetAnimationMap;
+        this.unitsFromOneColumnToAnother = unitsFromOneColumnToAnother;
+        this.unitsFromOneRowToAnother = unitsFromOneRowToAnother;
+        this.cellWidth = characterImageStore.getFontWidth();
+        this.cellHeight = characterImageStore.getFontHeight();
+    }
+
+    /**
+     * @return The x drawing coordinate of a cell, before any animation offset is applied
+     */
+    int getCellXCoordinate(int column) {
+        return column * unitsFromOneColumnToAnother;
+    }
+
+    /**
+     * @return The y drawing coordinate of a cell, before any animation offset is applied
+     */
+    int getCellYCoordinate(int row) {
+        return row * unitsFromOneRowToAnother;
+    }
+
+    int getCellWidth() {
+        return cellWidth;
+    }
+
+    int getCellHeight() {
+        return cellHeight;
+    }
+
+    /**
+     * Draws every non empty cell of the grid that lies within the clip of the passed graphics.
+     */
+    void draw(Graphics2D g, CharacterGrid grid) {
+        for (int row = 0; row < grid.getRows(); row++) {
+            int rowYCoordinate = getCellYCoordinate(row);
+            int xOffset = offsetAnimationMap.getXOffset(rowYCoordinate);
+            int drawingY = rowYCoordinate + offsetAnimationMap.getYOffset(rowYCoordinate);
+            if (!g.hitClip(Integer.MIN_VALUE / 2, drawingY, Integer.MAX_VALUE, cellHeight)) {
+                continue;
+            }
+            for (int column = 0; column < grid.getColumns(); column++) {
+                if (grid.isEmpty(column, row)) {
+                    continue;
+                }
+                int drawingX = getCellXCoordinate(column) + xOffset;
+                if (g.hitClip(drawingX, drawingY, cellWidth, cellHeight)) {
+                    g.drawImage(characterImageStore.getCharacterImage(
+                            grid.getColor(grid.getPaletteIndex(column, row)), grid.getGlyphIndex(column, row)),
+                            drawingX, drawingY, null);
+                }
+            }
+        }
+    }
+}
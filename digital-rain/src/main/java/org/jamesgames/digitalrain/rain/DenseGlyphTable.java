@@ -0,0 +1,73 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DenseGlyphTable holds a rasterized glyph (or anything else created per glyph) for every glyph index of a small
+ * character set, in an array indexed by glyph index. Unlike a {@link GlyphCache} nothing is ever evicted, and looking
+ * up a glyph takes no lock and allocates nothing, so it's meant for character sets small enough to keep whole.
+ * <p>
+ * A glyph the table doesn't hold yet is created by the caller, outside of any lock, and then stored. If two threads
+ * create the same missing glyph at once, the glyph stored first is the one both keep.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+class DenseGlyphTable<V> {
+    private final AtomicReferenceArray<V> glyphs;
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hitCount = new LongAdder();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param glyphCount
+     *         Number of glyph indices in the table, from 0 to glyphCount - 1
+     */
+    DenseGlyphTable(int glyphCount) {
+        this.glyphs = new AtomicReferenceArray<>(glyphCount);
+    }
+
+    /**
+     * @return The glyph of the passed glyph index, or null if the table doesn't hold it yet, in which case it should be
+     * created and passed to {@link #store(int, Object)}
+     */
+    V get(int glyphIndex) {
+        V glyph = glyphs.get(glyphIndex);
+        if (glyph != null) {
+            hitCount.increment();
+        }
+        return glyph;
+    }
+
+    /**
+     * Stores the passed glyph created after {@link #get(int)} found the table didn't hold it.
+     *
+     * @return The glyph the table holds for the glyph index, which is the passed glyph unless another thread stored
+     * one first
+     */
+    V store(int glyphIndex, V createdGlyph) {
+        missCount.incrementAndGet();
+        if (glyphs.compareAndSet(glyphIndex, null, createdGlyph)) {
+            size.incrementAndGet();
+            return createdGlyph;
+        }
+        return glyphs.get(glyphIndex);
+    }
+
+    int getSize() {
+        return size.get();
+    }
+
+    long getHitCount() {
+        return hitCount.sum();
+    }
+
+    long getMissCount() {
+        return missCount.get();
+    }
+}
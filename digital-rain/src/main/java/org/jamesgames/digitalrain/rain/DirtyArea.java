@@ -0,0 +1,46 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * DirtyArea accumulates the areas a single {@link RainLineSprite} changed visually during an update, as the rectangle
+ * bounding all of them. RainLineSprites are updated in parallel, so each one marks its own DirtyArea without taking a
+ * lock, and the parent pane moves every DirtyArea into its {@link DirtyRegion} once the parallel update has finished.
+ * As a RainLineSprite only ever changes its own column, the bounding rectangle covers little more than what changed.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+class DirtyArea {
+    private int left = Integer.MAX_VALUE;
+    private int top = Integer.MAX_VALUE;
+    private int right = Integer.MIN_VALUE;
+    private int bottom = Integer.MIN_VALUE;
+
+    /**
+     * Adds the passed area to the dirty area.
+     */
+    void add(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        left = Math.min(left, x);
+        top = Math.min(top, y);
+        right = Math.max(right, x + width);
+        bottom = Math.max(bottom, y + height);
+    }
+
+    /**
+     * Adds the dirty area to the passed DirtyRegion, if anything is dirty, and then clears the dirty area.
+     */
+    void moveTo(DirtyRegion dirtyRegion) {
+        if (left > right) {
+            return;
+        }
+        dirtyRegion.add(left, top, right - left, bottom - top);
+        left = Integer.MAX_VALUE;
+        top = Integer.MAX_VALUE;
+        right = Integer.MIN_VALUE;
+        bottom = Integer.MIN_VALUE;
+    }
+}
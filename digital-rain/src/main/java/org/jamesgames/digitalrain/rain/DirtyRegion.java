@@ -0,0 +1,192 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * DirtyRegion accumulates the areas that changed visually since it was last taken, so only those areas have to be
+ * repainted. As every RainLineSprite is a column, the region is kept as one vertical span per column rather than as a
+ * single bounding rectangle, which would cover nearly the whole pane as soon as two columns far apart changed. When
+ * taken, the spans are joined into a bounded number of rectangles, joining neighbouring spans that add the least
+ * unchanged area first.
+ * <p>
+ * RainLineSprites updated in parallel don't add to the region directly, they each mark a {@link DirtyArea} of their own
+ * that the pane adds once the parallel update is done, so the region's lock is only contended by the thread taking it.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+class DirtyRegion {
+    private final int columnWidth;
+
+    /**
+     * Top and bottom y coordinate of the dirty span of each column, where a top of Integer.MAX_VALUE marks a column
+     * with nothing dirty. Grown as areas further right are added.
+     */
+    private int[] spanTops = new int[0];
+    private int[] spanBottoms = new int[0];
+    private int leftmostDirtyColumn = Integer.MAX_VALUE;
+    private int rightmostDirtyColumn = Integer.MIN_VALUE;
+    private boolean everythingDirty = true;
+
+    /**
+     * Rectangles being joined while the region is taken, as column ranges and spans, reused from take to take.
+     */
+    private int[] joinedLeftColumns = new int[0];
+    private int[] joinedRightColumns = new int[0];
+    private int[] joinedTops = new int[0];
+    private int[] joinedBottoms = new int[0];
+
+    /**
+     * @param columnWidth
+     *         Distance from one column to the next
+     */
+    DirtyRegion(int columnWidth) {
+        this.columnWidth = columnWidth;
+    }
+
+    /**
+     * Adds the passed area to the dirty region.
+     */
+    public synchronized void add(int x, int y, int width, int height) {
+        if (everythingDirty || width <= 0 || height <= 0) {
+            return;
+        }
+        int leftColumn = Math.max(0, Math.floorDiv(x, columnWidth));
+        int rightColumn = Math.floorDiv(x + width - 1, columnWidth);
+        if (rightColumn < leftColumn) {
+            return;
+        }
+        if (rightColumn >= spanTops.length) {
+            growToColumnCount(rightColumn + 1);
+        }
+        for (int column = leftColumn; column <= rightColumn; column++) {
+            spanTops[column] = Math.min(spanTops[column], y);
+            spanBottoms[column] = Math.max(spanBottoms[column], y + height);
+        }
+        leftmostDirtyColumn = Math.min(leftmostDirtyColumn, leftColumn);
+        rightmostDirtyColumn = Math.max(rightmostDirtyColumn, rightColumn);
+    }
+
+    private void growToColumnCount(int columnCount) {
+        int previousColumnCount = spanTops.length;
+        int newColumnCount = Math.max(columnCount, previousColumnCount * 2);
+        spanTops = Arrays.copyOf(spanTops, newColumnCount);
+        spanBottoms = Arrays.copyOf(spanBottoms, newColumnCount);
+        Arrays.fill(spanTops, previousColumnCount, newColumnCount, Integer.MAX_VALUE);
+        Arrays.fill(spanBottoms, previousColumnCount, newColumnCount, Integer.MIN_VALUE);
+        joinedLeftColumns = new int[newColumnCount];
+        joinedRightColumns = new int[newColumnCount];
+        joinedTops = new int[newColumnCount];
+        joinedBottoms = new int[newColumnCount];
+    }
+
+    /**
+     * Marks everything as dirty, for changes that affect the whole area like a resize.
+     */
+    public synchronized void addEverything() {
+        everythingDirty = true;
+    }
+
+    /**
+     * Copies the dirty region to the passed rectangles, each expanded by the passed margins, and then clears the dirty
+     * region. The region is joined into as few rectangles as needed to fit, rectangles not needed are emptied.
+     *
+     * @param regions
+     *         Rectangles to copy the region to, left untouched if nothing or everything is dirty
+     * @return {@link DirtyRegionState} describing whether nothing, an area, or everything is dirty
+     */
+    public synchronized DirtyRegionState take(Rectangle[] regions, int horizontalMargin, int verticalMargin) {
+        DirtyRegionState state;
+        if (everythingDirty) {
+            state = DirtyRegionState.EVERYTHING;
+        } else if (leftmostDirtyColumn > rightmostDirtyColumn) {
+            state = DirtyRegionState.NOTHING;
+        } else {
+            int rectangleCount = joinSpansIntoRectangles(regions.length);
+            for (int i = 0; i < regions.length; i++) {
+                if (i < rectangleCount) {
+                    int left = joinedLeftColumns[i] * columnWidth;
+                    regions[i].setBounds(left - horizontalMargin, joinedTops[i] - verticalMargin,
+                            (joinedRightColumns[i] + 1) * columnWidth - left + horizontalMargin * 2,
+                            joinedBottoms[i] - joinedTops[i] + verticalMargin * 2);
+                } else {
+                    regions[i].setBounds(0, 0, 0, 0);
+                }
+            }
+            state = DirtyRegionState.AREA;
+        }
+        if (leftmostDirtyColumn <= rightmostDirtyColumn) {
+            Arrays.fill(spanTops, leftmostDirtyColumn, rightmostDirtyColumn + 1, Integer.MAX_VALUE);
+            Arrays.fill(spanBottoms, leftmostDirtyColumn, rightmostDirtyColumn + 1, Integer.MIN_VALUE);
+        }
+        leftmostDirtyColumn = Integer.MAX_VALUE;
+        rightmostDirtyColumn = Integer.MIN_VALUE;
+        everythingDirty = false;
+        return state;
+    }
+
+    /**
+     * Joins runs of neighbouring dirty columns into rectangles, then keeps joining the two neighbouring rectangles
+     * whose joined rectangle adds the least area until at most maxRectangleCount are left.
+     *
+     * @return Number of rectangles in the joined arrays
+     */
+    private int joinSpansIntoRectangles(int maxRectangleCount) {
+        int rectangleCount = 0;
+        for (int column = leftmostDirtyColumn; column <= rightmostDirtyColumn; column++) {
+            if (spanTops[column] == Integer.MAX_VALUE) {
+                continue;
+            }
+            int last = rectangleCount - 1;
+            if (last >= 0 && joinedRightColumns[last] == column - 1) {
+                joinedRightColumns[last] = column;
+                joinedTops[last] = Math.min(joinedTops[last], spanTops[column]);
+                joinedBottoms[last] = Math.max(joinedBottoms[last], spanBottoms[column]);
+            } else {
+                joinedLeftColumns[rectangleCount] = column;
+                joinedRightColumns[rectangleCount] = column;
+                joinedTops[rectangleCount] = spanTops[column];
+                joinedBottoms[rectangleCount] = spanBottoms[column];
+                rectangleCount++;
+            }
+        }
+        while (rectangleCount > Math.max(1, maxRectangleCount)) {
+            int cheapestJoin = 0;
+            long cheapestAddedArea = Long.MAX_VALUE;
+            for (int i = 0; i < rectangleCount - 1; i++) {
+                long addedArea = joinedArea(i) - area(i) - area(i + 1);
+                if (addedArea < cheapestAddedArea) {
+                    cheapestAddedArea = addedArea;
+                    cheapestJoin = i;
+                }
+            }
+            joinedRightColumns[cheapestJoin] = joinedRightColumns[cheapestJoin + 1];
+            joinedTops[cheapestJoin] = Math.min(joinedTops[cheapestJoin], joinedTops[cheapestJoin + 1]);
+            joinedBottoms[cheapestJoin] = Math.max(joinedBottoms[cheapestJoin], joinedBottoms[cheapestJoin + 1]);
+            int rectanglesAfterJoin = rectangleCount - cheapestJoin - 2;
+            System.arraycopy(joinedLeftColumns, cheapestJoin + 2, joinedLeftColumns, cheapestJoin + 1,
+                    rectanglesAfterJoin);
+            System.arraycopy(joinedRightColumns, cheapestJoin + 2, joinedRightColumns, cheapestJoin + 1,
+                    rectanglesAfterJoin);
+            System.arraycopy(joinedTops, cheapestJoin + 2, joinedTops, cheapestJoin + 1, rectanglesAfterJoin);
+            System.arraycopy(joinedBottoms, cheapestJoin + 2, joinedBottoms, cheapestJoin + 1, rectanglesAfterJoin);
+            rectangleCount--;
+        }
+        return rectangleCount;
+    }
+
+    private long area(int rectangle) {
+        return (long) (joinedRightColumns[rectangle] - joinedLeftColumns[rectangle] + 1) *
+                (joinedBottoms[rectangle] - joinedTops[rectangle]);
+    }
+
+    private long joinedArea(int leftRectangle) {
+        int rightRectangle = leftRectangle + 1;
+        return (long) (joinedRightColumns[rightRectangle] - joinedLeftColumns[leftRectangle] + 1) *
+                (Math.max(joinedBottoms[leftRectangle], joinedBottoms[rightRectangle]) -
+                        Math.min(joinedTops[leftRectangle], joinedTops[rightRectangle]));
+    }
+}
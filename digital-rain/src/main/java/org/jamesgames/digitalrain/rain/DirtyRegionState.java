@@ -0,0 +1,22 @@
+package org.jamesgames.digitalrain.rain;
+
+/**
+ * DirtyRegionState describes how much of a {@link RainPaneSprite} changed visually since its dirty region was last
+ * taken.
+ *
+ * @author James Murphy
+ */
+public enum DirtyRegionState {
+    /**
+     * Nothing changed, no repaint is needed.
+     */
+    NOTHING,
+    /**
+     * Only the area copied to the passed rectangle changed.
+     */
+    AREA,
+    /**
+     * Everything could have changed, the whole pane should be repainted.
+     */
+    EVERYTHING
+}
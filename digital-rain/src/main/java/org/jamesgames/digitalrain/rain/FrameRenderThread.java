@@ -0,0 +1,149 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.ThreadSafe;
+import org.jamesgames.jamesjavautils.general.ObserverSet;
+
+import java.awt.*;
+
+/**
+ * FrameRenderThread renders {@link CharacterGrid}s published by the updating thread on a thread of its own. Each frame
+ * is rendered into one of two {@link SoftwareGlyphBlitter}s, alternating between them, so the latest completed frame
+ * can be drawn (usually on the event dispatch thread) while the next frame is rendered into the other. Grids submitted
+ * faster than they can be rendered replace each other, so the render thread always renders the newest grid. A grid is
+ * acquired from the {@link FrameRing} it was published through when it's submitted, and released once it's rendered
+ * or replaced.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+class FrameRenderThread {
+    private final SoftwareGlyphBlitter[] frameBuffers;
+    private final ObserverSet<FrameRenderedListener> listeners;
+    private final FrameRing<CharacterGrid> characterGrids;
+
+    /**
+     * The latest submitted grid not yet taken by the render thread, acquired from characterGrids, and its size in
+     * pixels.
+     */
+    private CharacterGrid submittedGrid;
+    private int submittedWidth;
+    private int submittedHeight;
+    private boolean gridSubmitted = false;
+
+    /**
+     * The thread currently rendering, null while stopped. A thread stops rendering as soon as it's no longer this one.
+     */
+    private Thread renderingThread;
+
+    /**
+     * The frame buffer holding the latest completed frame, null until a frame is completed.
+     */
+    private volatile SoftwareGlyphBlitter latestCompletedFrameBuffer;
+
+    FrameRenderThread(RainDropCharacterImageStore characterImageStore, OffsetAnimationMap offsetAnimationMap,
+            CharacterGridRenderer cellLayout, ObserverSet<FrameRenderedListener> listeners,
+            FrameRing<CharacterGrid> characterGrids) {
+        this.frameBuffers = new SoftwareGlyphBlitter[]{
+                new SoftwareGlyphBlitter(characterImageStore, offsetAnimationMap, cellLayout),
+                new SoftwareGlyphBlitter(characterImageStore, offsetAnimationMap, cellLayout)};
+        this.listeners = listeners;
+        this.characterGrids = characterGrids;
+    }
+
+    /**
+     * Hands the latest grid published through the FrameRing to the render thread, starting the render thread if it
+     * isn't running.
+     */
+    synchronized void submit(int width, int height) {
+        if (submittedGrid != null) {
+            characterGrids.release(submittedGrid);
+        }
+        submittedGrid = characterGrids.acquireLatestFrame();
+        submittedWidth = width;
+        submittedHeight = height;
+        gridSubmitted = true;
+        if (renderingThread == null) {
+            renderingThread = new Thread(this::renderSubmittedGrids, "Digital rain frame renderer");
+            renderingThread.setDaemon(true);
+            renderingThread.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Stops the render thread after any frame it's currently rendering, and forgets the latest completed frame.
+     */
+    synchronized void stop() {
+        renderingThread = null;
+        gridSubmitted = false;
+        if (submittedGrid != null) {
+            characterGrids.release(submittedGrid);
+        }
+        submittedGrid = null;
+        latestCompletedFrameBuffer = null;
+        notifyAll();
+    }
+
+    /**
+     * Draws the latest completed frame, waiting only if the render thread is still writing to that same frame buffer.
+     *
+     * @return False if no frame was completed yet, in which case nothing was drawn
+     */
+    boolean drawLatestCompletedFrame(Graphics2D g) {
+        SoftwareGlyphBlitter frameBuffer = latestCompletedFrameBuffer;
+        if (frameBuffer == null) {
+            return false;
+        }
+        synchronized (frameBuffer) {
+            g.drawImage(frameBuffer.getFrame(), 0, 0, null);
+        }
+        return true;
+    }
+
+    private void renderSubmittedGrids() {
+        int nextFrameBufferIndex = 0;
+        while (true) {
+            CharacterGrid gridToRender;
+            int width;
+            int height;
+            synchronized (this) {
+                while (Thread.currentThread() == renderingThread && !gridSubmitted) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (Thread.currentThread() != renderingThread) {
+                    return;
+                }
+                gridToRender = submittedGrid;
+                submittedGrid = null;
+                width = submittedWidth;
+                height = submittedHeight;
+                gridSubmitted = false;
+            }
+            if (width <= 0 || height <= 0) {
+                characterGrids.release(gridToRender);
+                continue;
+            }
+            SoftwareGlyphBlitter frameBuffer = frameBuffers[nextFrameBufferIndex];
+            nextFrameBufferIndex = (nextFrameBufferIndex + 1) % frameBuffers.length;
+            try {
+                synchronized (frameBuffer) {
+                    frameBuffer.render(gridToRender, width, height);
+                }
+            } finally {
+                characterGrids.release(gridToRender);
+            }
+            synchronized (this) {
+                if (Thread.currentThread() != renderingThread) {
+                    return;
+                }
+                latestCompletedFrameBuffer = frameBuffer;
+            }
+            listeners.forEach(FrameRenderedListener::frameRendered);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.jamesgames.digitalrain.rain;
+
+/**
+ * FrameRenderedListener is an interface that defines an event from when a {@link RainPaneSprite} rendering on a
+ * separate render thread has completed a frame.
+ *
+ * @author James Murphy
+ */
+public interface FrameRenderedListener {
+
+    /**
+     * Called on the render thread when a new frame has been rendered and is ready to be drawn.
+     */
+    public void frameRendered();
+}
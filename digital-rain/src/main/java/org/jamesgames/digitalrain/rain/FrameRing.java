@@ -0,0 +1,155 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * FrameRing hands the frames compiled by the thread updating a {@link RainPaneSprite} (like {@link CharacterGrid}s) to
+ * the threads drawing them, recycling a small ring of frames rather than creating one per update. The updating thread
+ * fills a frame that isn't in use and publishes it. A drawing thread acquires the latest published frame, which no one
+ * changes while it's acquired, and releases it once done with it.
+ * <p>
+ * A frame is only filled again once it's no longer the published frame and every thread that acquired it released it,
+ * so three frames are enough while one thread draws: the frame published, the frame being drawn, and the frame being
+ * filled. Another frame is only created when every frame is in use, like while several threads draw at once.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+class FrameRing<T> {
+    private static final int initialFrameCount = 3;
+
+    private final Supplier<T> frameFactory;
+    /**
+     * Only grown, and only by the updating thread, so drawing threads can look through it without locking.
+     */
+    private final List<Slot<T>> slots = new CopyOnWriteArrayList<>();
+    private volatile Slot<T> publishedSlot;
+    /**
+     * The slot being filled by the updating thread, or null, only touched by the updating thread.
+     */
+    private Slot<T> slotBeingFilled;
+    private long publishedFrameCount;
+
+    /**
+     * @param frameFactory
+     *         Creates an empty frame, the first frame created is published until another one is
+     */
+    FrameRing(Supplier<T> frameFactory) {
+        this.frameFactory = frameFactory;
+        for (int i = 0; i < initialFrameCount; i++) {
+            slots.add(new Slot<>(frameFactory.get()));
+        }
+        publishedSlot = slots.get(0);
+    }
+
+    /**
+     * @return A frame no other thread uses, to fill and then publish with {@link #publish()}. Must only be called by
+     * the updating thread.
+     */
+    T getFrameToFill() {
+        if (slotBeingFilled == null) {
+            Slot<T> published = publishedSlot;
+            for (int i = 0; i < slots.size() && slotBeingFilled == null; i++) {
+                Slot<T> slot = slots.get(i);
+                // Drawing threads check the slot is still published after acquiring it, so once it's no longer
+                // published, one that acquires it after this check lets go of it without reading the frame
+                if (slot != published && slot.acquiredCount.get() == 0) {
+                    slotBeingFilled = slot;
+                }
+            }
+            if (slotBeingFilled == null) {
+                slotBeingFilled = new Slot<>(frameFactory.get());
+                slots.add(slotBeingFilled);
+            }
+        }
+        return slotBeingFilled.frame;
+    }
+
+    /**
+     * Publishes the frame filled since the last call to {@link #getFrameToFill()}, replacing the previously published
+     * frame. Must only be called by the updating thread.
+     */
+    void publish() {
+        if (slotBeingFilled == null) {
+            throw new IllegalStateException("No frame was filled to publish");
+        }
+        slotBeingFilled.frameNumber = ++publishedFrameCount;
+        publishedSlot = slotBeingFilled;
+        slotBeingFilled = null;
+    }
+
+    /**
+     * @return The latest published frame, which the updating thread can read (like to compare a new frame to) as long
+     * as it doesn't change it. Must only be called by the updating thread.
+     */
+    T getPublishedFrame() {
+        return publishedSlot.frame;
+    }
+
+    /**
+     * @return The latest published frame, which isn't changed until it's passed to {@link #release(Object)}
+     */
+    T acquireLatestFrame() {
+        while (true) {
+            Slot<T> slot = publishedSlot;
+            slot.acquiredCount.incrementAndGet();
+            if (slot == publishedSlot) {
+                return slot.frame;
+            }
+            // Replaced while acquiring, so it may already be filled again
+            slot.acquiredCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return Number of the passed acquired frame, which increases by one with every frame published, so a frame with
+     * the same number as one drawn earlier has the same contents
+     */
+    long getFrameNumber(T acquiredFrame) {
+        return findSlot(acquiredFrame).frameNumber;
+    }
+
+    /**
+     * Lets go of a frame acquired with {@link #acquireLatestFrame()}, after which it must no longer be read.
+     */
+    void release(T acquiredFrame) {
+        if (findSlot(acquiredFrame).acquiredCount.decrementAndGet() < 0) {
+            throw new IllegalStateException("Frame released more times than it was acquired");
+        }
+    }
+
+    private Slot<T> findSlot(T frame) {
+        for (int i = 0; i < slots.size(); i++) {
+            Slot<T> slot = slots.get(i);
+            if (slot.frame == frame) {
+                return slot;
+            }
+        }
+        throw new IllegalArgumentException("Frame isn't part of this FrameRing");
+    }
+
+    /**
+     * @return Number of frames the ring holds
+     */
+    int getFrameCount() {
+        return slots.size();
+    }
+
+    private static class Slot<T> {
+        private final T frame;
+        private final AtomicInteger acquiredCount = new AtomicInteger();
+        /**
+         * Written before the slot is published and only read while it's acquired.
+         */
+        private volatile long frameNumber;
+
+        private Slot(T frame) {
+            this.frame = frame;
+        }
+    }
+}
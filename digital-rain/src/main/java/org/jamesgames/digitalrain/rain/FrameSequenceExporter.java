@@ -0,0 +1,194 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * FrameSequenceExporter writes the frames of a {@link RainPaneSprite} to a directory as a sequence of numbered images,
+ * without displaying anything. The RainPaneSprite is stepped a fixed length of time per frame, so the sequence plays
+ * back at the chosen frame rate no matter how long exporting took. Frames are exported in a pipeline: the exporting
+ * thread steps the simulation and renders each frame with a {@link SoftwareGlyphBlitter} (which renders in parallel
+ * itself), then hands a copy of the frame to a pool of encoder threads that encode and write frames in parallel.
+ * Frames are copied into a fixed number of reusable images, each paired with the buffer its raw bytes are encoded into,
+ * and the exporting thread waits for an image to be freed up by the encoders when they're all in use, so memory stays
+ * bounded however far the encoders fall behind and encoding a frame allocates nothing of the frame's size.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+public class FrameSequenceExporter {
+
+    /**
+     * How each frame is written to its file.
+     */
+    public enum FrameFormat {
+        /**
+         * A PNG image per frame.
+         */
+        PNG("png"),
+        /**
+         * Three bytes per pixel (red, green, then blue), row by row from the top left with no header, which is much
+         * faster to write than PNG and can be read by tools like FFmpeg as raw video frames of the exported size.
+         */
+        RAW_RGB("rgb");
+
+        private final String fileExtension;
+
+        FrameFormat(String fileExtension) {
+            this.fileExtension = fileExtension;
+        }
+
+        public String getFileExtension() {
+            return fileExtension;
+        }
+    }
+
+    private static final String frameFileNameFormat = "frame_%06d.%s";
+
+    private final RainPaneSprite rainPaneSprite;
+    private final Path directory;
+    private final FrameFormat frameFormat;
+    private final int encoderThreadCount;
+    private final int framesInFlight;
+
+    /**
+     * @param rainPaneSprite
+     *         RainPaneSprite to export, already sized to the size of the frames to export, which nothing else should
+     *         be updating or drawing while exporting
+     * @param directory
+     *         Directory to write the frames to, which is created if it doesn't exist
+     * @param encoderThreadCount
+     *         Number of threads encoding and writing frames
+     * @param framesInFlight
+     *         Most frames rendered but not yet written at any one time
+     */
+    public FrameSequenceExporter(RainPaneSprite rainPaneSprite, Path directory, FrameFormat frameFormat,
+            int encoderThreadCount, int framesInFlight) {
+        if (encoderThreadCount <= 0 || framesInFlight <= 0) {
+            throw new IllegalArgumentException("Encoder thread count (" + encoderThreadCount +
+                    ") and frames in flight (" + framesInFlight + ") must be positive");
+        }
+        this.rainPaneSprite = rainPaneSprite;
+        this.directory = directory;
+        this.frameFormat = frameFormat;
+        this.encoderThreadCount = encoderThreadCount;
+        this.framesInFlight = framesInFlight;
+    }
+
+    /**
+     * Steps, renders and writes the passed number of frames, returning once every frame is written.
+     *
+     * @param frameLengthInMilliseconds
+     *         Length of time simulated between each frame, also set as the RainPaneSprite's simulation step so each
+     *         frame is exactly one step
+     * @throws IOException
+     *         If a frame could not be written, in which case no further frames are rendered
+     */
+    public void export(int frameCount, long frameLengthInMilliseconds) throws IOException, InterruptedException {
+        int width = rainPaneSprite.getWidth();
+        int height = rainPaneSprite.getHeight();
+        if (width <= 0 || height <= 0) {
+            throw new IllegalStateException("RainPaneSprite must be sized before exporting (" + width + "x" + height +
+                    ")");
+        }
+        Files.createDirectories(directory);
+        rainPaneSprite.setSimulationStepInMilliseconds(frameLengthInMilliseconds);
+
+        BlockingQueue<ExportedFrame> freeFrames = new ArrayBlockingQueue<>(framesInFlight);
+        for (int i = 0; i < framesInFlight; i++) {
+            freeFrames.add(new ExportedFrame(width, height, frameFormat));
+        }
+        AtomicReference<IOException> firstFailure = new AtomicReference<>();
+        ExecutorService encoders = Executors.newFixedThreadPool(encoderThreadCount, runnable -> {
+            Thread encoderThread = new Thread(runnable, "Digital rain frame encoder");
+            encoderThread.setDaemon(true);
+            return encoderThread;
+        });
+        SoftwareGlyphBlitter blitter = rainPaneSprite.createSoftwareGlyphBlitter();
+        CharacterGrid grid = new CharacterGrid();
+        try {
+            for (int frameNumber = 0; frameNumber < frameCount && firstFailure.get() == null; frameNumber++) {
+                // The first frame shows the scene as it is, every later frame one step further along
+                rainPaneSprite.update(frameNumber == 0 ? 0 : frameLengthInMilliseconds);
+                rainPaneSprite.compileCharacterGrid(grid);
+                BufferedImage renderedFrame = blitter.render(grid, width, height);
+                ExportedFrame frame = freeFrames.take();
+                System.arraycopy(pixelsOf(renderedFrame), 0, pixelsOf(frame.image), 0, width * height);
+                Path frameFile = directory.resolve(
+                        String.format(frameFileNameFormat, frameNumber, frameFormat.getFileExtension()));
+                encoders.execute(() -> {
+                    try {
+                        writeFrame(frame, frameFile);
+                    } catch (IOException | RuntimeException e) {
+                        firstFailure.compareAndSet(null, e instanceof IOException ? (IOException) e :
+                                new IOException("Could not write " + frameFile, e));
+                    } finally {
+                        freeFrames.add(frame);
+                    }
+                });
+            }
+            encoders.shutdown();
+            encoders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            encoders.shutdownNow();
+        }
+        if (firstFailure.get() != null) {
+            throw firstFailure.get();
+        }
+    }
+
+    private void writeFrame(ExportedFrame frame, Path frameFile) throws IOException {
+        if (frameFormat == FrameFormat.PNG) {
+            if (!ImageIO.write(frame.image, frameFormat.getFileExtension(), frameFile.toFile())) {
+                throw new IOException("No PNG writer available to write " + frameFile);
+            }
+            return;
+        }
+        int[] pixels = pixelsOf(frame.image);
+        byte[] rgbBytes = frame.rgbBytes;
+        for (int i = 0, byteIndex = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            rgbBytes[byteIndex++] = (byte) (pixel >> 16);
+            rgbBytes[byteIndex++] = (byte) (pixel >> 8);
+            rgbBytes[byteIndex++] = (byte) pixel;
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(frameFile))) {
+            out.write(rgbBytes);
+        }
+    }
+
+    private static int[] pixelsOf(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * A reusable frame, only touched by one thread at a time: the exporting thread while it's copied in, then the
+     * encoder writing it.
+     */
+    private static class ExportedFrame {
+        private final BufferedImage image;
+        /**
+         * The image's pixels as raw bytes, only allocated when frames are written in the raw format.
+         */
+        private final byte[] rgbBytes;
+
+        private ExportedFrame(int width, int height, FrameFormat frameFormat) {
+            this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            this.rgbBytes = frameFormat == FrameFormat.RAW_RGB ? new byte[width * height * 3] : null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * GlyphCache is a bounded cache of rasterized glyphs (or anything else created per glyph), keyed by a long. Once full,
+ * the least recently used glyph is evicted for each new one. Hits, misses and evictions are counted, so how well the
+ * cache holds the glyphs a scene uses can be watched while it runs.
+ * <p>
+ * The cache's lock is only held to look up and store glyphs, never while a glyph is created, so a thread rasterizing a
+ * missing glyph doesn't hold up threads after glyphs that are cached. Character sets small enough to keep whole are
+ * better held in a {@link DenseGlyphTable}, which takes no lock at all.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+class GlyphCache<V> {
+    private final int capacity;
+    private final Map<Long, V> glyphs;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    GlyphCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Glyph cache capacity must be positive (" + capacity + " was supplied)");
+        }
+        this.capacity = capacity;
+        this.glyphs = new LinkedHashMap<Long, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+                if (size() > GlyphCache.this.capacity) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param createGlyph
+     *         Creates the glyph of the passed key when it isn't cached, called without holding the cache's lock
+     * @return The cached glyph of the key, created and cached first if it isn't
+     */
+    V get(long key, LongFunction<V> createGlyph) {
+        synchronized (this) {
+            V glyph = glyphs.get(key);
+            if (glyph != null) {
+                hitCount++;
+                return glyph;
+            }
+            missCount++;
+        }
+        V createdGlyph = createGlyph.apply(key);
+        synchronized (this) {
+            // Another thread may have cached the glyph while this one created it, in which case that one is kept
+            V glyph = glyphs.putIfAbsent(key, createdGlyph);
+            return glyph == null ? createdGlyph : glyph;
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    synchronized int getSize() {
+        return glyphs.size();
+    }
+
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+}
@@ -2,7 +2,8 @@ package org.jamesgames.digitalrain.rain;
 
 import org.jamesgames.jamesjavautils.general.IntPair;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 /**
@@ -13,19 +14,85 @@ import java.util.function.Function;
  * @author James Murphy
  */
 public class OffsetAnimationMap {
-    private final HashMap<Integer, IntPair> xOffsetMap = new HashMap<>();
-    private final HashMap<Integer, IntPair> yOffsetMap = new HashMap<>();
+    /**
+     * Both offsets come from one call of the offset function, so one map holds the pair rather than calling the
+     * function once for the x offset and once more for the y offset. Offsets are looked up while updating and while
+     * drawing, which can happen on several threads at once.
+     */
+    private final ConcurrentHashMap<Integer, IntPair> offsetMap = new ConcurrentHashMap<>();
     private final Function<Integer, IntPair> yCoordinateToXOffsetFunction;
+    private final LongAdder lookupCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private volatile int largestAbsoluteXOffset;
+    private volatile int largestAbsoluteYOffset;
+    private volatile boolean applyingOffsets = true;
 
     public OffsetAnimationMap(Function<Integer, IntPair> yCoordinateToXOffsetFunction) {
         this.yCoordinateToXOffsetFunction = yCoordinateToXOffsetFunction;
     }
 
     public int getXOffset(int yCoordinate) {
-        return xOffsetMap.computeIfAbsent(yCoordinate, yCoordinateToXOffsetFunction).getX();
+        return applyingOffsets ? getOffsets(yCoordinate).getX() : 0;
     }
 
     public int getYOffset(int yCoordinate) {
-        return yOffsetMap.computeIfAbsent(yCoordinate, yCoordinateToXOffsetFunction).getY();
+        return applyingOffsets ? getOffsets(yCoordinate).getY() : 0;
+    }
+
+    /**
+     * Sets if offsets are applied, while not applied every offset returned is 0 and the offset function isn't called.
+     */
+    void setApplyingOffsets(boolean applyingOffsets) {
+        this.applyingOffsets = applyingOffsets;
+    }
+
+    boolean isApplyingOffsets() {
+        return applyingOffsets;
+    }
+
+    private IntPair getOffsets(int yCoordinate) {
+        lookupCount.increment();
+        IntPair offsets = offsetMap.get(yCoordinate);
+        if (offsets == null) {
+            // Computed at most once per y coordinate, even if several threads miss the same coordinate at once
+            offsets = offsetMap.computeIfAbsent(yCoordinate, this::computeOffsets);
+        }
+        return offsets;
+    }
+
+    private IntPair computeOffsets(int yCoordinate) {
+        missCount.increment();
+        IntPair offsets = yCoordinateToXOffsetFunction.apply(yCoordinate);
+        synchronized (this) {
+            largestAbsoluteXOffset = Math.max(largestAbsoluteXOffset, Math.abs(offsets.getX()));
+            largestAbsoluteYOffset = Math.max(largestAbsoluteYOffset, Math.abs(offsets.getY()));
+        }
+        return offsets;
+    }
+
+    /**
+     * @return The largest distance any computed x offset moves something horizontally
+     */
+    int getLargestAbsoluteXOffset() {
+        return largestAbsoluteXOffset;
+    }
+
+    /**
+     * @return The largest distance any computed y offset moves something vertically
+     */
+    int getLargestAbsoluteYOffset() {
+        return largestAbsoluteYOffset;
+    }
+
+    int getCachedOffsetCount() {
+        return offsetMap.size();
+    }
+
+    long getLookupCount() {
+        return lookupCount.sum();
+    }
+
+    long getMissCount() {
+        return missCount.sum();
     }
 }
@@ -1,35 +1,48 @@
 package org.jamesgames.digitalrain.rain;
 
-import org.jamesgames.easysprite.Sprite;
+import net.jcip.annotations.NotThreadSafe;
 
-import java.util.ArrayDeque;
-import java.util.Collection;
-import java.util.Deque;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * OrderedStackOfRainDropSprites is a helper class keeps track of the visual order of {@link
  * org.jamesgames.digitalrain.rain.RainDropSprite}s from a {@link org.jamesgames.digitalrain.rain.RainLineSprite }. This
- * is not a replacement of Sprite's internal list of child sprites. This class always contains at least one Sprite in
- * the OrderedStackOfRainDropSprites, which is the bottommost visual RainDropSprite, that sprite cannot be removed from
- * the stack.
+ * class always contains at least one Sprite in the OrderedStackOfRainDropSprites, which is the bottommost visual
+ * RainDropSprite, that sprite cannot be removed from the stack.
+ * <p>
+ * RainDropSprites are kept in an array from the highest visually to the second bottommost, so adding or removing a
+ * RainDropSprite just above the bottommost one (the only place RainDropSprites are added or removed) takes constant
+ * time and allocates nothing, unless the array has to grow past the most RainDropSprites the stack held so far.
+ * <p>
+ * The size of the stack is the only count of the RainDropSprites of a RainLineSprite. Like the RainLineSprite, the
+ * stack is only used by the thread updating the pane (and that thread's fork join tasks), other threads only ever see
+ * the frames compiled from it, so loops over the stack copy {@link #size()} once and index within that copy.
  *
  * @author James Murphy
  */
+@NotThreadSafe
 class OrderedStackOfRainDropSprites implements Iterable<RainDropSprite> {
+    private static final int initialCapacity = 16;
 
     /**
-     * This deque is used as a stack of RainDropReferences where the bottom of the stack is the highest positioned
-     * RainDropSprites visually, while the top of the stack is the bottommost RainDropSprite.
+     * Every RainDropSprite but the bottommost, where index 0 is the highest positioned RainDropSprite visually and
+     * index rainDropSpritesAboveBottomCount - 1 is the second bottommost RainDropSprite.
      */
-    private final Deque<RainDropSprite> orderedStackOfRainDropSprites;
+    private RainDropSprite[] rainDropSpritesAboveBottom;
+    private int rainDropSpritesAboveBottomCount;
 
     /**
-     * Reference to the bottommost visual RainDropSprite in order to know if one tries to remove it (so the code can
-     * throw an exception)
+     * The bottommost visual RainDropSprite, which is always in the stack
      */
     private final RainDropSprite bottomRainDropSprite;
 
+    /**
+     * Most RainDropSprites the stack can hold, including the bottommost RainDropSprite
+     */
+    private final int mostAmountOfRainDropSpritesExpected;
+
     /**
      * Constructs a OrderedStackOfRainDropSprites
      *
@@ -39,9 +52,10 @@ class OrderedStackOfRainDropSprites implements Iterable<RainDropSprite> {
      *         The max amount of RainDropSprites to expect
      */
     public OrderedStackOfRainDropSprites(RainDropSprite bottomRainDropSprite, int mostAmountOfRainDropSpritesExpected) {
-        this.orderedStackOfRainDropSprites = new ArrayDeque<>(mostAmountOfRainDropSpritesExpected);
         this.bottomRainDropSprite = bottomRainDropSprite;
-        orderedStackOfRainDropSprites.addLast(bottomRainDropSprite);
+        this.mostAmountOfRainDropSpritesExpected = mostAmountOfRainDropSpritesExpected;
+        this.rainDropSpritesAboveBottom =
+                new RainDropSprite[Math.max(0, Math.min(initialCapacity, mostAmountOfRainDropSpritesExpected - 1))];
     }
 
     /**
@@ -52,52 +66,77 @@ class OrderedStackOfRainDropSprites implements Iterable<RainDropSprite> {
      *         A RainDropSprite to add to this RainLineSprite
      */
     public void pushRainDropSpriteToSecondTopPosition(RainDropSprite s) {
-        // Add the sprite as the second most top element,
-        // as it's assumed to be the second most bottommost RainDropSprite visually
-        // Removing the last element (which is the bottomRainDropSprite)
-        RainDropSprite shouldBeBottommostSprite = orderedStackOfRainDropSprites.removeLast();
-        // Adding last the passed sprite
-        orderedStackOfRainDropSprites.addLast(s);
-        // Adding over the passed sprite the bottomRainDropSprite, effectively placing the passed sprite at
-        // the required second position from top of the stack
-        orderedStackOfRainDropSprites.addLast(shouldBeBottommostSprite);
+        if (rainDropSpritesAboveBottomCount == rainDropSpritesAboveBottom.length) {
+            if (rainDropSpritesAboveBottomCount + 1 >= mostAmountOfRainDropSpritesExpected) {
+                throw new IllegalStateException("Stack already holds the most RainDropSprites expected (" +
+                        mostAmountOfRainDropSpritesExpected + ")");
+            }
+            rainDropSpritesAboveBottom = Arrays.copyOf(rainDropSpritesAboveBottom,
+                    Math.min(Math.max(1, rainDropSpritesAboveBottom.length * 2),
+                            mostAmountOfRainDropSpritesExpected - 1));
+        }
+        rainDropSpritesAboveBottom[rainDropSpritesAboveBottomCount++] = s;
     }
 
     /**
-     * This method removes all Sprites from the ordered stack that also exist in the passed collection
+     * Removes the second bottommost RainDropSprite, the one most recently added.
      *
-     * @param spritesToRemove
-     *         RainDropSprites to remove
+     * @return The removed RainDropSprite
      */
-    public void removeAll(Collection<Sprite> spritesToRemove) {
-        if (spritesToRemove.contains(bottomRainDropSprite)) {
-            throw new IllegalArgumentException(
+    public RainDropSprite popSecondTopRainDropSprite() {
+        if (rainDropSpritesAboveBottomCount == 0) {
+            throw new IllegalStateException(
                     "Cannot remove the bottom most RainDropSprite, class is designed for use to remove and add new " +
                             "RainDropSprites but never remove the bottom most RainDropSprite, as it should always " +
                             "exist in the stack as the stack should always have at least one remaining sprite.");
         }
-        boolean atLeastOneOfTheSpritesExistedInCollection =
-                orderedStackOfRainDropSprites.removeAll(spritesToRemove);
+        RainDropSprite s = rainDropSpritesAboveBottom[--rainDropSpritesAboveBottomCount];
+        rainDropSpritesAboveBottom[rainDropSpritesAboveBottomCount] = null;
+        return s;
+    }
 
-        if (!atLeastOneOfTheSpritesExistedInCollection) {
-            throw new IllegalArgumentException("None of the sprites exist in the ordered stack of rain drop sprites");
-        }
+    /**
+     * @return The number of RainDropSprites in the stack, including the bottommost RainDropSprite
+     */
+    public int size() {
+        return rainDropSpritesAboveBottomCount + 1;
     }
 
     /**
-     * Sets the RainDropCharacter each RainDropSprite has to the RainDropCharacter the sprite visually below it has. The
-     * bottommost RainDropSprite is given a new random RainDropCharacter.
+     * @param indexFromBottom
+     *         0 for the bottommost RainDropSprite, 1 for the one above it, and so on up to {@link #size()} - 1 for the
+     *         highest RainDropSprite visually
      */
-    public void transferRainDropCharactersUpwards() {
-        RainDropCharacter newCharacterToUse = RainDropCharacter.randomRainDropCharacter();
+    public RainDropSprite get(int indexFromBottom) {
+        return indexFromBottom == 0 ? bottomRainDropSprite :
+                rainDropSpritesAboveBottom[rainDropSpritesAboveBottomCount - indexFromBottom];
+    }
+
+    /**
+     * Sets the character each RainDropSprite has to the character the sprite visually below it has. The bottommost
+     * RainDropSprite is given a new random character of the passed set, chosen with the passed RainRandom.
+     */
+    public void transferRainDropCharactersUpwards(RainCharacterSet characterSet, RainRandom random) {
+        short newGlyphIndexToUse = characterSet.randomGlyphIndex(random);
         // Iterate through all RainDropSprites and transfer the rain drop character from one sprite to
-        // the sprite above it. First iteration will be the bottommost RainDropSprite as guaranteed by iterator() which
-        // will be updated with the initial random character.
-        for (RainDropSprite s : this) {
-            RainDropCharacter currentSpriteChar = s.getRainDropChar();
-            s.setRainDropChar(newCharacterToUse);
+        // the sprite above it. First iteration will be the bottommost RainDropSprite which will be updated with the
+        // initial random character.
+        for (int i = 0, size = size(); i < size; i++) {
+            RainDropSprite s = get(i);
+            short currentSpriteGlyphIndex = s.getGlyphIndex();
+            s.setGlyphIndex(newGlyphIndexToUse);
             // Let the next iteration use the old current rain drop char
-            newCharacterToUse = currentSpriteChar;
+            newGlyphIndexToUse = currentSpriteGlyphIndex;
+        }
+    }
+
+    /**
+     * Sets the rendering offset of every RainDropSprite.
+     */
+    public void setYCoordinateRenderingOffsets(int yRenderingOffset) {
+        bottomRainDropSprite.setYCoordinateRenderingOffset(yRenderingOffset);
+        for (int i = 0; i < rainDropSpritesAboveBottomCount; i++) {
+            rainDropSpritesAboveBottom[i].setYCoordinateRenderingOffset(yRenderingOffset);
         }
     }
 
@@ -108,6 +147,21 @@ class OrderedStackOfRainDropSprites implements Iterable<RainDropSprite> {
      */
     @Override
     public Iterator<RainDropSprite> iterator() {
-        return orderedStackOfRainDropSprites.descendingIterator();
+        return new Iterator<RainDropSprite>() {
+            private int nextIndexFromBottom;
+
+            @Override
+            public boolean hasNext() {
+                return nextIndexFromBottom < size();
+            }
+
+            @Override
+            public RainDropSprite next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(nextIndexFromBottom++);
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package org.jamesgames.digitalrain.rain;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * PersistentBufferRenderer draws a {@link CharacterGrid} by keeping the previously drawn frame in a back buffer, and
+ * only clearing and redrawing the cells of the buffer that differ from the grid drawn into it last time, like new
+ * bottom characters or characters that changed. The back buffer is then drawn in one image draw, so the number of draw
+ * calls per frame follows the number of changes rather than the number of RainDropSprites.
+ * <p>
+ * Animation offsets are applied per row. An offset function that shifts rows on top of each other can leave a cleared
+ * cell cutting into a neighbouring character until that character changes as well.
+ *
+ * @author James Murphy
+ */
+class PersistentBufferRenderer implements CharacterGridCellListener {
+    private final RainDropCharacterImageStore characterImageStore;
+    private final OffsetAnimationMap offsetAnimationMap;
+    private final CharacterGridRenderer cellLayout;
+
+    /**
+     * What has been drawn into the back buffer so far.
+     */
+    private final CharacterGrid gridInBackBuffer = new CharacterGrid();
+    private BufferedImage backBuffer;
+    private boolean offsetsAppliedInBackBuffer;
+    private Graphics2D backBufferGraphics;
+    private CharacterGrid gridBeingDrawn;
+    private int lastChangedCellCount;
+
+    PersistentBufferRenderer(RainDropCharacterImageStore characterImageStore, OffsetAnimationMap offsetAnimationMap,
+            CharacterGridRenderer cellLayout) {
+        this.characterImageStore = characterImageStore;
+        this.offsetAnimationMap = offsetAnimationMap;
+        this.cellLayout = cellLayout;
+    }
+
+    /**
+     * Brings the back buffer up to date with the passed grid and draws it.
+     *
+     * @param width
+     *         Width of the area the grid covers
+     * @param height
+     *         Height of the area the grid covers
+     */
+    void draw(Graphics2D g, CharacterGrid grid, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (backBuffer == null || backBuffer.getWidth() != width || backBuffer.getHeight() != height ||
+                offsetsAppliedInBackBuffer != offsetAnimationMap.isApplyingOffsets()) {
+            recreateBackBuffer(g, width, height);
+        }
+        gridBeingDrawn = grid;
+        lastChangedCellCount = grid.diff(gridInBackBuffer, this);
+        gridBeingDrawn = null;
+        gridInBackBuffer.copyFrom(grid);
+        g.drawImage(backBuffer, 0, 0, null);
+    }
+
+    /**
+     * @return Number of cells redrawn into the back buffer during the last draw
+     */
+    int getLastChangedCellCount() {
+        return lastChangedCellCount;
+    }
+
+    /**
+     * Releases the back buffer, the next draw creates a new one.
+     */
+    void discardBackBuffer() {
+        if (backBufferGraphics != null) {
+            backBufferGraphics.dispose();
+        }
+        backBuffer = null;
+        backBufferGraphics = null;
+    }
+
+    private void recreateBackBuffer(Graphics2D g, int width, int height) {
+        discardBackBuffer();
+        backBuffer = g.getDeviceConfiguration().createCompatibleImage(width, height, Transparency.OPAQUE);
+        backBufferGraphics = backBuffer.createGraphics();
+        backBufferGraphics.setColor(Color.BLACK);
+        backBufferGraphics.fillRect(0, 0, width, height);
+        offsetsAppliedInBackBuffer = offsetAnimationMap.isApplyingOffsets();
+        // Forget what was drawn, an empty grid has different dimensions so every cell is redrawn
+        gridInBackBuffer.reset(0, 0, new Color[]{Color.BLACK}, characterImageStore.getCharacterSet());
+    }
+
+    @Override
+    public void cellChanged(int column, int row, short glyphIndex, byte paletteIndex) {
+        int rowYCoordinate = cellLayout.getCellYCoordinate(row);
+        int drawingX = cellLayout.getCellXCoordinate(column) + offsetAnimationMap.getXOffset(rowYCoordinate);
+        int drawingY = rowYCoordinate + offsetAnimationMap.getYOffset(rowYCoordinate);
+        backBufferGraphics.setColor(Color.BLACK);
+        backBufferGraphics.fillRect(drawingX, drawingY, cellLayout.getCellWidth(), cellLayout.getCellHeight());
+        if (paletteIndex != CharacterGrid.emptyPaletteIndex) {
+            backBufferGraphics.drawImage(characterImageStore.getCharacterImage(gridBeingDrawn.getColor(paletteIndex),
+                    glyphIndex), drawingX, drawingY, null);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.jamesgames.digitalrain.rain;
+
+/**
+ * QualityLevel is an enum of how much work a {@link RainPaneSprite} does per frame, from everything at {@link #FULL} to
+ * the least work at the last level. Each level after FULL gives up everything the levels before it gave up, and then
+ * one more thing.
+ *
+ * @author James Murphy
+ */
+public enum QualityLevel {
+    FULL("Full", true, true, Integer.MAX_VALUE, 1),
+    /**
+     * Characters no longer change randomly over time.
+     */
+    NO_FLICKER("No flicker", false, true, Integer.MAX_VALUE, 1),
+    /**
+     * Offsets from the offset function are no longer applied.
+     */
+    NO_OFFSETS("No flicker or offsets", false, false, Integer.MAX_VALUE, 1),
+    /**
+     * RainLineSprites are given at most a few RainDropSprites as they are reset.
+     */
+    SHORT_LINES("Short lines", false, false, 24, 1),
+    /**
+     * Only every other column of RainLineSprites is active.
+     */
+    HALF_COLUMNS("Half of the columns", false, false, 24, 2);
+
+    private static final QualityLevel[] qualityLevels = values();
+
+    private final String description;
+    private final boolean flickering;
+    private final boolean applyingOffsets;
+    private final int maxRainDropsInLine;
+    private final int activeColumnInterval;
+
+    QualityLevel(String description, boolean flickering, boolean applyingOffsets, int maxRainDropsInLine,
+            int activeColumnInterval) {
+        this.description = description;
+        this.flickering = flickering;
+        this.applyingOffsets = applyingOffsets;
+        this.maxRainDropsInLine = maxRainDropsInLine;
+        this.activeColumnInterval = activeColumnInterval;
+    }
+
+    /**
+     * @return True if RainDropSprites change their characters randomly over time
+     */
+    public boolean isFlickering() {
+        return flickering;
+    }
+
+    /**
+     * @return True if offsets from the offset function are applied when drawing
+     */
+    public boolean isApplyingOffsets() {
+        return applyingOffsets;
+    }
+
+    /**
+     * @return Most RainDropSprites a RainLineSprite is given when it's reset
+     */
+    public int getMaxRainDropsInLine() {
+        return maxRainDropsInLine;
+    }
+
+    /**
+     * @return Only one column out of every this many columns of RainLineSprites is active
+     */
+    public int getActiveColumnInterval() {
+        return activeColumnInterval;
+    }
+
+    /**
+     * @return The level doing less work than this one, or this level if there is none
+     */
+    public QualityLevel lower() {
+        return qualityLevels[Math.min(ordinal() + 1, qualityLevels.length - 1)];
+    }
+
+    /**
+     * @return The level doing more work than this one, or this level if there is none
+     */
+    public QualityLevel higher() {
+        return qualityLevels[Math.max(ordinal() - 1, 0)];
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
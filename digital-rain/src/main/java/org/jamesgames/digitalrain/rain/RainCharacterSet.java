@@ -0,0 +1,149 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.Immutable;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RainCharacterSet is the set of characters a scene of digital rain draws its rain drops with. Each character is
+ * referred to by its glyph index, its position in the set, which is what {@link CharacterGrid}s and snapshots store. A
+ * character may appear more than once in a set to make it come up more often.
+ *
+ * @author James Murphy
+ */
+@Immutable
+public final class RainCharacterSet {
+    /**
+     * Glyph indices are stored as shorts, which limits how many characters a set can have.
+     */
+    public static final int maxCharacterCount = Short.MAX_VALUE + 1;
+
+    /**
+     * Half-width katakana and a few digits, the characters digital rain has always been drawn with.
+     */
+    public static final RainCharacterSet halfWidthKatakana = new RainCharacterSet("Half-width katakana",
+            "\uFF61\uFF62\uFF63\uFF64\uFF65\uFF66\uFF67\uFF68\uFF69\uFF6A\uFF6B\uFF6C\uFF6D\uFF6D\uFF6E\uFF6F" +
+                    "\uFF71\uFF72\uFF73\uFF74\uFF75\uFF76\uFF77\uFF78\uFF79\uFF7A\uFF7B\uFF7C\uFF7D\uFF7D\uFF7E\uFF7F" +
+                    "\uFF81\uFF82\uFF83\uFF84\uFF85\uFF86\uFF87\uFF88\uFF89\uFF8A\uFF8B\uFF8C\uFF8D\uFF8D\uFF8E\uFF8F" +
+                    "\uFF91\uFF92\uFF93\uFF94\uFF95\uFF96\uFF97\uFF98\uFF99\uFF9A\uFF9B\uFF9C\uFF9D\uFF9E\uFF9F" +
+                    "078");
+    public static final RainCharacterSet fullWidthKatakana =
+            fromCharacterRange("Full-width katakana", '\u30A1', '\u30FA');
+    public static final RainCharacterSet cjkUnifiedIdeographs =
+            fromCharacterRange("CJK unified ideographs", '\u4E00', '\u9FFF');
+    public static final RainCharacterSet latinLettersAndDigits = new RainCharacterSet("Latin letters and digits",
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789");
+
+    private static final List<RainCharacterSet> builtInCharacterSets = Collections.unmodifiableList(Arrays.asList(
+            halfWidthKatakana, fullWidthKatakana, cjkUnifiedIdeographs, latinLettersAndDigits));
+
+    private final String name;
+    private final String characters;
+
+    /**
+     * @param characters
+     *         The characters of the set, in glyph index order
+     */
+    public RainCharacterSet(String name, String characters) {
+        if (characters.isEmpty() || characters.length() > maxCharacterCount) {
+            throw new IllegalArgumentException("A character set needs between 1 and " + maxCharacterCount +
+                    " characters (" + characters.length() + " were supplied)");
+        }
+        this.name = name;
+        this.characters = characters;
+    }
+
+    /**
+     * @return A set of every character from the first to the last character, inclusive
+     */
+    public static RainCharacterSet fromCharacterRange(String name, char firstCharacter, char lastCharacter) {
+        StringBuilder characters = new StringBuilder(Math.max(0, lastCharacter - firstCharacter + 1));
+        // Counted with an int, as a char would wrap around and never pass a last character of '\uFFFF'
+        for (int character = firstCharacter; character <= lastCharacter; character++) {
+            characters.append((char) character);
+        }
+        return new RainCharacterSet(name, characters.toString());
+    }
+
+    /**
+     * @return The character sets that come with digital rain
+     */
+    public static List<RainCharacterSet> getBuiltInCharacterSets() {
+        return builtInCharacterSets;
+    }
+
+    /**
+     * @return This set without the characters the passed font can't display, or this set itself if the font can
+     * display all of them
+     * @throws IllegalArgumentException
+     *         If the font can't display any of the characters
+     */
+    public RainCharacterSet displayableWith(Font font) {
+        StringBuilder displayableCharacters = new StringBuilder(characters.length());
+        for (int i = 0; i < characters.length(); i++) {
+            if (font.canDisplay(characters.charAt(i))) {
+                displayableCharacters.append(characters.charAt(i));
+            }
+        }
+        if (displayableCharacters.length() == characters.length()) {
+            return this;
+        }
+        if (displayableCharacters.length() == 0) {
+            throw new IllegalArgumentException(
+                    "The font " + font.getFontName() + " can't display any character of the set " + name);
+        }
+        return new RainCharacterSet(name, displayableCharacters.toString());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Every character of the set, in glyph index order
+     */
+    public String getCharacters() {
+        return characters;
+    }
+
+    public int size() {
+        return characters.length();
+    }
+
+    public char getCharacter(int glyphIndex) {
+        return characters.charAt(glyphIndex);
+    }
+
+    /**
+     * @return The glyph index of a random character, chosen with the passed RainRandom, which should belong to the
+     * RainLineSprite asking as RainLineSprites may be updated on several threads at once
+     */
+    short randomGlyphIndex(RainRandom random) {
+        return (short) random.nextInt(characters.length());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RainCharacterSet that = (RainCharacterSet) o;
+        return name.equals(that.name) && characters.equals(that.characters);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + characters.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
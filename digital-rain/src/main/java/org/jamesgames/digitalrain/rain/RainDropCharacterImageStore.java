@@ -1,22 +1,28 @@
 package org.jamesgames.digitalrain.rain;
 
 import net.jcip.annotations.ThreadSafe;
+import org.jamesgames.digitalrain.jfr.GlyphRasterizationEvent;
 import org.jamesgames.jamesjavautils.graphics.Drawable;
-import org.jamesgames.jamesjavautils.graphics.image.ImageCreator;
-import org.jamesgames.jamesjavautils.graphics.image.ImageDescription;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
- * RainDropCharacterImageStore creates and stores images that have rendered characters from the enum {@link
- * org.jamesgames.digitalrain.rain.RainDropCharacter} rendered on, and could potentially (but not yet) store any other
- * useful images related to a specific color and character from RainDropCharacter. Objects of
- * RainDropCharacterImageStore are queried for certain images by supplying a RainDropCharacter and color.
+ * RainDropCharacterImageStore creates and stores images that have the characters of a {@link RainCharacterSet}
+ * rendered on, in each of the rain colors, along with a color independent alpha mask of each character. Objects of
+ * RainDropCharacterImageStore are queried for certain images by supplying a glyph index and color. Images are created
+ * compatible with the GraphicsConfiguration they're going to be drawn to, so drawing them on that device needs no
+ * conversion. Without a GraphicsConfiguration (like when there's no display at all) plain ARGB images are created.
+ * <p>
+ * Small character sets (like the katakana and latin sets) are kept whole in a {@link DenseGlyphTable} per color, all
+ * rasterized up front, so looking up an image while drawing takes no lock and allocates nothing. Larger sets (like the
+ * CJK ideographs) are kept in bounded least recently used caches instead, sized by the number of colors, so they can be
+ * used without rasterizing every character in every color. Either way a glyph is rasterized without holding any lock.
  *
  * @author James Murphy
  */
@@ -24,15 +30,62 @@ import java.util.Set;
 class RainDropCharacterImageStore {
 
     private static final int largestAssumeFontWidthAndHeight = 100;
+    /**
+     * Most characters a set can have to be kept whole in DenseGlyphTables rather than in GlyphCaches.
+     */
+    private static final int maxDenseCharacterSetSize = 1024;
 
-    private final Map<Color, Map<RainDropCharacter, Image>> rainDropCharacterImageStore = new HashMap<>();
+    /**
+     * Every rain color, where the position of a color is the index of its tables and the high bits of its cache keys.
+     */
+    private final Color[] rainDropColors;
+    private final RainCharacterSet characterSet;
+    private final GraphicsConfiguration graphicsConfiguration;
+    private final boolean keepingCharacterSetWhole;
+    /**
+     * Character images of each rain color, in the order of rainDropColors, empty unless keeping the set whole.
+     */
+    private final List<DenseGlyphTable<Image>> denseCharacterImages;
+    private final DenseGlyphTable<byte[]> denseGlyphAlphaMasks;
+    /**
+     * Character images and masks of character sets too large to keep whole.
+     */
+    private final GlyphCache<Image> characterImages;
+    private final GlyphCache<byte[]> glyphAlphaMasks;
 
     private final int fontHeight;
     private final int fontWidth;
+    private final Font font;
 
-    public RainDropCharacterImageStore(Set<Color> rainDropColors, Color lastRainDropInRainDropLineColor, Font font) {
-        Set<Color> localRainColorSet = new HashSet<>(rainDropColors);
+    /**
+     * @param characterSet
+     *         Characters to create images of, which should only hold characters the font can display
+     * @param glyphCacheCapacityPerColor
+     *         Most character images of each color, and most alpha masks, kept at once for a character set too large to
+     *         keep whole
+     */
+    public RainDropCharacterImageStore(Set<Color> rainDropColors, Color lastRainDropInRainDropLineColor, Font font,
+            RainCharacterSet characterSet, GraphicsConfiguration graphicsConfiguration,
+            int glyphCacheCapacityPerColor) {
+        GlyphRasterizationEvent rasterizationEvent = new GlyphRasterizationEvent();
+        rasterizationEvent.begin();
+        this.font = font;
+        this.characterSet = characterSet;
+        this.graphicsConfiguration = graphicsConfiguration;
+        Set<Color> localRainColorSet = new LinkedHashSet<>(rainDropColors);
         localRainColorSet.add(lastRainDropInRainDropLineColor);
+        this.rainDropColors = localRainColorSet.toArray(new Color[0]);
+        this.keepingCharacterSetWhole = characterSet.size() <= maxDenseCharacterSetSize;
+        List<DenseGlyphTable<Image>> localDenseCharacterImages = new ArrayList<>();
+        if (keepingCharacterSetWhole) {
+            for (int i = 0; i < this.rainDropColors.length; i++) {
+                localDenseCharacterImages.add(new DenseGlyphTable<>(characterSet.size()));
+            }
+        }
+        this.denseCharacterImages = Collections.unmodifiableList(localDenseCharacterImages);
+        this.denseGlyphAlphaMasks = new DenseGlyphTable<>(keepingCharacterSetWhole ? characterSet.size() : 0);
+        this.characterImages = new GlyphCache<>(glyphCacheCapacityPerColor * this.rainDropColors.length);
+        this.glyphAlphaMasks = new GlyphCache<>(glyphCacheCapacityPerColor);
 
         /*
          * Calculates and sets the new width and height of the font. This however assumes that the font width and height
@@ -42,70 +95,200 @@ class RainDropCharacterImageStore {
          * system DPI scaling through accessibility settings. It's a lot simpler to create the font sizes initially in
          * one place and pass that info on.
          */
-        GraphicsConfiguration defaultConfiguration = GraphicsEnvironment
-                .getLocalGraphicsEnvironment().getDefaultScreenDevice()
-                .getDefaultConfiguration();
-        BufferedImage createdImage = defaultConfiguration
-                .createCompatibleImage(largestAssumeFontWidthAndHeight, largestAssumeFontWidthAndHeight,
-                        Transparency.OPAQUE);
+        BufferedImage createdImage = createImage(graphicsConfiguration, largestAssumeFontWidthAndHeight,
+                largestAssumeFontWidthAndHeight, Transparency.OPAQUE);
         FontMetrics metrics = createdImage.getGraphics().getFontMetrics(font);
         this.fontWidth = metrics.stringWidth("" + 'A');
         this.fontHeight = metrics.getAscent() - metrics.getDescent();
 
-        // Create the images after knowing the font width and height
-        ImageCreator imageCreator = new ImageCreator();
-        for (Color color : localRainColorSet) {
-
-            // Internal map in character image store to use for this color
-            Map<RainDropCharacter, Image> internalCharacterImageMap = new HashMap<>();
-            rainDropCharacterImageStore.put(color, internalCharacterImageMap);
-            // Loop through all characters and add an image representing each character to the internal map
-            for (RainDropCharacter character : RainDropCharacter.values()) {
-                Drawable rainDropGraphics =
-                        new DrawableRainDrop(color, character.getCharacter(), font, fontHeight);
-                Image characterImage = imageCreator.createImage(
-                        new ImageDescription(rainDropGraphics, fontWidth, fontHeight,
-                                Transparency.TRANSLUCENT)
-                );
-                internalCharacterImageMap.put(character, characterImage);
+        // Small character sets are rasterized up front, as they would all end up rasterized soon enough anyway
+        int rasterizedGlyphCount = 0;
+        if (keepingCharacterSetWhole) {
+            for (Color color : this.rainDropColors) {
+                for (int glyphIndex = 0; glyphIndex < characterSet.size(); glyphIndex++) {
+                    getCharacterImage(color, (short) glyphIndex);
+                    rasterizedGlyphCount++;
+                }
             }
+            for (int glyphIndex = 0; glyphIndex < characterSet.size(); glyphIndex++) {
+                getGlyphAlphaMask((short) glyphIndex);
+            }
+        }
+
+        rasterizationEvent.end();
+        if (rasterizationEvent.shouldCommit()) {
+            rasterizationEvent.fontName = font.getFontName();
+            rasterizationEvent.fontSize = font.getSize();
+            rasterizationEvent.colorCount = this.rainDropColors.length;
+            rasterizationEvent.glyphCount = rasterizedGlyphCount;
+            rasterizationEvent.glyphWidth = fontWidth;
+            rasterizationEvent.glyphHeight = fontHeight;
+            rasterizationEvent.approximateImageBytes = getApproximateImageMemoryInBytes();
+            rasterizationEvent.commit();
+        }
+    }
+
+    /**
+     * @param graphicsConfiguration
+     *         Configuration to create a compatible image for, or null for a plain ARGB image
+     */
+    private static BufferedImage createImage(GraphicsConfiguration graphicsConfiguration, int width, int height,
+            int transparency) {
+        if (graphicsConfiguration == null) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        return graphicsConfiguration.createCompatibleImage(width, height, transparency);
+    }
+
+    /**
+     * @return Image with the character of the passed glyph index drawn in it with the specified color, where the color
+     * should have been represented during the construction of the RainDropCharacterImageStore.
+     */
+    public Image getCharacterImage(Color rainDropColor, short glyphIndex) {
+        int colorIndex = indexOfColor(rainDropColor);
+        if (keepingCharacterSetWhole) {
+            DenseGlyphTable<Image> images = denseCharacterImages.get(colorIndex);
+            Image image = images.get(glyphIndex);
+            return image != null ? image : images.store(glyphIndex, rasterizeCharacterImage(rainDropColor, glyphIndex));
+        }
+        // The color and glyph index together identify an image
+        long key = ((long) colorIndex << 16) | (glyphIndex & 0xFFFF);
+        return characterImages.get(key, k -> rasterizeCharacterImage(rainDropColor, glyphIndex));
+    }
 
+    /**
+     * @return Position of the passed color in rainDropColors, there are only a handful of colors so they're searched
+     * through rather than hashed
+     */
+    private int indexOfColor(Color rainDropColor) {
+        for (int i = 0; i < rainDropColors.length; i++) {
+            if (rainDropColors[i] == rainDropColor || rainDropColors[i].equals(rainDropColor)) {
+                return i;
+            }
         }
+        throw new IllegalArgumentException("No character image found with the supplied color: " + rainDropColor);
+    }
+
+    private Image rasterizeCharacterImage(Color rainDropColor, short glyphIndex) {
+        BufferedImage characterImage =
+                createImage(graphicsConfiguration, fontWidth, fontHeight, Transparency.TRANSLUCENT);
+        Graphics2D characterGraphics = characterImage.createGraphics();
+        new DrawableRainDrop(rainDropColor, characterSet.getCharacter(glyphIndex), font, fontHeight)
+                .draw(characterGraphics);
+        characterGraphics.dispose();
+        return characterImage;
     }
 
     /**
-     * @return Image with the passed character drawn in it with the specified color, where both arguments should have
-     * been represented during the construction of the RainDropCharacterImageStore.
+     * @return The coverage of every pixel of the character of the passed glyph index as drawn in this store's font, row
+     * by row, where 0 is not covered and 255 (as an unsigned byte) is fully covered. Each mask is {@link
+     * #getFontWidth()} by {@link #getFontHeight()} pixels and independent of color, so it can be composited in any
+     * color.
      */
-    public synchronized Image getCharacterImage(Color rainDropColor, RainDropCharacter character) {
-        Map<RainDropCharacter, Image> internalCharacterImageMap = rainDropCharacterImageStore.get(rainDropColor);
-        if (internalCharacterImageMap == null) {
-            throw new IllegalArgumentException("No character image found with the supplied color: " + rainDropColor);
+    public byte[] getGlyphAlphaMask(short glyphIndex) {
+        if (keepingCharacterSetWhole) {
+            byte[] mask = denseGlyphAlphaMasks.get(glyphIndex);
+            return mask != null ? mask : denseGlyphAlphaMasks.store(glyphIndex, rasterizeGlyphAlphaMask(glyphIndex));
         }
-        Image charImage = internalCharacterImageMap.get(character);
-        if (charImage == null) {
-            throw new IllegalArgumentException(
-                    "No character image found with the supplied RainDropCharacter: " + rainDropColor);
+        return glyphAlphaMasks.get(glyphIndex, k -> rasterizeGlyphAlphaMask(glyphIndex));
+    }
+
+    private byte[] rasterizeGlyphAlphaMask(short glyphIndex) {
+        // Each mask is drawn in its own image, as masks can be rasterized by several threads at once
+        BufferedImage maskImage =
+                new BufferedImage(Math.max(fontWidth, 1), Math.max(fontHeight, 1), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D maskGraphics = maskImage.createGraphics();
+        new DrawableRainDrop(Color.WHITE, characterSet.getCharacter(glyphIndex), font, fontHeight).draw(maskGraphics);
+        maskGraphics.dispose();
+        int[] maskPixels = maskImage.getRGB(0, 0, fontWidth, fontHeight, null, 0, fontWidth);
+        byte[] mask = new byte[maskPixels.length];
+        for (int i = 0; i < maskPixels.length; i++) {
+            mask[i] = (byte) (maskPixels[i] >>> 24);
         }
-        return charImage;
+        return mask;
+    }
+
+    public RainCharacterSet getCharacterSet() {
+        return characterSet;
     }
 
+    public Font getFont() {
+        return font;
+    }
 
-    public synchronized int getFontHeight() {
+    public int getFontHeight() {
         return fontHeight;
     }
 
-    public synchronized int getFontWidth() {
+    public int getFontWidth() {
         return fontWidth;
     }
 
+    /**
+     * @return Approximate number of bytes used by the character images and masks currently cached, assuming
+     * translucent images are stored with four bytes per pixel
+     */
+    public long getApproximateImageMemoryInBytes() {
+        return ((long) getCachedCharacterImageCount() * 4 + getCachedGlyphAlphaMaskCount()) * fontWidth * fontHeight;
+    }
+
+    private int getCachedCharacterImageCount() {
+        int count = characterImages.getSize();
+        for (DenseGlyphTable<Image> table : denseCharacterImages) {
+            count += table.getSize();
+        }
+        return count;
+    }
+
+    private int getCachedGlyphAlphaMaskCount() {
+        return glyphAlphaMasks.getSize() + denseGlyphAlphaMasks.getSize();
+    }
+
+    /**
+     * @return Number of character images and masks currently cached
+     */
+    public int getCachedGlyphCount() {
+        return getCachedCharacterImageCount() + getCachedGlyphAlphaMaskCount();
+    }
+
+    /**
+     * @return Number of times a cached character image or mask was asked for
+     */
+    public long getGlyphCacheHitCount() {
+        long count = characterImages.getHitCount() + glyphAlphaMasks.getHitCount() + denseGlyphAlphaMasks.getHitCount();
+        for (DenseGlyphTable<Image> table : denseCharacterImages) {
+            count += table.getHitCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of times a character image or mask had to be rasterized as it wasn't cached
+     */
+    public long getGlyphCacheMissCount() {
+        long count =
+                characterImages.getMissCount() + glyphAlphaMasks.getMissCount() + denseGlyphAlphaMasks.getMissCount();
+        for (DenseGlyphTable<Image> table : denseCharacterImages) {
+            count += table.getMissCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of character images and masks evicted from their caches to make room for others, which only
+     * happens to character sets too large to keep whole
+     */
+    public long getGlyphCacheEvictionCount() {
+        return characterImages.getEvictionCount() + glyphAlphaMasks.getEvictionCount();
+    }
+
     private static class DrawableRainDrop implements Drawable {
         private final Color rainColor;
-        private final Character rainDropChar;
+        private final char rainDropChar;
         private final Font font;
         private final int fontHeight;
 
-        private DrawableRainDrop(Color rainColor, Character rainDropChar, Font font, int fontHeight) {
+        private DrawableRainDrop(Color rainColor, char rainDropChar, Font font, int fontHeight) {
             this.rainColor = rainColor;
             this.rainDropChar = rainDropChar;
             this.font = font;
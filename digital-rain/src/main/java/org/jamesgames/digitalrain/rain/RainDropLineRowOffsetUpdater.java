@@ -15,21 +15,30 @@ class RainDropLineRowOffsetUpdater {
     private final RainDropSprite exampleRainDropSpriteBeingUsed;
     private final OrderedStackOfRainDropSprites orderedStackOfRainDropSprites;
     private final int unitsFromOneRowToAnother;
+    private final RainCharacterSet characterSet;
+    private final RainRandom random;
 
     /**
      * Constructs a RainDropLineRowOffsetUpdater.
      *
      * @param exampleRainDropSprite
      *         RainDropSprite that is used to compare it's old rendering offset to a new one, in order to know when all
-     *         other RainDropSprites should be moved to another row and have their RainDropCharacter transfer between
+     *         other RainDropSprites should be moved to another row and have their characters transfer between
      *         them. This should be a sprite that is always used (having it's position updated)
      * @param orderedStackOfRainDropSprites
      *         The RainDropSprites that are within a specific RainLineSprite.
      * @param unitsFromOneRowToAnother
      *         The number of units that separate one row that a RainDropSprite is rendered on to another.
+     * @param characterSet
+     *         Characters to pick from for the bottommost RainDropSprite
+     * @param random
+     *         Random number generator of the RainLineSprite, used to pick characters for the bottommost RainDropSprite
      */
     RainDropLineRowOffsetUpdater(RainDropSprite exampleRainDropSprite,
-            OrderedStackOfRainDropSprites orderedStackOfRainDropSprites, int unitsFromOneRowToAnother) {
+            OrderedStackOfRainDropSprites orderedStackOfRainDropSprites, int unitsFromOneRowToAnother,
+            RainCharacterSet characterSet, RainRandom random) {
+        this.characterSet = characterSet;
+        this.random = random;
         this.exampleRainDropSpriteBeingUsed = exampleRainDropSprite;
         this.orderedStackOfRainDropSprites = orderedStackOfRainDropSprites;
         this.unitsFromOneRowToAnother = unitsFromOneRowToAnother;
@@ -38,7 +47,7 @@ class RainDropLineRowOffsetUpdater {
     private int lastDrawingYCoordinateOfBottomRainDropSprite;
 
     /**
-     * Updates the rendering offset for each RainDropSprite, and potentially moves the RainDropCharacter from one
+     * Updates the rendering offset for each RainDropSprite, and potentially moves the character from one
      * RainDropSprite to another if the RainDropSprites were determined to be drawn on a row different than the last row
      * they were drawn to.
      *
@@ -46,10 +55,15 @@ class RainDropLineRowOffsetUpdater {
      *         The y coordinate location of the RainDropSpriteLine, used to compute offsets, as the RainDropSpriteLine
      *         has a velocity and actually moves, not the individual RainDropSprites who have a stationary position
      *         within the RainDropSpriteLine.
+     * @param yDrawingCoordinateOfRainLineSprite
+     *         The y drawing coordinate of the RainDropSpriteLine, passed in so the drawing coordinate of a
+     *         RainDropSprite can be found without querying the parents of the RainDropSpriteLine.
      */
-    public void updateRowOffsetsAndTransferCharsUpwardsIfNeeded(float yCoordinateTopLeftOfRainLineSprite) {
+    public void updateRowOffsetsAndTransferCharsUpwardsIfNeeded(float yCoordinateTopLeftOfRainLineSprite,
+            int yDrawingCoordinateOfRainLineSprite) {
         int oldOffset = exampleRainDropSpriteBeingUsed.getYCoordinateRenderingOffset();
-        int currentYCoordinate = exampleRainDropSpriteBeingUsed.getYDrawingCoordinateTopLeft();
+        int currentYCoordinate =
+                yDrawingCoordinateOfRainLineSprite + exampleRainDropSpriteBeingUsed.getRoundedYCoordinateTopLeft();
 
         updateRainDropSpriteRenderingOffsets(yCoordinateTopLeftOfRainLineSprite);
 
@@ -59,13 +73,46 @@ class RainDropLineRowOffsetUpdater {
             for (int transferCount = calculateHowManyRowsSpritesMoved(oldOffset, currentOffset,
                     lastDrawingYCoordinateOfBottomRainDropSprite, currentYCoordinate); transferCount > 0;
                  transferCount--) {
-                orderedStackOfRainDropSprites.transferRainDropCharactersUpwards();
+                orderedStackOfRainDropSprites.transferRainDropCharactersUpwards(characterSet, random);
             }
         }
 
         lastDrawingYCoordinateOfBottomRainDropSprite = currentYCoordinate;
     }
 
+    /**
+     * Updates the rendering offset for each RainDropSprite without transferring any characters, and takes the
+     * current position as the row the RainDropSprites were last drawn on. Used when updates were skipped for a while
+     * (like while the RainLineSprite was out of view), so the skipped rows are not caught up on all at once.
+     *
+     * @param yCoordinateTopLeftOfRainLineSprite
+     *         The y coordinate location of the RainDropSpriteLine
+     * @param yDrawingCoordinateOfRainLineSprite
+     *         The y drawing coordinate of the RainDropSpriteLine
+     */
+    public void resynchronizeRowOffsets(float yCoordinateTopLeftOfRainLineSprite,
+            int yDrawingCoordinateOfRainLineSprite) {
+        updateRainDropSpriteRenderingOffsets(yCoordinateTopLeftOfRainLineSprite);
+        lastDrawingYCoordinateOfBottomRainDropSprite =
+                yDrawingCoordinateOfRainLineSprite + exampleRainDropSpriteBeingUsed.getRoundedYCoordinateTopLeft();
+    }
+
+    /**
+     * @return The y drawing coordinate of the bottommost RainDropSprite as of the last update, saved in snapshots
+     */
+    int getLastDrawingYCoordinateOfBottomRainDropSprite() {
+        return lastDrawingYCoordinateOfBottomRainDropSprite;
+    }
+
+    /**
+     * Sets the rendering offset of each RainDropSprite and the y drawing coordinate the bottommost RainDropSprite was
+     * last drawn at to values saved in a snapshot.
+     */
+    void restoreRowOffsets(int yRenderingOffset, int lastDrawingYCoordinateOfBottomRainDropSprite) {
+        orderedStackOfRainDropSprites.setYCoordinateRenderingOffsets(yRenderingOffset);
+        this.lastDrawingYCoordinateOfBottomRainDropSprite = lastDrawingYCoordinateOfBottomRainDropSprite;
+    }
+
     /**
      * Computes how many units a RainDropSprite should draw itself off from it's real y coordinate location, and saves
      * that value to each RainDropSprite. Rendering at a y coordinate location plus offset causes the RainDropSprite to
@@ -76,9 +123,7 @@ class RainDropLineRowOffsetUpdater {
         // Negate the method call, only want to render the sprites until they reach
         // the next row or are past it
         int yRenderingOffset = -calculateUnitsUntilRainDropSpritesAreOnNewRow(yCoordinateTopLeftOfRainLineSprite);
-        for (RainDropSprite s : orderedStackOfRainDropSprites) {
-            s.setYCoordinateRenderingOffset(yRenderingOffset);
-        }
+        orderedStackOfRainDropSprites.setYCoordinateRenderingOffsets(yRenderingOffset);
     }
 
     /**
@@ -1,47 +1,46 @@
 package org.jamesgames.digitalrain.rain;
 
-import net.jcip.annotations.ThreadSafe;
+import net.jcip.annotations.NotThreadSafe;
 import org.jamesgames.easysprite.Sprite;
-import org.jamesgames.jamesjavautils.time.ElapsedTimeTimer;
 
-import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
- * A RainDropSprite is a {@link org.jamesgames.easysprite.Sprite} that renders a special character. Note that the
- * special character rendered is a character represented by the package encapsulated enum of {@link
- * org.jamesgames.digitalrain.rain.RainDropCharacter}, if one wants to change what characters are rendered by
- * RainDropSprites that would be the enum to change. A potential useful update in the future is to have some kind of
- * ability to supply the characters one wishes to draw.
+ * A RainDropSprite is a {@link org.jamesgames.easysprite.Sprite} that holds a special character, one of the
+ * characters of the {@link RainCharacterSet} of its character image store, which it refers to by glyph index. It isn't
+ * a child sprite of the {@link RainLineSprite} it's in, the RainLineSprite updates it directly and adds it to the
+ * frames its parent pane draws, passing in its own drawing coordinates and color, so RainDropSprites can be added to
+ * and removed from a RainLineSprite (or recolored along with it) without touching each one.
+ * <p>
+ * A RainDropSprite is only changed and read by the thread updating the {@link RainPaneSprite} containing it, drawing
+ * only reads the frames compiled from it.
  *
  * @author James Murphy
  */
-@ThreadSafe
+@NotThreadSafe
 class RainDropSprite extends Sprite {
 
-    private static final long initialShortWaitTimeForCharChangeInMS = 0;
+    private static final long initialShortestWaitTimeForCharChangeInMS = 0;
     private static final long shortestWaitTimeForCharChangeInMS = 1000;
     private static final long longestWaitTimeForCharChangeInMS = 5000;
 
     /**
-     * Holds the various images that match to a RainDropCharacter that this sprite will use to draw it's
-     * RainDropCharacter.
+     * The characters this sprite chooses from.
      */
-    private final RainDropCharacterImageStore characterImageStore;
+    private final RainCharacterSet characterSet;
 
     /**
-     * Timer to keep track of when the sprite should change what RainDropCharacter it renders.
+     * Time left until the sprite changes what character it renders, kept as a plain field (rather than a timer
+     * object) so it can be saved in and restored from a snapshot. Only touched by the updating thread.
      */
-    private final ElapsedTimeTimer timerToChangeLetterRandomly;
+    private long timeUntilCharacterChangeInMilliseconds;
 
     /**
-     * The color used to render this RainDropCharacter
+     * Glyph index of the character this sprite will render
      */
-    private Color rainDropColor;
-
-    /**
-     * The RainDropCharacter this sprite will render
-     */
-    private RainDropCharacter rainDropChar;
+    private short glyphIndex;
 
     /**
      * Used to modify the y coordinate drawing position of this RainDropSprite. The RainDropSprite will be drawn at it's
@@ -50,97 +49,119 @@ class RainDropSprite extends Sprite {
     private int yCoordinateRenderingOffset;
 
     /**
-     * Used to modify the x and y coordinate drawing position of a RainDropSprite (offsets retrieved are based on the y
-     * drawing coordinate of the Sprite
+     * Settings of how the parent pane renders, which decide whether this sprite's character changes over time.
      */
-    private final OffsetAnimationMap offsetAnimationMap;
+    private final RainRenderSettings renderSettings;
 
 
     /**
-     * @param rainDropColor
-     *         Color of the rain
      * @param fontWidth
      *         Width of the font, which also is used as the width of the sprite
      * @param fontHeight
      *         Height of the font, which is also used as the height of the sprite
      * @param characterImageStore
-     *         Object to query backdrop and character images from
-     * @param offsetAnimationMap
-     *         Object to query x and y render animation offsets from
+     *         Object to query the characters to choose from
+     * @param renderSettings
+     *         Settings of how the parent pane renders
      */
-    public RainDropSprite(Color rainDropColor, int fontWidth, int fontHeight,
-            RainDropCharacterImageStore characterImageStore, OffsetAnimationMap offsetAnimationMap) {
+    public RainDropSprite(int fontWidth, int fontHeight,
+            RainDropCharacterImageStore characterImageStore, RainRenderSettings renderSettings) {
         super(fontWidth, fontHeight);
-        this.characterImageStore = characterImageStore;
-        this.rainDropColor = rainDropColor;
-        this.offsetAnimationMap = offsetAnimationMap;
-        this.timerToChangeLetterRandomly =
-                new ElapsedTimeTimer(initialShortWaitTimeForCharChangeInMS, longestWaitTimeForCharChangeInMS);
-        setRainDropCharToRandomValidChar();
+        this.characterSet = characterImageStore.getCharacterSet();
+        this.renderSettings = renderSettings;
     }
 
-    public synchronized int getYCoordinateRenderingOffset() {
-        return yCoordinateRenderingOffset;
+    /**
+     * Gives this sprite a random character and a random time until it changes, done whenever the sprite is put into
+     * use in a RainLineSprite. Random choices are only made here and while updating, never while constructing, so the
+     * random number generator is used the same way whether or not a cached sprite was available.
+     *
+     * @param random
+     *         Random number generator of the RainLineSprite putting this sprite into use
+     */
+    void resetCharacterAndTimer(RainRandom random) {
+        setRainDropCharToRandomValidChar(random);
+        timeUntilCharacterChangeInMilliseconds =
+                randomWaitTimeForCharChangeInMilliseconds(random, initialShortestWaitTimeForCharChangeInMS);
     }
 
-    public synchronized void setYCoordinateRenderingOffset(int yCoordinateRenderingOffset) {
-        this.yCoordinateRenderingOffset = yCoordinateRenderingOffset;
+    private static long randomWaitTimeForCharChangeInMilliseconds(RainRandom random, long shortestWaitTimeInMS) {
+        return shortestWaitTimeInMS + random.nextInt((int) (longestWaitTimeForCharChangeInMS - shortestWaitTimeInMS));
     }
 
-    public synchronized RainDropCharacter getRainDropChar() {
-        return rainDropChar;
+    public int getYCoordinateRenderingOffset() {
+        return yCoordinateRenderingOffset;
     }
 
-    public synchronized void setRainDropChar(RainDropCharacter rainDropChar) {
-        this.rainDropChar = rainDropChar;
+    public void setYCoordinateRenderingOffset(int yCoordinateRenderingOffset) {
+        this.yCoordinateRenderingOffset = yCoordinateRenderingOffset;
     }
 
-    public synchronized void setRainDropColor(Color rainDropColor) {
-        this.rainDropColor = rainDropColor;
+    public short getGlyphIndex() {
+        return glyphIndex;
     }
 
-    private void setRainDropCharToRandomValidChar() {
-        rainDropChar = RainDropCharacter.randomRainDropCharacter();
+    public void setGlyphIndex(short glyphIndex) {
+        this.glyphIndex = glyphIndex;
     }
 
-    private void updateTimerToChangeLetterRandomly(long elapsedTimeInMilliseconds) {
-        timerToChangeLetterRandomly.addElapsedTimeInMilliseconds(elapsedTimeInMilliseconds);
-        if (timerToChangeLetterRandomly.isTimerFinished()) {
-            // Time to change the rain drop char to another random character!
-            setRainDropCharToRandomValidChar();
-            timerToChangeLetterRandomly.resetElapsedTimeToTimePastCurrentTarget();
-            timerToChangeLetterRandomly.resetTargetTimeToRandomTimeSpecifiedInMilliseconds(
-                    shortestWaitTimeForCharChangeInMS,
-                    longestWaitTimeForCharChangeInMS);
-        }
+    private void setRainDropCharToRandomValidChar(RainRandom random) {
+        glyphIndex = characterSet.randomGlyphIndex(random);
     }
 
-    @Override
-    public synchronized void updateBeforeChildren(long elapsedTimeInMilliseconds) {
-        updateTimerToChangeLetterRandomly(elapsedTimeInMilliseconds);
+    /**
+     * Writes the character and the time left until it changes, everything else is restored by the RainLineSprite
+     * containing this sprite.
+     */
+    void writeSnapshot(DataOutput out) throws IOException {
+        out.writeShort(glyphIndex);
+        out.writeShort((int) Math.max(0, Math.min(timeUntilCharacterChangeInMilliseconds, Short.MAX_VALUE)));
     }
 
-    @Override
-    public synchronized void drawUnderChildren(Graphics2D g) {
-        Graphics2D spriteGraphics = (Graphics2D) g.create();
-
-        int drawingY = getYDrawingCoordinateTopLeft() + yCoordinateRenderingOffset;
-        int drawingX = getXDrawingCoordinateTopLeft() + offsetAnimationMap.getXOffset(drawingY);
-        drawingY += offsetAnimationMap.getYOffset(drawingY);
-        spriteGraphics.drawImage(characterImageStore.getCharacterImage(rainDropColor, rainDropChar),
-                drawingX, drawingY, null);
-
-        spriteGraphics.dispose();
+    void readSnapshot(DataInput in) throws IOException {
+        short snapshotGlyphIndex = in.readShort();
+        if (snapshotGlyphIndex < 0 || snapshotGlyphIndex >= characterSet.size()) {
+            throw new IOException("Snapshot has an unknown rain drop character (" + snapshotGlyphIndex + ")");
+        }
+        glyphIndex = snapshotGlyphIndex;
+        timeUntilCharacterChangeInMilliseconds = in.readShort();
     }
 
-    @Override
-    protected synchronized void debugDraw(Graphics2D g) {
-        Graphics debugGraphics = g.create();
-        debugGraphics.setColor(Color.WHITE);
-        debugGraphics.drawRect(this.getXDrawingCoordinateTopLeft(), this.getYDrawingCoordinateTopLeft(),
-                this.getWidth(), this.getHeight());
-        debugGraphics.dispose();
+    /**
+     * Advances the timer to change the character of this sprite, changing the character when the timer
+     * finishes. Called by the RainLineSprite containing this sprite as part of its own update, only while the
+     * RainLineSprite is in view, as nothing of it could be seen otherwise.
+     *
+     * @param elapsedTimeInMilliseconds
+     *         Time elapsed since the last update
+     * @param rainLineXDrawingCoordinate
+     *         X drawing coordinate of the RainLineSprite containing this sprite
+     * @param rainLineYDrawingCoordinate
+     *         Y drawing coordinate of the RainLineSprite containing this sprite
+     * @param random
+     *         Random number generator of the RainLineSprite containing this sprite
+     * @param dirtyArea
+     *         Area the RainLineSprite containing this sprite changed, this sprite adds its area to it whenever its
+     *         character changes
+     */
+    void updateCharacterTimer(long elapsedTimeInMilliseconds, int rainLineXDrawingCoordinate,
+            int rainLineYDrawingCoordinate, RainRandom random, DirtyArea dirtyArea) {
+        if (!renderSettings.getQualityLevel().isFlickering()) {
+            return;
+        }
+        timeUntilCharacterChangeInMilliseconds -= elapsedTimeInMilliseconds;
+        if (timeUntilCharacterChangeInMilliseconds <= 0) {
+            // Time to change the rain drop char to another random character!
+            setRainDropCharToRandomValidChar(random);
+            // When rendering from a character grid, the cell is marked by the parent pane as it differs between grids
+            if (!renderSettings.getRenderMode().isRenderedFromCharacterGrid()) {
+                dirtyArea.add(rainLineXDrawingCoordinate + getRoundedXCoordinateTopLeft(),
+                        rainLineYDrawingCoordinate + getRoundedYCoordinateTopLeft() + yCoordinateRenderingOffset,
+                        getWidth(), getHeight());
+            }
+            // Time past the change carries over, as it did when a timer counted the elapsed time
+            timeUntilCharacterChangeInMilliseconds +=
+                    randomWaitTimeForCharChangeInMilliseconds(random, shortestWaitTimeForCharChangeInMS);
+        }
     }
-
-
 }
@@ -0,0 +1,139 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * RainDropSpriteFrame is one frame of digital rain as drawn when every {@link RainDropSprite} draws its own character:
+ * the drawing coordinates, glyph index and palette index of each RainDropSprite in view, in the order they're drawn.
+ * The updating thread compiles a frame from the RainLineSprites after each update, so the frame can be drawn on another
+ * thread while the RainLineSprites and their RainDropSprites keep changing. The frame also holds what's drawn as debug
+ * graphics: the outline of every RainLineSprite, and where the pane would add its next RainLineSprite.
+ * <p>
+ * The arrays only grow, so once a frame has held as many RainDropSprites as the scene shows at its busiest, compiling
+ * it again allocates nothing.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+class RainDropSpriteFrame {
+    private static final int initialCapacity = 256;
+
+    private final int rainDropSpriteWidth;
+    private final int rainDropSpriteHeight;
+    private int rainDropSpriteCount;
+    private int[] xCoordinates = new int[initialCapacity];
+    private int[] yCoordinates = new int[initialCapacity];
+    private short[] glyphIndices = new short[initialCapacity];
+    private byte[] paletteIndices = new byte[initialCapacity];
+    private Color[] palette = new Color[]{Color.BLACK};
+    private int rainLineSpriteCount;
+    private int[] rainLineXCoordinates = new int[initialCapacity];
+    private int[] rainLineYCoordinates = new int[initialCapacity];
+    private int[] rainLineWidths = new int[initialCapacity];
+    private int[] rainLineHeights = new int[initialCapacity];
+    private int nextRainLineXCoordinate;
+    private int paneHeight;
+
+    RainDropSpriteFrame(int rainDropSpriteWidth, int rainDropSpriteHeight) {
+        this.rainDropSpriteWidth = rainDropSpriteWidth;
+        this.rainDropSpriteHeight = rainDropSpriteHeight;
+    }
+
+    /**
+     * Empties the frame.
+     *
+     * @param palette
+     *         Colors the palette indices of RainDropSprites added afterwards refer to
+     * @param nextRainLineXCoordinate
+     *         X coordinate the pane would add its next RainLineSprite at
+     * @param paneHeight
+     *         Height of the pane the frame is compiled from
+     */
+    void reset(Color[] palette, int nextRainLineXCoordinate, int paneHeight) {
+        this.palette = palette;
+        this.nextRainLineXCoordinate = nextRainLineXCoordinate;
+        this.paneHeight = paneHeight;
+        rainDropSpriteCount = 0;
+        rainLineSpriteCount = 0;
+    }
+
+    /**
+     * Adds a RainDropSprite to draw after those already added.
+     *
+     * @param xCoordinate
+     *         X drawing coordinate of the RainDropSprite, before any animation offset is applied
+     * @param yCoordinate
+     *         Y drawing coordinate of the RainDropSprite, before any animation offset is applied
+     */
+    void add(int xCoordinate, int yCoordinate, short glyphIndex, byte paletteIndex) {
+        if (rainDropSpriteCount == xCoordinates.length) {
+            int newCapacity = xCoordinates.length * 2;
+            xCoordinates = Arrays.copyOf(xCoordinates, newCapacity);
+            yCoordinates = Arrays.copyOf(yCoordinates, newCapacity);
+            glyphIndices = Arrays.copyOf(glyphIndices, newCapacity);
+            paletteIndices = Arrays.copyOf(paletteIndices, newCapacity);
+        }
+        xCoordinates[rainDropSpriteCount] = xCoordinate;
+        yCoordinates[rainDropSpriteCount] = yCoordinate;
+        glyphIndices[rainDropSpriteCount] = glyphIndex;
+        paletteIndices[rainDropSpriteCount] = paletteIndex;
+        rainDropSpriteCount++;
+    }
+
+    /**
+     * Adds the outline of a RainLineSprite, drawn as debug graphics, whether or not the RainLineSprite is in view.
+     */
+    void addRainLineOutline(int xCoordinate, int yCoordinate, int width, int height) {
+        if (rainLineSpriteCount == rainLineXCoordinates.length) {
+            int newCapacity = rainLineXCoordinates.length * 2;
+            rainLineXCoordinates = Arrays.copyOf(rainLineXCoordinates, newCapacity);
+            rainLineYCoordinates = Arrays.copyOf(rainLineYCoordinates, newCapacity);
+            rainLineWidths = Arrays.copyOf(rainLineWidths, newCapacity);
+            rainLineHeights = Arrays.copyOf(rainLineHeights, newCapacity);
+        }
+        rainLineXCoordinates[rainLineSpriteCount] = xCoordinate;
+        rainLineYCoordinates[rainLineSpriteCount] = yCoordinate;
+        rainLineWidths[rainLineSpriteCount] = width;
+        rainLineHeights[rainLineSpriteCount] = height;
+        rainLineSpriteCount++;
+    }
+
+    int getRainDropSpriteCount() {
+        return rainDropSpriteCount;
+    }
+
+    /**
+     * Draws the character of every RainDropSprite that lands within the clip of the passed graphics, applying the
+     * animation offset of the row each one is drawn on.
+     */
+    void draw(Graphics2D g, RainDropCharacterImageStore characterImageStore, OffsetAnimationMap offsetAnimationMap) {
+        for (int i = 0; i < rainDropSpriteCount; i++) {
+            int drawingY = yCoordinates[i];
+            int drawingX = xCoordinates[i] + offsetAnimationMap.getXOffset(drawingY);
+            drawingY += offsetAnimationMap.getYOffset(drawingY);
+            // Drawing an image does not change any state of the graphics object, so there's no need to create a copy
+            // of it, and no draw is issued at all when the character would land outside of the area being painted
+            if (g.hitClip(drawingX, drawingY, rainDropSpriteWidth, rainDropSpriteHeight)) {
+                g.drawImage(characterImageStore.getCharacterImage(palette[paletteIndices[i] & 0xFF], glyphIndices[i]),
+                        drawingX, drawingY, null);
+            }
+        }
+    }
+
+    /**
+     * Draws the debug graphics of the frame: where the next RainLineSprite would be added, and the outline of every
+     * RainLineSprite and RainDropSprite, without animation offsets.
+     */
+    void drawOutlines(Graphics g) {
+        g.drawLine(nextRainLineXCoordinate, 0, nextRainLineXCoordinate, paneHeight);
+        for (int i = 0; i < rainLineSpriteCount; i++) {
+            g.drawRect(rainLineXCoordinates[i], rainLineYCoordinates[i], rainLineWidths[i], rainLineHeights[i]);
+        }
+        for (int i = 0; i < rainDropSpriteCount; i++) {
+            g.drawRect(xCoordinates[i], yCoordinates[i], rainDropSpriteWidth, rainDropSpriteHeight);
+        }
+    }
+}
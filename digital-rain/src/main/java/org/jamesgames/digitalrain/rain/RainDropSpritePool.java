@@ -0,0 +1,110 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * RainDropSpritePool holds the idle {@link RainDropSprite}s of a {@link RainPaneSprite}, shared by all of its {@link
+ * RainLineSprite}s. A RainLineSprite takes RainDropSprites from the pool as it grows and gives them back as it
+ * shrinks, so RainDropSprites freed by a short line in one column are reused by a long line in another, and the pane
+ * only holds as many RainDropSprites as its lines use at once rather than what each line once used.
+ * <p>
+ * The pool keeps track of the most RainDropSprites in use at once (the high-water mark) since it was last trimmed.
+ * Trimming discards the idle RainDropSprites beyond what it would take to reach that mark again, so after a burst of
+ * long lines (or a wide pane that became narrow) the idle RainDropSprites are let go once the demand has passed, while
+ * a steady scene keeps just enough of them to never create any.
+ * <p>
+ * RainDropSprites are only taken and given back by the thread updating the pane, while it isn't updating lines in
+ * parallel, so the pool doesn't lock.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+class RainDropSpritePool {
+    private final Deque<RainDropSprite> idleRainDropSprites = new ArrayDeque<>();
+    private final int fontWidth;
+    private final int fontHeight;
+    private final RainDropCharacterImageStore characterImageStore;
+    private final RainRenderSettings renderSettings;
+    private final RainPaneStatistics statistics;
+
+    /**
+     * Number of RainDropSprites taken from the pool and not given back.
+     */
+    private int inUseCount;
+
+    /**
+     * Most RainDropSprites in use at once since the pool was last trimmed.
+     */
+    private int highWaterMark;
+
+    RainDropSpritePool(int fontWidth, int fontHeight, RainDropCharacterImageStore characterImageStore,
+            RainRenderSettings renderSettings, RainPaneStatistics statistics) {
+        this.fontWidth = fontWidth;
+        this.fontHeight = fontHeight;
+        this.characterImageStore = characterImageStore;
+        this.renderSettings = renderSettings;
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return An idle RainDropSprite, or a new one if none are idle. The RainDropSprite keeps whatever character and
+     * position it last had, which the RainLineSprite taking it is expected to reset.
+     */
+    RainDropSprite take() {
+        RainDropSprite s = idleRainDropSprites.pollLast();
+        if (s == null) {
+            s = new RainDropSprite(fontWidth, fontHeight, characterImageStore, renderSettings);
+        } else {
+            statistics.cachedRainDropSpritesAdded(-1);
+        }
+        inUseCount++;
+        if (inUseCount > highWaterMark) {
+            highWaterMark = inUseCount;
+            statistics.rainDropSpriteHighWaterMarkReached(highWaterMark);
+        }
+        return s;
+    }
+
+    /**
+     * Takes back a RainDropSprite no longer part of a RainLineSprite.
+     */
+    void giveBack(RainDropSprite s) {
+        idleRainDropSprites.addLast(s);
+        inUseCount--;
+        statistics.cachedRainDropSpritesAdded(1);
+    }
+
+    /**
+     * Discards the idle RainDropSprites beyond those needed to reach the high-water mark again, then starts tracking a
+     * new high-water mark from the number of RainDropSprites in use now.
+     *
+     * @return Number of RainDropSprites discarded
+     */
+    int trim() {
+        int idleRainDropSpritesToKeep = highWaterMark - inUseCount;
+        int discarded = 0;
+        while (idleRainDropSprites.size() > idleRainDropSpritesToKeep) {
+            idleRainDropSprites.removeFirst();
+            discarded++;
+        }
+        statistics.cachedRainDropSpritesAdded(-discarded);
+        highWaterMark = inUseCount;
+        statistics.rainDropSpriteHighWaterMarkReached(highWaterMark);
+        return discarded;
+    }
+
+    int getIdleCount() {
+        return idleRainDropSprites.size();
+    }
+
+    int getInUseCount() {
+        return inUseCount;
+    }
+
+    int getHighWaterMark() {
+        return highWaterMark;
+    }
+}
@@ -1,38 +1,41 @@
 package org.jamesgames.digitalrain.rain;
 
-import net.jcip.annotations.ThreadSafe;
+import net.jcip.annotations.NotThreadSafe;
 import org.jamesgames.easysprite.Sprite;
 
 import java.awt.*;
-import java.util.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * A RainLineSprite is a {@link org.jamesgames.easysprite.Sprite} that contains one to many {@link
- * org.jamesgames.digitalrain.rain.RainDropSprite}s, and renders them in a vertical line. The number of RainDropSprites
- * within the sprite is a random amount, between 1 and minimum of how many can fit in the parent height wise and a max
- * number supplied via the constructor. The sprite has the ability to render row by row, where it slowly descends
- * displaying characters on specific rows (like rows in a text editor), or the sprite can simply render and slowly
- * descend visually following no specific fixed rendering positions (a pixel by pixel approach).
+ * org.jamesgames.digitalrain.rain.RainDropSprite}s, and renders them in a vertical line. The RainDropSprites are not
+ * child sprites, they're kept in an array-backed stack and updated and drawn by the RainLineSprite in the color of the
+ * line, so growing, shrinking and recoloring the line cost time in proportion to the number of RainDropSprites added or
+ * removed, and allocate nothing. The number of RainDropSprites within the sprite is a random amount, between 1 and
+ * minimum of how many can fit in the parent height wise and a max number supplied via the constructor. The sprite has
+ * the ability to render row by row, where it slowly descends displaying characters on specific rows (like rows in a
+ * text editor), or the sprite can simply render and slowly descend visually following no specific fixed rendering
+ * positions (a pixel by pixel approach).
+ * <p>
+ * A RainLineSprite is only changed and read by the thread updating the {@link RainPaneSprite} containing it (or by one
+ * of that thread's fork join tasks), so none of its methods lock. It isn't drawn directly, the parent pane compiles
+ * what it shows into a frame that's drawn instead, so drawing never reads a RainLineSprite as it changes.
  *
  * @author James Murphy
  */
-@ThreadSafe
+@NotThreadSafe
 class RainLineSprite extends Sprite {
     public static final Color bottomRainDropColor = Color.WHITE;
-    private static final int unitsBetweenRainDrops = 1;
+    static final int unitsBetweenRainDrops = 1;
 
     /**
-     * This deque of RainDropSprites are the RainDropSprites that are possibly child RainDropSprites of this
-     * RainLineSprite. As the RainLineSprite grows it adds some sprites from the deque, and as it shrinks it adds some
-     * sprites to the deque to use later when it grows again. This helps eliminate garbage collection.
+     * Idle RainDropSprites shared by every RainLineSprite of the parent pane. As the RainLineSprite grows it takes
+     * sprites from the pool, and as it shrinks it gives sprites back for any RainLineSprite to use later. This helps
+     * eliminate garbage collection.
      */
-    private final Deque<RainDropSprite> reusableCachedRainDropSprites;
-
-    /**
-     * Used to modify the x and y coordinate drawing position of a RainDropSprite (offsets retrieved are based on the y
-     * drawing coordinate of the Sprite
-     */
-    private final OffsetAnimationMap offsetAnimationMap;
+    private final RainDropSpritePool rainDropSpritePool;
 
     /**
      * OrderedStackOfRainDropSprites is used to maintain knowledge of what the order of the child RainDropSprites are
@@ -92,24 +95,60 @@ class RainLineSprite extends Sprite {
     private final int maxRainDropsAllowed;
 
     /**
-     * Height of parent sprite, used to help determine a max length for the RainLineSprite.
+     * Height of parent sprite, used to help determine a max length for the RainLineSprite. Picked up from the parent
+     * at each update and reset rather than set by the parent whenever it resizes, so a resize doesn't touch every
+     * RainLineSprite.
      */
     private int parentSpriteHeight;
 
     /**
-     * The number of RainDropSprites in the this RainLineSprite.
+     * True if some part of this RainLineSprite was within the parent's height as of the last update. RainLineSprites
+     * that are out of view (like those waiting above the parent to fall) only have their position advanced.
+     */
+    private boolean visibleInParent = true;
+
+    /**
+     * False while the column of this RainLineSprite is left out to lower the quality level, in which case it's treated
+     * as out of view.
+     */
+    private boolean activeInParent = true;
+
+    /**
+     * Area this RainLineSprite changed since the parent pane last moved it to its {@link DirtyRegion}, this sprite
+     * adds the area it's drawn in whenever that area moves. Kept per RainLineSprite so RainLineSprites updated in
+     * parallel never share it.
      */
-    private int currentRainDropSpriteCount;
+    private final DirtyArea dirtyArea = new DirtyArea();
 
     /**
-     * Used for random calculations, like computing a new random amount of RainDropSprites to use
+     * Top y drawing coordinate and height of the area last added to the dirtyArea, used to also add the area this
+     * RainLineSprite is moving away from.
      */
-    private final Random random = new Random();
+    private int lastMarkedDrawingYCoordinate = Integer.MIN_VALUE;
+    private int lastMarkedHeight;
 
-    public RainLineSprite(OffsetAnimationMap offsetAnimationMap, Color rainColor, int fontWidth, int fontHeight,
+    /**
+     * Settings of how the parent pane renders, passed to any created RainDropSprites.
+     */
+    private final RainRenderSettings renderSettings;
+
+    /**
+     * Counters of the parent pane, kept up to date as RainDropSprites are added, removed and cached.
+     */
+    private final RainPaneStatistics statistics;
+
+    /**
+     * Used for random calculations, like computing a new random amount of RainDropSprites to use, and by the
+     * RainDropSprites of this RainLineSprite to pick their characters.
+     */
+    private final RainRandom random;
+
+    public RainLineSprite(Color rainColor, int fontWidth, int fontHeight,
             RainDropCharacterImageStore characterImageStore, int parentSpriteHeight, int maxRainDropsAllowed,
-            float yVelocity, boolean renderChildRainDropSpritesByRow) {
+            boolean renderChildRainDropSpritesByRow, RainPaneStatistics statistics,
+            RainRenderSettings renderSettings, RainDropSpritePool rainDropSpritePool, RainRandom random) {
         super(fontWidth, 0);
+        this.random = random;
 
         if (maxRainDropsAllowed <= 0) {
             throw new IllegalArgumentException(
@@ -120,31 +159,31 @@ class RainLineSprite extends Sprite {
         this.fontHeight = fontHeight;
         this.characterImageStore = characterImageStore;
         this.maxRainDropsAllowed = maxRainDropsAllowed;
-        this.reusableCachedRainDropSprites = new ArrayDeque<>(this.maxRainDropsAllowed);
+        this.rainDropSpritePool = rainDropSpritePool;
         this.unitsFromOneRowToAnother = fontHeight + unitsBetweenRainDrops;
         this.renderChildRainDropSpritesByRow = renderChildRainDropSpritesByRow;
         this.parentSpriteHeight = parentSpriteHeight;
-        setYVelocity(yVelocity);
         this.rainRainDropColor = rainColor;
-        this.offsetAnimationMap = offsetAnimationMap;
+        this.statistics = statistics;
+        this.renderSettings = renderSettings;
 
 
         // Create and add the RainDropSprite that will always be displayed at the end of the RainDropLine
-        this.bottomRainDropSprite = new RainDropSprite(bottomRainDropColor, fontWidth, fontHeight, characterImageStore,
-                this.offsetAnimationMap);
-        addChildSprite(bottomRainDropSprite);
-        // current size is one because we only added the bottom rain drop sprite
-        this.currentRainDropSpriteCount = 1;
-        updateHeight();
+        this.bottomRainDropSprite =
+                new RainDropSprite(fontWidth, fontHeight, characterImageStore, renderSettings);
+        bottomRainDropSprite.resetCharacterAndTimer(random);
 
         // Helper objects
         this.orderedStackOfRainDropSprites =
                 new OrderedStackOfRainDropSprites(bottomRainDropSprite, this.maxRainDropsAllowed);
+        // current size is one because we only added the bottom rain drop sprite
+        statistics.rainDropSpritesAdded(1);
+        updateHeight();
         this.rowOffsetUpdater = new RainDropLineRowOffsetUpdater(bottomRainDropSprite, orderedStackOfRainDropSprites,
-                unitsFromOneRowToAnother);
+                unitsFromOneRowToAnother, characterImageStore.getCharacterSet(), random);
 
         // Add as many other RainDropSprites as needed
-        addRainDropSprites(rainColor, calculateValidRandomRainDropSpriteCount());
+        addRainDropSprites(calculateValidRandomRainDropSpriteCount());
         repositionBottomRainDropSpriteToBottomPosition();
 
     }
@@ -153,14 +192,22 @@ class RainLineSprite extends Sprite {
      * @return Largest height this RainLineSprite could be based on on the latest known parent sprite height and max
      * number of rain drops.
      */
-    public synchronized int getMaxHeight() {
+    public int getMaxHeight() {
         return Math.min(maxNumberOfRainDropsThatCanFitInParentSpriteHeight(), maxRainDropsAllowed) *
                 unitsFromOneRowToAnother;
     }
 
+    /**
+     * @return The number of RainDropSprites currently in this RainLineSprite, including the bottom RainDropSprite.
+     */
+    public int getRainDropSpriteCount() {
+        return orderedStackOfRainDropSprites.size();
+    }
+
     private int calculateValidRandomRainDropSpriteCount() {
-        return random.nextInt(
-                Math.min(Math.max(maxNumberOfRainDropsThatCanFitInParentSpriteHeight(), 1), maxRainDropsAllowed)) + 1;
+        return random.nextInt(Math.min(
+                Math.min(Math.max(maxNumberOfRainDropsThatCanFitInParentSpriteHeight(), 1), maxRainDropsAllowed),
+                renderSettings.getQualityLevel().getMaxRainDropsInLine())) + 1;
     }
 
     private int maxNumberOfRainDropsThatCanFitInParentSpriteHeight() {
@@ -168,7 +215,7 @@ class RainLineSprite extends Sprite {
     }
 
     private void updateHeight() {
-        this.setHeight(calculateHeightAtSpecificRainDropSpriteCount(currentRainDropSpriteCount));
+        this.setHeight(calculateHeightAtSpecificRainDropSpriteCount(getRainDropSpriteCount()));
     }
 
     private int calculateHeightAtSpecificRainDropSpriteCount(int rainDropSpriteCountToUse) {
@@ -179,56 +226,58 @@ class RainLineSprite extends Sprite {
         bottomRainDropSprite.setYCoordinateTopLeft(this.getHeight() - unitsFromOneRowToAnother);
     }
 
-    private void addReusableCachedSprite(Color rainColor) {
-        reusableCachedRainDropSprites.add(new RainDropSprite(rainColor, fontWidth, fontHeight, characterImageStore,
-                offsetAnimationMap));
-    }
-
-    private void addRainDropSprites(Color rainColor, int rainDropSpriteCountToAchieve) {
+    private void addRainDropSprites(int rainDropSpriteCountToAchieve) {
         // Adds the right number of RainDropSprites to this Sprite
         // Each iteration adds one RainDropSprite
-        while (currentRainDropSpriteCount < rainDropSpriteCountToAchieve) {
-            addRainDropSprite(rainColor);
+        while (getRainDropSpriteCount() < rainDropSpriteCountToAchieve) {
+            addRainDropSprite();
         }
+        // The number of RainDropSprites, also affects the height, so that must be updated as well
+        updateHeight();
     }
 
-    private void addRainDropSprite(Color rainColor) {
-        if (reusableCachedRainDropSprites.size() == 0) {
-            // No sprites to grab from deque, add another to the reusable deque
-            addReusableCachedSprite(rainRainDropColor);
-        }
-        RainDropSprite s = reusableCachedRainDropSprites.removeLast();
+    private void addRainDropSprite() {
+        RainDropSprite s = rainDropSpritePool.take();
         // Change the rain drop character each time a Sprite is reused just in case a series of characters
         // being reused could appear strange to the user
-        s.setRainDropChar(RainDropCharacter.randomRainDropCharacter());
-        // The sprite may need it's color changed as well if using a different one
-        s.setRainDropColor(rainColor);
+        s.resetCharacterAndTimer(random);
         // Reposition the sprite where needed as well
         s.setYCoordinateTopLeft(calculateYCoordinateForNextRainDropSpriteToAdd());
-        // Add the sprite to both the ordered stack and the actual Sprite
+        // The sprite may come from another line, so it's given the row offset every sprite of this line has
+        s.setYCoordinateRenderingOffset(bottomRainDropSprite.getYCoordinateRenderingOffset());
         orderedStackOfRainDropSprites.pushRainDropSpriteToSecondTopPosition(s);
-        this.addChildSprite(s);
-        // Increment the number of RainDropSprites in this RainLineSprite
-        currentRainDropSpriteCount++;
-        // The number of RainDropSprites, also affects the height, so that must be updated as well
-        updateHeight();
+        statistics.rainDropSpritesAdded(1);
     }
 
     private int calculateYCoordinateForNextRainDropSpriteToAdd() {
-        return (this.currentRainDropSpriteCount - 1) * unitsFromOneRowToAnother;
+        return (getRainDropSpriteCount() - 1) * unitsFromOneRowToAnother;
+    }
+
+    /**
+     * Removes the passed number of RainDropSprites from just above the bottom RainDropSprite, the RainDropSprites
+     * above them keep their positions, and gives them back to the pool.
+     */
+    private void removeRainDropSprites(int rainDropsToRemoveCount) {
+        for (int i = 0; i < rainDropsToRemoveCount; i++) {
+            rainDropSpritePool.giveBack(orderedStackOfRainDropSprites.popSecondTopRainDropSprite());
+        }
+        statistics.rainDropSpritesAdded(-rainDropsToRemoveCount);
+        // The number of RainDropSprites also affects the height, so that must be updated as well
+        updateHeight();
     }
 
     /**
      * Resizes the RainLineSprite's height based on a valid range, recolors it to a specified color, and resets the
-     * sprite's position above it's parent sprite
+     * sprite's position above it's parent sprite. Only the RainDropSprites added or removed are touched.
      *
      * @param parentSpriteHeight
      *         This height helps determine the range of possible new heights to choose
      * @param newRainDropColor
      *         The color to change to
      */
-    public synchronized void resetHeightColorAndPosition(int parentSpriteHeight, Color newRainDropColor) {
+    public void resetHeightColorAndPosition(int parentSpriteHeight, Color newRainDropColor) {
         this.parentSpriteHeight = parentSpriteHeight;
+        this.rainRainDropColor = newRainDropColor;
         int newRainDropSpriteCount = calculateValidRandomRainDropSpriteCount();
         if (newRainDropSpriteCount > maxRainDropsAllowed) {
             throw new IllegalArgumentException(
@@ -236,14 +285,12 @@ class RainLineSprite extends Sprite {
                             "length allowed (" + maxRainDropsAllowed + ")");
         }
 
-        if (newRainDropSpriteCount < currentRainDropSpriteCount) {
+        if (newRainDropSpriteCount < getRainDropSpriteCount()) {
             // Need to remove some RainDropSprites that no longer fit
-            recolorAllSpritesAndRemoveRainDropSpritesThatDoNotFit(newRainDropColor,
-                    currentRainDropSpriteCount - newRainDropSpriteCount);
-        } else if (newRainDropSpriteCount > currentRainDropSpriteCount) {
+            removeRainDropSprites(getRainDropSpriteCount() - newRainDropSpriteCount);
+        } else if (newRainDropSpriteCount > getRainDropSpriteCount()) {
             // More rainDropSprites can fit, so add some more
-            addRainDropSprites(newRainDropColor, newRainDropSpriteCount);
-            recolorAllSprites(newRainDropColor);
+            addRainDropSprites(newRainDropSpriteCount);
         }
 
         // Realign bottom rain drop sprite to be the last sprite visually
@@ -253,62 +300,271 @@ class RainLineSprite extends Sprite {
         setYCoordinateTopLeft(-getHeight());
     }
 
-    private void recolorAllSprites(Color newRainDropColor) {
-        for (RainDropSprite s : orderedStackOfRainDropSprites) {
-            if (s != bottomRainDropSprite) {
-                s.setRainDropColor(newRainDropColor);
-            }
+    /**
+     * Writes the state this RainLineSprite needs to continue exactly where it is: its position, random number
+     * generator state, row offsets and each RainDropSprite from the bottommost up. Its x coordinate and color are
+     * written by the parent pane.
+     */
+    void writeSnapshot(DataOutput out) throws IOException {
+        out.writeFloat(getYCoordinateTopLeft());
+        out.writeLong(random.getState());
+        out.writeBoolean(visibleInParent);
+        out.writeShort(bottomRainDropSprite.getYCoordinateRenderingOffset());
+        out.writeInt(rowOffsetUpdater.getLastDrawingYCoordinateOfBottomRainDropSprite());
+        out.writeShort(getRainDropSpriteCount());
+        for (int i = 0, size = orderedStackOfRainDropSprites.size(); i < size; i++) {
+            orderedStackOfRainDropSprites.get(i).writeSnapshot(out);
+        }
+    }
+
+    /**
+     * Restores the state written by {@link #writeSnapshot(DataOutput)}, growing or shrinking to the RainDropSprite
+     * count of the snapshot.
+     */
+    void readSnapshot(DataInput in) throws IOException {
+        float yCoordinate = in.readFloat();
+        long randomState = in.readLong();
+        boolean visible = in.readBoolean();
+        int yRenderingOffset = in.readShort();
+        int lastDrawingYCoordinateOfBottomRainDropSprite = in.readInt();
+        int rainDropSpriteCount = in.readUnsignedShort();
+        if (rainDropSpriteCount < 1 || rainDropSpriteCount > maxRainDropsAllowed) {
+            throw new IOException("Snapshot has a rain line with " + rainDropSpriteCount + " rain drops, at most " +
+                    maxRainDropsAllowed + " are allowed");
+        }
+        if (rainDropSpriteCount < getRainDropSpriteCount()) {
+            removeRainDropSprites(getRainDropSpriteCount() - rainDropSpriteCount);
+        } else if (rainDropSpriteCount > getRainDropSpriteCount()) {
+            addRainDropSprites(rainDropSpriteCount);
+        }
+        repositionBottomRainDropSpriteToBottomPosition();
+        for (int i = 0, size = orderedStackOfRainDropSprites.size(); i < size; i++) {
+            orderedStackOfRainDropSprites.get(i).readSnapshot(in);
+        }
+        visibleInParent = visible;
+        rowOffsetUpdater.restoreRowOffsets(yRenderingOffset, lastDrawingYCoordinateOfBottomRainDropSprite);
+        setYCoordinateTopLeft(yCoordinate);
+        // Restored last, as growing to the snapshot's RainDropSprite count draws random characters
+        random.setState(randomState);
+    }
+
+    /**
+     * Gives every RainDropSprite but the bottom one back to the pool and removes this RainLineSprite's RainDropSprites
+     * from the pane's counters, used when the RainLineSprite is removed from the pane.
+     */
+    void retire() {
+        removeRainDropSprites(getRainDropSpriteCount() - 1);
+        statistics.rainDropSpritesAdded(-1);
+    }
+
+    /**
+     * Puts a RainLineSprite retired by the pane back into use, as if it had just been created with the passed color,
+     * parent height and random seed. It takes RainDropSprites from the pool to reach a new random count, then gives
+     * every RainDropSprite a new character, so nothing is allocated unless the pool runs out. The caller positions it
+     * afterwards, as with a new RainLineSprite.
+     */
+    void reuse(Color rainColor, int parentSpriteHeight, long randomSeed) {
+        random.setState(randomSeed);
+        statistics.rainDropSpritesAdded(getRainDropSpriteCount());
+        resetHeightColorAndPosition(parentSpriteHeight, rainColor);
+        for (int i = 0, size = orderedStackOfRainDropSprites.size(); i < size; i++) {
+            orderedStackOfRainDropSprites.get(i).resetCharacterAndTimer(random);
         }
+        // The area it was last drawn in belonged to its old column
+        lastMarkedDrawingYCoordinate = Integer.MIN_VALUE;
+    }
 
+    /**
+     * @return The color used for the RainDropSprites in this RainLineSprite, other than the bottom RainDropSprite
+     */
+    public Color getRainDropColor() {
+        return rainRainDropColor;
     }
 
-    private void recolorAllSpritesAndRemoveRainDropSpritesThatDoNotFit(Color newRainDropColor,
-            int rainDropsToRemoveCount) {
-        int rainDropsRemoved = 0;
-        Set<Sprite> rainDropsToRemove = new HashSet<>(rainDropsToRemoveCount);
-        for (RainDropSprite s : orderedStackOfRainDropSprites) {
-            if (s != bottomRainDropSprite) {
-                if (rainDropsRemoved < rainDropsToRemoveCount) {
-                    rainDropsToRemove.add(s);
-                    rainDropsRemoved++;
-                    // Add it back to the deque
-                    reusableCachedRainDropSprites.addLast(s);
-                }
-                s.setRainDropColor(newRainDropColor);
+    /**
+     * Writes the character of each RainDropSprite to the row of the passed grid it's drawn on, if this RainLineSprite
+     * is in view.
+     *
+     * @param column
+     *         The column of the grid this RainLineSprite occupies
+     * @param rainDropPaletteIndex
+     *         Palette index of this RainLineSprite's color
+     * @param bottomRainDropPaletteIndex
+     *         Palette index of the bottom RainDropSprite's color
+     * @param interpolatedFallDistance
+     *         Distance this RainLineSprite would have fallen since its last update, at the time the grid shows. Only
+     *         used when not rendering by row, as rows are only changed by updates.
+     */
+    void writeToCharacterGrid(CharacterGrid grid, int column, byte rainDropPaletteIndex,
+            byte bottomRainDropPaletteIndex, float interpolatedFallDistance) {
+        if (!visibleInParent || column >= grid.getColumns()) {
+            return;
+        }
+        int yCoordinate = renderChildRainDropSpritesByRow ? getRoundedYCoordinateTopLeft() :
+                Math.round(getYCoordinateTopLeft() + interpolatedFallDistance);
+        for (int i = 0, size = orderedStackOfRainDropSprites.size(); i < size; i++) {
+            RainDropSprite s = orderedStackOfRainDropSprites.get(i);
+            int rainDropYCoordinate =
+                    yCoordinate + s.getRoundedYCoordinateTopLeft() + s.getYCoordinateRenderingOffset();
+            // Rounded to the nearest row, which is exact when rendering by row
+            int row = Math.floorDiv(rainDropYCoordinate + unitsFromOneRowToAnother / 2, unitsFromOneRowToAnother);
+            if (row >= 0 && row < grid.getRows()) {
+                grid.setCell(column, row, s.getGlyphIndex(),
+                        s == bottomRainDropSprite ? bottomRainDropPaletteIndex : rainDropPaletteIndex);
             }
+        }
+    }
 
+    /**
+     * Adds the outline of this RainLineSprite to the passed frame, and where each RainDropSprite is drawn if this
+     * RainLineSprite is in view, from the bottom RainDropSprite up.
+     *
+     * @param parentXDrawingCoordinate
+     *         X drawing coordinate of the parent sprite
+     * @param parentYDrawingCoordinate
+     *         Y drawing coordinate of the parent sprite
+     * @param rainDropPaletteIndex
+     *         Palette index of this RainLineSprite's color
+     * @param bottomRainDropPaletteIndex
+     *         Palette index of the bottom RainDropSprite's color
+     * @param interpolatedFallDistance
+     *         Distance this RainLineSprite would have fallen since its last update, at the time the frame shows. Only
+     *         used when not rendering by row, as rows are only changed by updates.
+     */
+    void writeToRainDropSpriteFrame(RainDropSpriteFrame frame, int parentXDrawingCoordinate,
+            int parentYDrawingCoordinate, byte rainDropPaletteIndex, byte bottomRainDropPaletteIndex,
+            float interpolatedFallDistance) {
+        int xDrawingCoordinate = parentXDrawingCoordinate + getRoundedXCoordinateTopLeft();
+        int yDrawingCoordinate = parentYDrawingCoordinate + (renderChildRainDropSpritesByRow ?
+                getRoundedYCoordinateTopLeft() : Math.round(getYCoordinateTopLeft() + interpolatedFallDistance));
+        frame.addRainLineOutline(xDrawingCoordinate, yDrawingCoordinate, getWidth(), getHeight());
+        if (!visibleInParent) {
+            return;
+        }
+        for (int i = 0, size = orderedStackOfRainDropSprites.size(); i < size; i++) {
+            RainDropSprite s = orderedStackOfRainDropSprites.get(i);
+            frame.add(xDrawingCoordinate + s.getRoundedXCoordinateTopLeft(),
+                    yDrawingCoordinate + s.getRoundedYCoordinateTopLeft() + s.getYCoordinateRenderingOffset(),
+                    s.getGlyphIndex(), s == bottomRainDropSprite ? bottomRainDropPaletteIndex : rainDropPaletteIndex);
         }
-        // Remove child RainDropSprites from the actual Sprite, as well as the ordered stack
-        this.removeChildSprites(rainDropsToRemove);
-        this.orderedStackOfRainDropSprites.removeAll(rainDropsToRemove);
-        // Need to maintain the count of RainDropSprites added
-        currentRainDropSpriteCount -= rainDropsToRemoveCount;
-        // The number of RainDropSprites also affects the height, so that must be updated as well
-        updateHeight();
     }
 
-    @Override
-    protected synchronized void setDrawingDebugGraphicsToCachedSprites(boolean drawDebug) {
-        for (Sprite s : reusableCachedRainDropSprites) {
-            s.setDrawingDebugGraphics(drawDebug);
+    /**
+     * Sets if this RainLineSprite is active, an inactive RainLineSprite still falls but is otherwise treated as if it's
+     * out of view.
+     */
+    void setActiveInParent(boolean activeInParent) {
+        this.activeInParent = activeInParent;
+    }
+
+    private boolean isWithinParentSpriteHeight() {
+        int y = getRoundedYCoordinateTopLeft();
+        return y + getHeight() > 0 && y < parentSpriteHeight;
+    }
+
+    private void updateVisibilityInParent(int xDrawingCoordinate, int yDrawingCoordinate) {
+        boolean visible = activeInParent && isWithinParentSpriteHeight();
+        if (visible == visibleInParent) {
+            return;
+        }
+        visibleInParent = visible;
+        if (!visible && isMarkingDrawnArea()) {
+            // Clear what was last drawn before going out of view
+            markLastDrawnAreaAsDirty(xDrawingCoordinate);
+        }
+        if (visible && renderChildRainDropSpritesByRow) {
+            rowOffsetUpdater.resynchronizeRowOffsets(this.getYCoordinateTopLeft(), yDrawingCoordinate);
         }
     }
 
+    /**
+     * Updates this RainLineSprite and its RainDropSprites for a frame, before the position of this RainLineSprite is
+     * moved for the frame. The parent pane calls this for all of its RainLineSprites, possibly from several threads at
+     * once, instead of each RainLineSprite updating in {@link #updateBeforeChildren(long)}. As the parent is busy
+     * updating while this is called, its drawing coordinates are passed in rather than queried from it.
+     *
+     * @param elapsedTimeInMilliseconds
+     *         Time elapsed since the last update
+     * @param parentXDrawingCoordinate
+     *         X drawing coordinate of the parent sprite
+     * @param parentYDrawingCoordinate
+     *         Y drawing coordinate of the parent sprite
+     * @param parentHeight
+     *         Height of the parent sprite, used to know if this RainLineSprite is in view and the max length of this
+     *         RainLineSprite from then on
+     * @param fallDistance
+     *         Distance this RainLineSprite falls during the update, moved after everything else is updated
+     */
+    void updateLineAndRainDrops(long elapsedTimeInMilliseconds, int parentXDrawingCoordinate,
+            int parentYDrawingCoordinate, int parentHeight, float fallDistance) {
+        parentSpriteHeight = parentHeight;
+        int xDrawingCoordinate = parentXDrawingCoordinate + getRoundedXCoordinateTopLeft();
+        int yDrawingCoordinate = parentYDrawingCoordinate + getRoundedYCoordinateTopLeft();
+        updateVisibilityInParent(xDrawingCoordinate, yDrawingCoordinate);
+        if (visibleInParent) {
+            if (renderChildRainDropSpritesByRow) {
+                rowOffsetUpdater.updateRowOffsetsAndTransferCharsUpwardsIfNeeded(this.getYCoordinateTopLeft(),
+                        yDrawingCoordinate);
+            }
+            if (isMarkingDrawnArea()) {
+                markDrawnAreaAsDirtyIfMoved(xDrawingCoordinate, yDrawingCoordinate);
+            } else {
+                // Whatever was marked before rendering from a grid is no longer on screen by the time it's marked again
+                lastMarkedDrawingYCoordinate = Integer.MIN_VALUE;
+            }
+            for (int i = 0, size = orderedStackOfRainDropSprites.size(); i < size; i++) {
+                orderedStackOfRainDropSprites.get(i).updateCharacterTimer(elapsedTimeInMilliseconds,
+                        xDrawingCoordinate, yDrawingCoordinate, random, dirtyArea);
+            }
+        }
+        setYCoordinateTopLeft(getYCoordinateTopLeft() + fallDistance);
+    }
 
-    @Override
-    public synchronized void updateBeforeChildren(long elapsedTimeInMilliseconds) {
-        if (renderChildRainDropSpritesByRow) {
-            rowOffsetUpdater.updateRowOffsetsAndTransferCharsUpwardsIfNeeded(this.getYCoordinateTopLeft());
+    /**
+     * @return True if this RainLineSprite adds the area it's drawn in to the dirtyArea. When rendering from a {@link
+     * CharacterGrid} the parent pane marks the cells that changed between grids instead, which is usually far less than
+     * the area of each line that moved.
+     */
+    private boolean isMarkingDrawnArea() {
+        return !renderSettings.getRenderMode().isRenderedFromCharacterGrid();
+    }
+
+    /**
+     * Adds the area the RainDropSprites are drawn in to the dirtyArea, along with the area they were last drawn in,
+     * if that area changed. When rendering by row that only happens when the RainDropSprites move onto another row.
+     */
+    private void markDrawnAreaAsDirtyIfMoved(int xDrawingCoordinate, int yDrawingCoordinate) {
+        int drawingYCoordinate = yDrawingCoordinate +
+                (renderChildRainDropSpritesByRow ? bottomRainDropSprite.getYCoordinateRenderingOffset() : 0);
+        int height = getHeight();
+        if (drawingYCoordinate != lastMarkedDrawingYCoordinate || height != lastMarkedHeight) {
+            markLastDrawnAreaAsDirty(xDrawingCoordinate);
+            dirtyArea.add(xDrawingCoordinate, drawingYCoordinate, getWidth(), height);
+            lastMarkedDrawingYCoordinate = drawingYCoordinate;
+            lastMarkedHeight = height;
         }
     }
 
+    /**
+     * Adds the area this RainLineSprite changed since this was last called to the passed DirtyRegion of the parent
+     * pane, called by the parent once it's done updating its RainLineSprites in parallel.
+     */
+    void moveDirtyAreaTo(DirtyRegion dirtyRegion) {
+        dirtyArea.moveTo(dirtyRegion);
+    }
+
+    private void markLastDrawnAreaAsDirty(int xDrawingCoordinate) {
+        if (lastMarkedDrawingYCoordinate != Integer.MIN_VALUE) {
+            dirtyArea.add(xDrawingCoordinate, lastMarkedDrawingYCoordinate, getWidth(), lastMarkedHeight);
+            lastMarkedDrawingYCoordinate = Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Draws nothing, as this RainLineSprite changes while it's drawn. The parent pane draws the outlines of its
+     * RainLineSprites and their RainDropSprites from its latest frame instead.
+     */
     @Override
-    protected synchronized void debugDraw(Graphics2D g) {
-        Graphics debugGraphics = g.create();
-        debugGraphics.setColor(Color.WHITE);
-        debugGraphics
-                .drawRect(this.getXDrawingCoordinateTopLeft(), this.getYDrawingCoordinateTopLeft(), this.getWidth(),
-                        this.getHeight());
-        debugGraphics.dispose();
+    protected void debugDraw(Graphics2D g) {
     }
 }
@@ -0,0 +1,68 @@
+package org.jamesgames.digitalrain.rain;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * RainLineUpdateTask updates a range of {@link RainLineSprite}s for a frame, splitting the range in half and updating
+ * both halves in parallel until a range is small enough to update directly. RainLineSprites only change their own
+ * RainDropSprites when updated, so any RainLineSprite can be updated at the same time as another.
+ *
+ * @author James Murphy
+ */
+class RainLineUpdateTask extends RecursiveAction {
+    /**
+     * Ranges of at most this many RainLineSprites are updated directly rather than split any further.
+     */
+    static final int rainLineSpritesPerTask = 16;
+
+    private final List<RainLineSprite> rainLineSprites;
+    private final int fromIndex;
+    private final int toIndex;
+    private final long elapsedTimeInMilliseconds;
+    private final int parentXDrawingCoordinate;
+    private final int parentYDrawingCoordinate;
+    private final int parentHeight;
+    private final float fallDistance;
+
+    /**
+     * @param rainLineSprites
+     *         RainLineSprites to update, which must not be changed while the task runs
+     * @param fromIndex
+     *         Index of the first RainLineSprite to update
+     * @param toIndex
+     *         Index after the last RainLineSprite to update
+     * @param parentHeight
+     *         Height of the parent pane
+     * @param fallDistance
+     *         Distance every RainLineSprite falls during the update
+     */
+    RainLineUpdateTask(List<RainLineSprite> rainLineSprites, int fromIndex, int toIndex,
+            long elapsedTimeInMilliseconds, int parentXDrawingCoordinate, int parentYDrawingCoordinate,
+            int parentHeight, float fallDistance) {
+        this.rainLineSprites = rainLineSprites;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.elapsedTimeInMilliseconds = elapsedTimeInMilliseconds;
+        this.parentXDrawingCoordinate = parentXDrawingCoordinate;
+        this.parentYDrawingCoordinate = parentYDrawingCoordinate;
+        this.parentHeight = parentHeight;
+        this.fallDistance = fallDistance;
+    }
+
+    @Override
+    protected void compute() {
+        if (toIndex - fromIndex <= rainLineSpritesPerTask) {
+            for (int i = fromIndex; i < toIndex; i++) {
+                rainLineSprites.get(i).updateLineAndRainDrops(elapsedTimeInMilliseconds, parentXDrawingCoordinate,
+                        parentYDrawingCoordinate, parentHeight, fallDistance);
+            }
+        } else {
+            int middleIndex = (fromIndex + toIndex) >>> 1;
+            invokeAll(new RainLineUpdateTask(rainLineSprites, fromIndex, middleIndex, elapsedTimeInMilliseconds,
+                            parentXDrawingCoordinate, parentYDrawingCoordinate, parentHeight, fallDistance),
+                    new RainLineUpdateTask(rainLineSprites, middleIndex, toIndex, elapsedTimeInMilliseconds,
+                            parentXDrawingCoordinate, parentYDrawingCoordinate, parentHeight, fallDistance));
+        }
+    }
+}
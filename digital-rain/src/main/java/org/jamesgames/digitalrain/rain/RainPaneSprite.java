@@ -1,17 +1,38 @@
 package org.jamesgames.digitalrain.rain;
 
 import net.jcip.annotations.ThreadSafe;
+import org.jamesgames.digitalrain.jfr.PaneResizedEvent;
+import org.jamesgames.digitalrain.jfr.RainLineRecycledEvent;
 import org.jamesgames.easysprite.Sprite;
+import org.jamesgames.jamesjavautils.general.ObserverSet;
 
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * RainPaneSprite is a {@link org.jamesgames.easysprite.Sprite} that renders and positions zero to many {@link
  * RainLineSprite}s across it's boundaries. The number of RainLineSprites contained within the sprite is how ever many
  * can fit across the sprite width wise, where one column of available space for a RainLineSprite is only used by one
  * RainLineSprite. The number of RainLineSprites changes when the sprite changes size.
+ * <p>
+ * Only the thread updating a RainPaneSprite changes it or its RainLineSprites and RainDropSprites. Changes requested
+ * from other threads (like the speed of the rain, the render mode or a new size) are queued and applied at the start
+ * of the next update. Each update compiles what the RainLineSprites show into a frame (a {@link CharacterGrid}, or a
+ * {@link RainDropSpriteFrame} when every RainDropSprite is drawn on its own) and publishes it through a {@link
+ * FrameRing}, which doesn't change a frame while any thread drawing it holds on to it. Drawing only reads the latest
+ * published frame, never the RainLineSprites, so it takes no locks and never sees a RainLineSprite as it changes.
  *
  * @author James Murphy
  */
@@ -19,6 +40,7 @@ import java.util.List;
 public class RainPaneSprite extends Sprite {
 
     public static final float defaultYVelocityUnitsPerMillisecond = 0.2f;
+    public static final long defaultSimulationStepInMilliseconds = 16;
     private static final String defaultMonoSpacedFond = Font.MONOSPACED;
     private static final int unitsBetweenRainDropLines = 1;
     /**
@@ -26,15 +48,62 @@ public class RainPaneSprite extends Sprite {
      * was decided as an okay amount of RainDropSprites for most screen setups.
      */
     private static final int defaultMaxNumberOfRainDropSpritesInLine = 300;
-    private static final Random random = new Random();
+    /**
+     * Enough retired RainLineSprites to widen a pane across a large display at small font sizes without creating any.
+     */
+    public static final int defaultMaxRetiredRainLineSprites = 512;
+    /**
+     * Simulated time between trims of the pool of idle RainDropSprites, long enough for lines of every length to have
+     * come and gone several times, so the pool keeps what the scene needs at its busiest.
+     */
+    private static final long rainDropSpritePoolTrimIntervalInMilliseconds = 10000;
+    /**
+     * Most simulation steps run in one update. After a long stall the simulation skips ahead rather than spending
+     * several more frames catching up.
+     */
+    private static final int maxSimulationStepsPerUpdate = 5;
+    /**
+     * First bytes of every snapshot ("DRSN"), followed by the snapshot format version.
+     */
+    private static final int snapshotMagicNumber = 0x4452534E;
+    private static final int snapshotVersion = 2;
+    /**
+     * Value of requestedSize while no resize is pending, which no pair of non-negative width and height packs into.
+     */
+    private static final long noResizeRequested = -1;
+    /**
+     * Most character images of each color kept rasterized at once for character sets too large to keep whole, like the
+     * CJK ideographs, which are rasterized as they come up instead. Smaller sets are kept whole.
+     */
+    private static final int glyphCacheCapacityPerColor = 4096;
+
+    /**
+     * Used for the random choices of the pane itself, like line colors and starting positions, each RainLineSprite is
+     * given its own RainRandom seeded from this one.
+     */
+    private final RainRandom random = new RainRandom();
 
     private final List<Color> availableRainColors;
     private final RainDropCharacterImageStore characterImageStore;
     private final int spaceNeededToAddAnotherRainDropLine;
     private final int fontWidth;
     private final int fontHeight;
+    private final int unitsFromOneRowToAnother;
+
+    private volatile float yVelocityToUseForRainLines = defaultYVelocityUnitsPerMillisecond;
+
+    /**
+     * The simulation advances in steps of a fixed length no matter how much time passes between updates, time not yet
+     * simulated is carried over to the next update.
+     */
+    private long simulationStepInMilliseconds = defaultSimulationStepInMilliseconds;
+    private long timeNotYetSimulatedInMilliseconds;
 
-    private float yVelocityToUseForRainLines = defaultYVelocityUnitsPerMillisecond;
+    /**
+     * Clock the simulation follows instead of the elapsed time of each update, or null to follow the elapsed time.
+     */
+    private SimulationClock simulationClock;
+    private long lastSimulationClockReadingInMilliseconds;
 
 
     /**
@@ -51,54 +120,662 @@ public class RainPaneSprite extends Sprite {
      */
     private final OffsetAnimationMap offsetAnimationMap;
 
+    /**
+     * Areas of this RainPaneSprite that changed visually since it was last repainted, kept per column.
+     */
+    private final DirtyRegion dirtyRegion;
+    private int lastHorizontalDirtyRegionMargin;
+    private int lastVerticalDirtyRegionMargin;
+
+    /**
+     * Settings of how this RainPaneSprite renders, shared with its RainLineSprites and RainDropSprites.
+     */
+    private final RainRenderSettings renderSettings = new RainRenderSettings();
+
+    /**
+     * RainLineSprites to update in the current frame, reused from frame to frame.
+     */
+    private final List<RainLineSprite> rainLineSpritesToUpdate = new ArrayList<>();
+
+    /**
+     * RainLineSprites removed as the pane narrowed, put back into use as it widens again instead of creating new ones,
+     * so going back and forth between sizes (dragging a window edge, toggling full screen) allocates nothing once the
+     * pane has been at its widest. At most maxRetiredRainLineSprites are kept, the rest are left to be collected.
+     */
+    private final Deque<RainLineSprite> retiredRainLineSprites = new ArrayDeque<>();
+    private int maxRetiredRainLineSprites = defaultMaxRetiredRainLineSprites;
+    /**
+     * RainLineSprites being removed during a resize, reused from resize to resize.
+     */
+    private final List<Sprite> rainLineSpritesToRemove = new ArrayList<>();
+
+    /**
+     * Idle RainDropSprites shared by all RainLineSprites, trimmed down to recent demand every
+     * rainDropSpritePoolTrimIntervalInMilliseconds of simulated time.
+     */
+    private final RainDropSpritePool rainDropSpritePool;
+    private long timeSinceRainDropSpritePoolTrimInMilliseconds;
+
+    /**
+     * Changes requested from any thread, applied by the updating thread at the start of the next update.
+     */
+    private final Queue<Runnable> pendingCommands = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Latest size asked for by {@link #requestResize(int, int)} and not yet applied, with the width in the high 32 bits
+     * and the height in the low 32 bits, or noResizeRequested. Sizes asked for while one is pending replace it, so
+     * the many sizes a window goes through while its edge is dragged become at most one resize per update.
+     */
+    private final AtomicLong requestedSize = new AtomicLong(noResizeRequested);
+    private final AtomicInteger resizeRequestsSinceLastResize = new AtomicInteger();
+
+    /**
+     * Colors a {@link CharacterGrid} of this RainPaneSprite can refer to. Index 0 is the background, index 1 is the
+     * color of the bottom RainDropSprite of each line, and the rain colors follow.
+     */
+    private final Color[] characterGridPalette;
+    private final Map<Color, Byte> characterGridPaletteIndices = new HashMap<>();
+    private static final byte bottomRainDropPaletteIndex = 1;
+    private static final int firstRainColorPaletteIndex = 2;
+
+    /**
+     * Grids compiled each frame when rendering with a character grid, the latest one published. Grids are reused once
+     * no thread draws them anymore, so compiling a frame allocates nothing.
+     */
+    private final FrameRing<CharacterGrid> characterGrids = new FrameRing<>(CharacterGrid::new);
+
+    /**
+     * Frames compiled each frame when every RainDropSprite is drawn on its own or debug graphics are drawn, the latest
+     * one published, reused in the same way as the grids.
+     */
+    private final FrameRing<RainDropSpriteFrame> rainDropSpriteFrames;
+    /**
+     * True while debug graphics are drawn, in which case frames of RainDropSprites are compiled whatever the render
+     * mode, as the debug graphics are drawn from them. Only touched by the updating thread.
+     */
+    private boolean drawingDebugGraphics = false;
+    private final CharacterGridRenderer characterGridRenderer;
+    private final PersistentBufferRenderer persistentBufferRenderer;
+    private final SoftwareGlyphBlitter softwareGlyphBlitter;
+    private final FrameRenderThread frameRenderThread;
+    private final ObserverSet<FrameRenderedListener> frameRenderedListeners = new ObserverSet<>();
+    /**
+     * Frame number of the grid shown by the image of the software glyph blitter, only touched while drawing.
+     */
+    private long frameNumberInSoftwareBlitFrame = -1;
+    private final ChangedCellMarker changedCellMarker = new ChangedCellMarker();
+
+    /**
+     * Running counters describing the sprites and caches of this RainPaneSprite.
+     */
+    private final RainPaneStatistics statistics;
+
     public RainPaneSprite(Set<Color> rainColors, int fontStyle, int fontSize, OffsetAnimationMap offsetAnimationMap) {
         this(rainColors, new Font(defaultMonoSpacedFond, fontStyle, fontSize), offsetAnimationMap);
     }
 
+    /**
+     * Creates a RainPaneSprite to be drawn to the default display, or drawn offscreen if there's no display.
+     */
     public RainPaneSprite(Set<Color> rainColors, Font rainFont, OffsetAnimationMap offsetAnimationMap) {
+        this(rainColors, rainFont, offsetAnimationMap, GraphicsEnvironment.isHeadless() ? null :
+                GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration());
+    }
+
+    /**
+     * @param graphicsConfiguration
+     *         Configuration of the device the RainPaneSprite will be drawn to, which its character images are made
+     *         compatible with, or null when it's only drawn offscreen
+     */
+    public RainPaneSprite(Set<Color> rainColors, Font rainFont, OffsetAnimationMap offsetAnimationMap,
+            GraphicsConfiguration graphicsConfiguration) {
+        this(rainColors, rainFont, RainCharacterSet.halfWidthKatakana, offsetAnimationMap, graphicsConfiguration);
+    }
+
+    /**
+     * @param characterSet
+     *         Characters to draw the rain with, of which only the characters the font can display are used
+     * @param graphicsConfiguration
+     *         Configuration of the device the RainPaneSprite will be drawn to, which its character images are made
+     *         compatible with, or null when it's only drawn offscreen
+     * @throws IllegalArgumentException
+     *         If the font can't display any of the characters
+     */
+    public RainPaneSprite(Set<Color> rainColors, Font rainFont, RainCharacterSet characterSet,
+            OffsetAnimationMap offsetAnimationMap, GraphicsConfiguration graphicsConfiguration) {
         super(0, 0);
         this.offsetAnimationMap = offsetAnimationMap;
         this.availableRainColors = new ArrayList<>(rainColors);
         this.characterImageStore =
-                new RainDropCharacterImageStore(rainColors, RainLineSprite.bottomRainDropColor,
-                        rainFont);
+                new RainDropCharacterImageStore(rainColors, RainLineSprite.bottomRainDropColor, rainFont,
+                        characterSet.displayableWith(rainFont), graphicsConfiguration, glyphCacheCapacityPerColor);
         this.fontWidth = characterImageStore.getFontWidth();
         this.fontHeight = characterImageStore.getFontHeight();
         this.closetXCoordinateFromLeftForAnotherRainDropLine = 0;
         this.spaceNeededToAddAnotherRainDropLine = fontWidth + unitsBetweenRainDropLines;
+        this.unitsFromOneRowToAnother = fontHeight + RainLineSprite.unitsBetweenRainDrops;
+        this.dirtyRegion = new DirtyRegion(spaceNeededToAddAnotherRainDropLine);
+        this.statistics = new RainPaneStatistics(characterImageStore, offsetAnimationMap, unitsFromOneRowToAnother);
+        if (availableRainColors.size() + firstRainColorPaletteIndex > 256) {
+            throw new IllegalArgumentException("At most " + (256 - firstRainColorPaletteIndex) +
+                    " rain colors are supported (" + availableRainColors.size() + " were supplied)");
+        }
+        this.characterGridPalette = new Color[availableRainColors.size() + firstRainColorPaletteIndex];
+        characterGridPalette[CharacterGrid.emptyPaletteIndex] = Color.BLACK;
+        characterGridPalette[bottomRainDropPaletteIndex] = RainLineSprite.bottomRainDropColor;
+        for (int i = 0; i < availableRainColors.size(); i++) {
+            characterGridPalette[i + firstRainColorPaletteIndex] = availableRainColors.get(i);
+            characterGridPaletteIndices.put(availableRainColors.get(i), (byte) (i + firstRainColorPaletteIndex));
+        }
+        this.characterGridRenderer = new CharacterGridRenderer(characterImageStore, offsetAnimationMap,
+                spaceNeededToAddAnotherRainDropLine, unitsFromOneRowToAnother);
+        this.persistentBufferRenderer =
+                new PersistentBufferRenderer(characterImageStore, offsetAnimationMap, characterGridRenderer);
+        this.softwareGlyphBlitter =
+                new SoftwareGlyphBlitter(characterImageStore, offsetAnimationMap, characterGridRenderer);
+        this.frameRenderThread = new FrameRenderThread(characterImageStore, offsetAnimationMap, characterGridRenderer,
+                frameRenderedListeners, characterGrids);
+        this.rainDropSpritePool =
+                new RainDropSpritePool(fontWidth, fontHeight, characterImageStore, renderSettings, statistics);
+        this.rainDropSpriteFrames = new FrameRing<>(() -> new RainDropSpriteFrame(fontWidth, fontHeight));
         addNewRainLineSpritesToFarRight();
     }
 
-    public synchronized void changeRainLineYVelocities(float newYVelocityInUnitsPerMillisecond) {
+    /**
+     * Changes the speed of every RainLineSprite, at the start of the next update.
+     */
+    public void changeRainLineYVelocities(float newYVelocityInUnitsPerMillisecond) {
+        pendingCommands.add(() -> applyRainLineYVelocities(newYVelocityInUnitsPerMillisecond));
+    }
+
+    private void applyRainLineYVelocities(float newYVelocityInUnitsPerMillisecond) {
         this.yVelocityToUseForRainLines = newYVelocityInUnitsPerMillisecond;
+    }
+
+    /**
+     * Changes the length of each simulation step, at the start of the next update. A step the length of a display's
+     * refresh interval gives one step per displayed frame.
+     */
+    public void setSimulationStepInMilliseconds(long simulationStepInMilliseconds) {
+        if (simulationStepInMilliseconds <= 0) {
+            throw new IllegalArgumentException(
+                    "Simulation step must be positive (" + simulationStepInMilliseconds + " was supplied)");
+        }
+        pendingCommands.add(() -> this.simulationStepInMilliseconds = simulationStepInMilliseconds);
+    }
+
+    /**
+     * Changes how many RainLineSprites removed by narrowing the pane are kept for reuse, at the start of the next
+     * update. Retired RainLineSprites beyond the new limit are discarded, 0 discards them all and keeps none.
+     */
+    public void setMaxRetiredRainLineSprites(int maxRetiredRainLineSprites) {
+        if (maxRetiredRainLineSprites < 0) {
+            throw new IllegalArgumentException(
+                    "Max retired rain lines must not be negative (" + maxRetiredRainLineSprites + " was supplied)");
+        }
+        pendingCommands.add(() -> {
+            this.maxRetiredRainLineSprites = maxRetiredRainLineSprites;
+            while (retiredRainLineSprites.size() > maxRetiredRainLineSprites) {
+                retiredRainLineSprites.removeLast();
+                statistics.retiredRainLineSpritesAdded(-1);
+            }
+        });
+    }
+
+    /**
+     * Makes the simulation follow the passed clock rather than the elapsed time of each update, at the start of the
+     * next update. RainPaneSprites following the same clock with the same simulation step length run their steps at
+     * the same moments on the clock, no matter which threads update them or how often.
+     */
+    public void setSimulationClock(SimulationClock simulationClock) {
+        pendingCommands.add(() -> {
+            this.simulationClock = simulationClock;
+            lastSimulationClockReadingInMilliseconds = simulationClock.getElapsedTimeInMilliseconds();
+            // Starts out as far into a step as the clock is, so steps line up with other panes following the clock
+            timeNotYetSimulatedInMilliseconds = lastSimulationClockReadingInMilliseconds % simulationStepInMilliseconds;
+        });
+    }
+
+    /**
+     * @return The speed RainLineSprites fall at, as of the latest change applied
+     */
+    public float getRainLineYVelocityInUnitsPerMillisecond() {
+        return yVelocityToUseForRainLines;
+    }
+
+    /**
+     * Takes a snapshot of the scene at the start of the next update, see {@link #writeSnapshot(DataOutput)}.
+     *
+     * @return Completed with the bytes of the snapshot by the updating thread
+     */
+    public CompletableFuture<byte[]> requestSnapshot() {
+        CompletableFuture<byte[]> snapshot = new CompletableFuture<>();
+        pendingCommands.add(() -> {
+            ByteArrayOutputStream snapshotBytes = new ByteArrayOutputStream();
+            try {
+                writeSnapshot(new DataOutputStream(snapshotBytes));
+                snapshot.complete(snapshotBytes.toByteArray());
+            } catch (IOException | RuntimeException e) {
+                snapshot.completeExceptionally(e);
+            }
+        });
+        return snapshot;
+    }
+
+    /**
+     * Writes the scene's configuration (font, characters and rain colors) and the full state of its simulation,
+     * including the state of every random number generator, so the scene read back by {@link #readSnapshot(DataInput,
+     * OffsetAnimationMap, GraphicsConfiguration)} continues exactly as this one would. How the scene is rendered and
+     * its animation offset function are not part of the snapshot. Must only be called by the updating thread, or while
+     * nothing updates this RainPaneSprite.
+     */
+    public void writeSnapshot(DataOutput out) throws IOException {
+        out.writeInt(snapshotMagicNumber);
+        out.writeShort(snapshotVersion);
+        Font font = characterImageStore.getFont();
+        out.writeUTF(font.getName());
+        out.writeByte(font.getStyle());
+        out.writeShort(font.getSize());
+        // The characters actually drawn with, as glyph indices refer to their positions in it
+        RainCharacterSet characterSet = characterImageStore.getCharacterSet();
+        out.writeUTF(characterSet.getName());
+        out.writeInt(characterSet.size());
+        out.writeChars(characterSet.getCharacters());
+        out.writeByte(availableRainColors.size());
+        for (Color rainColor : availableRainColors) {
+            out.writeInt(rainColor.getRGB());
+        }
+        out.writeInt(getWidth());
+        out.writeInt(getHeight());
+        out.writeFloat(yVelocityToUseForRainLines);
+        out.writeLong(simulationStepInMilliseconds);
+        out.writeLong(timeNotYetSimulatedInMilliseconds);
+        out.writeLong(random.getState());
+        // Lines are kept left to right, one per column, so their x coordinates follow from their order
+        List<RainLineSprite> rainLineSprites = new ArrayList<>();
+        for (Sprite s : this) {
+            if (s instanceof RainLineSprite) {
+                rainLineSprites.add((RainLineSprite) s);
+            }
+        }
+        out.writeInt(rainLineSprites.size());
+        for (RainLineSprite s : rainLineSprites) {
+            out.writeByte(availableRainColors.indexOf(s.getRainDropColor()));
+            s.writeSnapshot(out);
+        }
+    }
+
+    /**
+     * Creates a RainPaneSprite from a snapshot written by {@link #writeSnapshot(DataOutput)}, sized as the scene was.
+     *
+     * @param offsetAnimationMap
+     *         Animation offsets to use, as the offset function isn't part of the snapshot
+     * @param graphicsConfiguration
+     *         Configuration of the device the RainPaneSprite will be drawn to
+     * @throws IOException
+     *         If the snapshot can't be read or isn't a snapshot of a scene
+     */
+    public static RainPaneSprite readSnapshot(DataInput in, OffsetAnimationMap offsetAnimationMap,
+            GraphicsConfiguration graphicsConfiguration) throws IOException {
+        if (in.readInt() != snapshotMagicNumber) {
+            throw new IOException("Not a digital rain scene snapshot");
+        }
+        int version = in.readUnsignedShort();
+        if (version != snapshotVersion) {
+            throw new IOException("Unsupported scene snapshot version (" + version + ")");
+        }
+        Font rainFont = new Font(in.readUTF(), in.readByte(), in.readShort());
+        String characterSetName = in.readUTF();
+        int characterCount = in.readInt();
+        if (characterCount <= 0 || characterCount > RainCharacterSet.maxCharacterCount) {
+            throw new IOException("Snapshot has an invalid character set size (" + characterCount + ")");
+        }
+        StringBuilder characters = new StringBuilder(characterCount);
+        for (int i = 0; i < characterCount; i++) {
+            characters.append(in.readChar());
+        }
+        RainCharacterSet characterSet = new RainCharacterSet(characterSetName, characters.toString());
+        int rainColorCount = in.readUnsignedByte();
+        // Kept in the order written, as lines refer to their color by its position
+        Set<Color> rainColors = new LinkedHashSet<>();
+        for (int i = 0; i < rainColorCount; i++) {
+            rainColors.add(new Color(in.readInt(), true));
+        }
+        if (rainColors.size() != rainColorCount || rainColorCount == 0) {
+            throw new IOException("Snapshot has an invalid set of rain colors");
+        }
+        RainPaneSprite rainPaneSprite;
+        try {
+            rainPaneSprite =
+                    new RainPaneSprite(rainColors, rainFont, characterSet, offsetAnimationMap, graphicsConfiguration);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Snapshot's characters can't be displayed with its font", e);
+        }
+        if (rainPaneSprite.getCharacterSet().size() != characterSet.size()) {
+            throw new IOException("Snapshot has characters its font can't display on this machine");
+        }
+        rainPaneSprite.readSimulationState(in);
+        return rainPaneSprite;
+    }
+
+    private void readSimulationState(DataInput in) throws IOException {
+        int width = in.readInt();
+        int height = in.readInt();
+        yVelocityToUseForRainLines = in.readFloat();
+        simulationStepInMilliseconds = in.readLong();
+        timeNotYetSimulatedInMilliseconds = in.readLong();
+        if (width < 0 || height < 0 || simulationStepInMilliseconds <= 0) {
+            throw new IOException("Snapshot has an invalid size or simulation step");
+        }
+        long randomState = in.readLong();
+        int rainLineSpriteCount = in.readInt();
+        if (rainLineSpriteCount < 0 || rainLineSpriteCount > width / spaceNeededToAddAnotherRainDropLine) {
+            throw new IOException("Snapshot has more rain lines (" + rainLineSpriteCount + ") than fit its width");
+        }
+        for (int i = 0; i < rainLineSpriteCount; i++) {
+            int rainColorIndex = in.readUnsignedByte();
+            if (rainColorIndex >= availableRainColors.size()) {
+                throw new IOException("Snapshot has a rain line with an unknown color (" + rainColorIndex + ")");
+            }
+            RainLineSprite s = createRainLineSprite(availableRainColors.get(rainColorIndex), height);
+            s.readSnapshot(in);
+            s.setXCoordinateTopLeft(closetXCoordinateFromLeftForAnotherRainDropLine);
+            updateActiveInParent(s);
+            addChildSprite(s);
+            closetXCoordinateFromLeftForAnotherRainDropLine += spaceNeededToAddAnotherRainDropLine;
+        }
+        statistics.rainLineSpritesAdded(rainLineSpriteCount);
+        // Restored last, as creating lines draws from it, and the lines restored already cover the width
+        random.setState(randomState);
+        resize(width, height);
+    }
+
+    /**
+     * @return Running counters describing the sprites and caches of this RainPaneSprite
+     */
+    public RainPaneStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return Characters the rain is drawn with, which are the characters of the set this RainPaneSprite was created
+     * with that its font can display
+     */
+    public RainCharacterSet getCharacterSet() {
+        return characterImageStore.getCharacterSet();
+    }
+
+    /**
+     * Changes how this RainPaneSprite renders, at the start of the next update.
+     */
+    public void setRenderMode(RainRenderMode renderMode) {
+        pendingCommands.add(() -> applyRenderMode(renderMode));
+    }
+
+    private void applyRenderMode(RainRenderMode renderMode) {
+        renderSettings.setRenderMode(renderMode);
+        if (renderMode != RainRenderMode.RENDER_THREAD) {
+            frameRenderThread.stop();
+        }
+        dirtyRegion.addEverything();
+    }
+
+    public RainRenderMode getRenderMode() {
+        return renderSettings.getRenderMode();
+    }
+
+    /**
+     * Changes how much work this RainPaneSprite does per frame, at the start of the next update. Lowering the level
+     * takes effect right away, except for the length of RainLineSprites which is lowered as each one is reset.
+     */
+    public void setQualityLevel(QualityLevel qualityLevel) {
+        pendingCommands.add(() -> applyQualityLevel(qualityLevel));
+    }
+
+    private void applyQualityLevel(QualityLevel qualityLevel) {
+        renderSettings.setQualityLevel(qualityLevel);
+        offsetAnimationMap.setApplyingOffsets(qualityLevel.isApplyingOffsets());
+        for (Sprite s : this) {
+            if (s instanceof RainLineSprite) {
+                updateActiveInParent((RainLineSprite) s);
+            }
+        }
+        statistics.qualityLevelApplied(qualityLevel);
+        dirtyRegion.addEverything();
+    }
+
+    public QualityLevel getQualityLevel() {
+        return renderSettings.getQualityLevel();
+    }
+
+    private void updateActiveInParent(RainLineSprite s) {
+        int column = s.getRoundedXCoordinateTopLeft() / spaceNeededToAddAnotherRainDropLine;
+        s.setActiveInParent(column % renderSettings.getQualityLevel().getActiveColumnInterval() == 0);
+    }
+
+    /**
+     * Resizes this RainPaneSprite at the start of the next update, used to resize a RainPaneSprite that may be updating
+     * on another thread. Only the latest size requested before an update is applied, so the many sizes passed while a
+     * window's edge is dragged cost one resize per frame.
+     */
+    public void requestResize(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Size must not be negative (" + width + "x" + height + " was supplied)");
+        }
+        resizeRequestsSinceLastResize.incrementAndGet();
+        if (requestedSize.getAndSet(((long) width << 32) | height) == noResizeRequested) {
+            pendingCommands.add(this::applyRequestedResize);
+        }
+    }
+
+    private void applyRequestedResize() {
+        long size = requestedSize.getAndSet(noResizeRequested);
+        resize((int) (size >>> 32), (int) size);
+    }
+
+    /**
+     * Resizes this RainPaneSprite at the start of the next update to the size that makes its character grid the passed
+     * number of columns and rows, like to fill a text terminal of that size.
+     */
+    public void requestResizeToCharacterGrid(int columns, int rows) {
+        requestResize(columns * spaceNeededToAddAnotherRainDropLine, rows * unitsFromOneRowToAnother);
+    }
+
+    /**
+     * Toggles the drawing of debug graphics of this RainPaneSprite and everything in it, at the start of the next
+     * update.
+     */
+    public void requestToggleOfDebugGraphics() {
+        pendingCommands.add(() -> {
+            drawingDebugGraphics = !drawingDebugGraphics;
+            toggleDrawingDebugGraphicsIncludingChildSprites();
+        });
+    }
+
+    /**
+     * Stops any thread this RainPaneSprite renders frames on, used when the RainPaneSprite is no longer displayed. The
+     * thread is started again if the RainPaneSprite is updated while rendering on a separate thread.
+     */
+    public void stopRenderThread() {
+        frameRenderThread.stop();
+    }
+
+    /**
+     * Draws the latest frame completed by the render thread, without waiting on this RainPaneSprite, so painting never
+     * waits for an update to finish.
+     *
+     * @return False if this RainPaneSprite isn't rendering on a separate thread or no frame was completed yet, in
+     * which case nothing was drawn
+     */
+    public boolean drawLatestRenderedFrame(Graphics2D g) {
+        return renderSettings.getRenderMode() == RainRenderMode.RENDER_THREAD &&
+                frameRenderThread.drawLatestCompletedFrame(g);
+    }
+
+    public void addFrameRenderedListener(FrameRenderedListener listener) {
+        frameRenderedListeners.addObserver(listener);
+    }
+
+    public void removeFrameRenderedListener(FrameRenderedListener listener) {
+        frameRenderedListeners.removeObserver(listener);
+    }
+
+    /**
+     * Writes the current state of every visible RainLineSprite into the passed grid, one column per RainLineSprite and
+     * one row per row of characters that fits in this RainPaneSprite. Must only be called by the updating thread.
+     */
+    public void compileCharacterGrid(CharacterGrid grid) {
+        grid.reset(closetXCoordinateFromLeftForAnotherRainDropLine / spaceNeededToAddAnotherRainDropLine,
+                (getHeight() + unitsFromOneRowToAnother - 1) / unitsFromOneRowToAnother,
+                characterGridPalette, characterImageStore.getCharacterSet());
+        for (Sprite s : this) {
+            if (s instanceof RainLineSprite) {
+                RainLineSprite line = (RainLineSprite) s;
+                int column = line.getRoundedXCoordinateTopLeft() / spaceNeededToAddAnotherRainDropLine;
+                line.writeToCharacterGrid(grid, column, characterGridPaletteIndices.get(line.getRainDropColor()),
+                        bottomRainDropPaletteIndex, yVelocityToUseForRainLines * timeNotYetSimulatedInMilliseconds);
+            }
+        }
+    }
+
+    /**
+     * @return A new SoftwareGlyphBlitter rendering with the character images and layout of this RainPaneSprite, for
+     * rendering its character grids apart from how the RainPaneSprite is drawn
+     */
+    SoftwareGlyphBlitter createSoftwareGlyphBlitter() {
+        return new SoftwareGlyphBlitter(characterImageStore, offsetAnimationMap, characterGridRenderer);
+    }
+
+    /**
+     * Does the work that would otherwise slow down the first frames this RainPaneSprite is displayed in, computing the
+     * animation offset of every row and compiling the first frame. Glyph images and masks are already created
+     * during construction. Meant to be called after the initial resize and before anything updates this
+     * RainPaneSprite, on the thread building it rather than a thread updating or drawing the displayed scene.
+     */
+    public void prewarm() {
+        computeOffsetsOfRows(0, getHeight());
+        compileFrame();
+    }
+
+    /**
+     * Computes the animation offset of each row from the one at the first y coordinate to the row past the last, the
+     * rows characters are drawn on when the pane spans those y coordinates. Offsets depend only on the y coordinate
+     * and stay computed, so a taller pane only needs the rows it newly shows.
+     */
+    private void computeOffsetsOfRows(int fromYCoordinate, int toYCoordinate) {
+        for (int rowYCoordinate = fromYCoordinate / unitsFromOneRowToAnother * unitsFromOneRowToAnother;
+             rowYCoordinate < toYCoordinate + unitsFromOneRowToAnother; rowYCoordinate += unitsFromOneRowToAnother) {
+            offsetAnimationMap.getXOffset(rowYCoordinate);
+        }
+    }
+
+    /**
+     * Compiles and publishes the latest frame, in the form the current render mode draws, along with a frame of
+     * RainDropSprites to draw debug graphics from while they're drawn.
+     */
+    private void compileFrame() {
+        if (renderSettings.getRenderMode().isRenderedFromCharacterGrid()) {
+            compileCharacterGridAndMarkChangedCells();
+            if (drawingDebugGraphics) {
+                compileRainDropSpriteFrame();
+            }
+        } else {
+            compileRainDropSpriteFrame();
+        }
+    }
+
+    private void compileRainDropSpriteFrame() {
+        RainDropSpriteFrame frame = rainDropSpriteFrames.getFrameToFill();
+        frame.reset(characterGridPalette, closetXCoordinateFromLeftForAnotherRainDropLine, getHeight());
+        int xDrawingCoordinate = getXDrawingCoordinateTopLeft();
+        int yDrawingCoordinate = getYDrawingCoordinateTopLeft();
+        float interpolatedFallDistance = yVelocityToUseForRainLines * timeNotYetSimulatedInMilliseconds;
         for (Sprite s : this) {
             if (s instanceof RainLineSprite) {
-                s.setYVelocity(yVelocityToUseForRainLines);
+                RainLineSprite line = (RainLineSprite) s;
+                line.writeToRainDropSpriteFrame(frame, xDrawingCoordinate, yDrawingCoordinate,
+                        characterGridPaletteIndices.get(line.getRainDropColor()), bottomRainDropPaletteIndex,
+                        interpolatedFallDistance);
             }
         }
+        rainDropSpriteFrames.publish();
+    }
+
+    /**
+     * Compiles the latest frame into a grid no thread is drawing, adds the cells that differ from the previous
+     * frame's grid to the dirty region, and publishes the new grid. RainLineSprites don't mark the areas they're drawn
+     * in while rendering from a grid, so the changed cells are all that's repainted.
+     */
+    private void compileCharacterGridAndMarkChangedCells() {
+        CharacterGrid latestCharacterGrid = characterGrids.getFrameToFill();
+        compileCharacterGrid(latestCharacterGrid);
+        latestCharacterGrid.diff(characterGrids.getPublishedFrame(), changedCellMarker);
+        characterGrids.publish();
+    }
+
+    /**
+     * Copies the areas of this RainPaneSprite that changed visually since the last call to the passed rectangles, so
+     * only those areas have to be repainted. The areas are in the same drawing coordinates the sprites draw themselves
+     * at. Changes in columns far apart are kept in separate rectangles, as long as there are enough rectangles passed.
+     *
+     * @param regions
+     *         Rectangles the changed areas are copied to when only some areas changed, rectangles not needed are
+     *         emptied
+     * @return Whether nothing, some areas, or everything changed
+     */
+    public DirtyRegionState takeDirtyRegion(Rectangle[] regions) {
+        // Offset functions shift where characters are drawn, so the area is widened by the largest shift known. If the
+        // function produced larger shifts since the last call, areas marked earlier may have been too small.
+        int horizontalMargin = offsetAnimationMap.getLargestAbsoluteXOffset();
+        int verticalMargin = offsetAnimationMap.getLargestAbsoluteYOffset();
+        if (horizontalMargin != lastHorizontalDirtyRegionMargin || verticalMargin != lastVerticalDirtyRegionMargin) {
+            lastHorizontalDirtyRegionMargin = horizontalMargin;
+            lastVerticalDirtyRegionMargin = verticalMargin;
+            dirtyRegion.addEverything();
+        }
+        return dirtyRegion.take(regions, horizontalMargin, verticalMargin);
     }
 
-    private void addNewRainLineSpritesToFarRight() {
+    /**
+     * @return The number of RainLineSprites added
+     */
+    private int addNewRainLineSpritesToFarRight() {
+        int rainLineSpritesAdded = 0;
         for (int nextXCoordinateToAddRainDropLineTo = closetXCoordinateFromLeftForAnotherRainDropLine;
              nextXCoordinateToAddRainDropLineTo + spaceNeededToAddAnotherRainDropLine <= this.getWidth();
              nextXCoordinateToAddRainDropLineTo += spaceNeededToAddAnotherRainDropLine) {
 
             addChildSprite(generateRandomRainLineSprite(nextXCoordinateToAddRainDropLineTo));
             closetXCoordinateFromLeftForAnotherRainDropLine += spaceNeededToAddAnotherRainDropLine;
+            rainLineSpritesAdded++;
         }
+        statistics.rainLineSpritesAdded(rainLineSpritesAdded);
+        return rainLineSpritesAdded;
     }
 
     private Sprite generateRandomRainLineSprite(int xCoordinate) {
-        RainLineSprite s =
-                new RainLineSprite(offsetAnimationMap, getRandomRainColorFromSpecifiedList(), fontWidth, fontHeight,
-                        characterImageStore,
-                        getHeight(), defaultMaxNumberOfRainDropSpritesInLine, yVelocityToUseForRainLines, true);
+        RainLineSprite s = retiredRainLineSprites.pollLast();
+        if (s == null) {
+            s = createRainLineSprite(getRandomRainColorFromSpecifiedList(), getHeight());
+        } else {
+            // Draws from the pane's random number generator as creating one does, so either way the scene continues
+            // the same
+            s.reuse(getRandomRainColorFromSpecifiedList(), getHeight(), random.nextLong());
+            statistics.retiredRainLineSpritesAdded(-1);
+        }
         s.setXCoordinateTopLeft(xCoordinate);
         s.setYCoordinateTopLeft(getRandomRainDropLineYCoordinatePosition(s));
+        updateActiveInParent(s);
 
         return s;
     }
 
+    private RainLineSprite createRainLineSprite(Color rainColor, int parentSpriteHeight) {
+        return new RainLineSprite(rainColor, fontWidth, fontHeight, characterImageStore,
+                parentSpriteHeight, defaultMaxNumberOfRainDropSpritesInLine, true, statistics, renderSettings,
+                rainDropSpritePool, new RainRandom(random.nextLong()));
+    }
+
     private Color getRandomRainColorFromSpecifiedList() {
         return availableRainColors.get(random.nextInt(availableRainColors.size()));
     }
@@ -114,60 +791,256 @@ public class RainPaneSprite extends Sprite {
     }
 
     @Override
-    protected synchronized void onResize(int newWidth, int newHeight, int oldWidth, int oldHeight) {
+    protected void onResize(int newWidth, int newHeight, int oldWidth, int oldHeight) {
+        PaneResizedEvent resizedEvent = new PaneResizedEvent();
+        resizedEvent.begin();
+        dirtyRegion.addEverything();
+        int rainLinesAdded = 0;
+        int rainLinesRemoved = 0;
         if (newWidth > oldWidth) {
-            addNewRainLineSpritesToFarRight();
+            rainLinesAdded = addNewRainLineSpritesToFarRight();
         } else if (newWidth < oldWidth) {
-            removeNonVisibleRainDropLinesFromFarRight();
+            rainLinesRemoved = removeNonVisibleRainDropLinesFromFarRight();
+        }
+        // Lines pick up the new height at their next update, and only the rows a taller pane newly shows need offsets
+        if (newHeight > oldHeight) {
+            computeOffsetsOfRows(oldHeight + unitsFromOneRowToAnother, newHeight);
+        }
+        int coalescedResizeRequests = resizeRequestsSinceLastResize.getAndSet(0);
+        resizedEvent.end();
+        if (resizedEvent.shouldCommit()) {
+            resizedEvent.oldWidth = oldWidth;
+            resizedEvent.oldHeight = oldHeight;
+            resizedEvent.newWidth = newWidth;
+            resizedEvent.newHeight = newHeight;
+            resizedEvent.rainLinesAdded = rainLinesAdded;
+            resizedEvent.rainLinesRemoved = rainLinesRemoved;
+            resizedEvent.resizeRequests = coalescedResizeRequests;
+            resizedEvent.commit();
         }
     }
 
-    private void removeNonVisibleRainDropLinesFromFarRight() {
-        // Set to keep track of non-visible Lines due to new screen size
-        Set<Sprite> nonVisibleRainDropLines = new HashSet<>();
-
+    /**
+     * @return The number of RainLineSprites removed
+     */
+    private int removeNonVisibleRainDropLinesFromFarRight() {
         // Find sprites that need to be removed due to not appearing anymore on the screen anymore
+        rainLineSpritesToRemove.clear();
         for (Sprite s : this) {
             if (s instanceof RainLineSprite) {
                 if (s.getRoundedXCoordinateTopLeft() > this.getWidth()) {
-                    nonVisibleRainDropLines.add(s);
+                    rainLineSpritesToRemove.add(s);
                 }
             }
         }
-        this.removeChildSprites(nonVisibleRainDropLines);
+        this.removeChildSprites(rainLineSpritesToRemove);
+        int rainLinesRemoved = rainLineSpritesToRemove.size();
+        statistics.rainLineSpritesAdded(-rainLinesRemoved);
+        // Retired right to left, so widening again puts the leftmost of them back into use first
+        for (int i = rainLinesRemoved - 1; i >= 0; i--) {
+            RainLineSprite s = (RainLineSprite) rainLineSpritesToRemove.get(i);
+            s.retire();
+            if (retiredRainLineSprites.size() < maxRetiredRainLineSprites) {
+                retiredRainLineSprites.addLast(s);
+                statistics.retiredRainLineSpritesAdded(1);
+            }
+        }
+        rainLineSpritesToRemove.clear();
+
+        closetXCoordinateFromLeftForAnotherRainDropLine -= rainLinesRemoved * spaceNeededToAddAnotherRainDropLine;
+        return rainLinesRemoved;
+    }
 
-        closetXCoordinateFromLeftForAnotherRainDropLine -=
-                nonVisibleRainDropLines.size() * spaceNeededToAddAnotherRainDropLine;
+    @Override
+    protected void setDrawingDebugGraphicsToCachedSprites(boolean drawDebug) {
+        for (Sprite s : retiredRainLineSprites) {
+            s.setDrawingDebugGraphics(drawDebug);
+        }
     }
 
 
     @Override
-    protected synchronized void updateBeforeChildren(long elapsedTimeInMilliseconds) {
+    protected void updateBeforeChildren(long elapsedTimeInMilliseconds) {
+        for (Runnable command = pendingCommands.poll(); command != null; command = pendingCommands.poll()) {
+            command.run();
+        }
+        if (simulationClock != null) {
+            long simulationClockReadingInMilliseconds = simulationClock.getElapsedTimeInMilliseconds();
+            elapsedTimeInMilliseconds = simulationClockReadingInMilliseconds - lastSimulationClockReadingInMilliseconds;
+            lastSimulationClockReadingInMilliseconds = simulationClockReadingInMilliseconds;
+        }
+        timeNotYetSimulatedInMilliseconds += elapsedTimeInMilliseconds;
+        int simulationSteps = 0;
+        while (timeNotYetSimulatedInMilliseconds >= simulationStepInMilliseconds &&
+                simulationSteps < maxSimulationStepsPerUpdate) {
+            runSimulationStep();
+            timeNotYetSimulatedInMilliseconds -= simulationStepInMilliseconds;
+            simulationSteps++;
+        }
+        if (timeNotYetSimulatedInMilliseconds >= simulationStepInMilliseconds) {
+            // Too far behind to catch up, the steps that didn't fit are skipped
+            statistics.simulationStepsSkipped(timeNotYetSimulatedInMilliseconds / simulationStepInMilliseconds);
+            timeNotYetSimulatedInMilliseconds %= simulationStepInMilliseconds;
+        }
+        statistics.simulationStepsRun(simulationSteps);
+        // Compiled after the steps, so the frame shows the latest state, interpolated by the time not yet simulated
+        compileFrame();
+        if (renderSettings.getRenderMode() == RainRenderMode.RENDER_THREAD) {
+            frameRenderThread.submit(getWidth(), getHeight());
+        }
+    }
+
+    private void runSimulationStep() {
+        // Recycling picks random colors and heights from shared state, so it's done before the parallel update
+        rainLineSpritesToUpdate.clear();
         for (Sprite s : this) {
             if (s instanceof RainLineSprite) {
                 if (s.getRoundedYCoordinateTopLeft() > this.getHeight()) {
-                    ((RainLineSprite) s)
-                            .resetHeightColorAndPosition(this.getHeight(),
-                                    getRandomRainColorFromSpecifiedList());
+                    recycleRainLineSprite((RainLineSprite) s);
                 }
+                rainLineSpritesToUpdate.add((RainLineSprite) s);
             }
         }
+        updateRainLineSprites(simulationStepInMilliseconds,
+                yVelocityToUseForRainLines * simulationStepInMilliseconds);
+        timeSinceRainDropSpritePoolTrimInMilliseconds += simulationStepInMilliseconds;
+        if (timeSinceRainDropSpritePoolTrimInMilliseconds >= rainDropSpritePoolTrimIntervalInMilliseconds) {
+            rainDropSpritePool.trim();
+            timeSinceRainDropSpritePoolTrimInMilliseconds = 0;
+        }
+    }
+
+    /**
+     * Updates every RainLineSprite, in parallel on the common fork join pool when there are enough of them for that to
+     * pay off. Each RainLineSprite only changes itself and its own RainDropSprites when updated, marking the area it
+     * changed in its own {@link DirtyArea}, which are all moved into the dirtyRegion once every RainLineSprite is
+     * updated.
+     */
+    private void updateRainLineSprites(long elapsedTimeInMilliseconds, float fallDistance) {
+        RainLineUpdateTask updateTask = new RainLineUpdateTask(rainLineSpritesToUpdate, 0,
+                rainLineSpritesToUpdate.size(), elapsedTimeInMilliseconds, getXDrawingCoordinateTopLeft(),
+                getYDrawingCoordinateTopLeft(), getHeight(), fallDistance);
+        if (rainLineSpritesToUpdate.size() <= RainLineUpdateTask.rainLineSpritesPerTask) {
+            updateTask.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(updateTask);
+        }
+        for (int i = 0, size = rainLineSpritesToUpdate.size(); i < size; i++) {
+            rainLineSpritesToUpdate.get(i).moveDirtyAreaTo(dirtyRegion);
+        }
+    }
+
+    private void recycleRainLineSprite(RainLineSprite s) {
+        RainLineRecycledEvent recycledEvent = new RainLineRecycledEvent();
+        recycledEvent.begin();
+        int previousRainDropCount = s.getRainDropSpriteCount();
+        s.resetHeightColorAndPosition(this.getHeight(), getRandomRainColorFromSpecifiedList());
+        recycledEvent.end();
+        if (recycledEvent.shouldCommit()) {
+            recycledEvent.xCoordinate = s.getRoundedXCoordinateTopLeft();
+            recycledEvent.previousRainDropCount = previousRainDropCount;
+            recycledEvent.newRainDropCount = s.getRainDropSpriteCount();
+            recycledEvent.commit();
+        }
     }
 
     @Override
-    protected synchronized void drawUnderChildren(Graphics2D g) {
+    protected void drawUnderChildren(Graphics2D g) {
+        drawLatestFrame(g);
+    }
+
+    /**
+     * Draws the latest frame published by the updating thread, in the way of the current render mode. Only published
+     * frames are read, never the RainLineSprites, so this can be called on any thread while this RainPaneSprite
+     * updates, and is what anything drawing this RainPaneSprite outside of the sprite tree should call.
+     */
+    public void drawLatestFrame(Graphics2D g) {
+        if (renderSettings.getRenderMode().isRenderedFromCharacterGrid()) {
+            CharacterGrid characterGrid = characterGrids.acquireLatestFrame();
+            try {
+                drawCharacterGrid(g, characterGrid);
+            } finally {
+                characterGrids.release(characterGrid);
+            }
+            return;
+        }
+        persistentBufferRenderer.discardBackBuffer();
+        clearBackground(g);
+        RainDropSpriteFrame frame = rainDropSpriteFrames.acquireLatestFrame();
+        try {
+            frame.draw(g, characterImageStore, offsetAnimationMap);
+        } finally {
+            rainDropSpriteFrames.release(frame);
+        }
+    }
+
+    private void clearBackground(Graphics2D g) {
         Graphics localGraphics = g.create();
         localGraphics.setColor(Color.BLACK);
         localGraphics.fillRect(0, 0, this.getWidth(), this.getHeight());
         localGraphics.dispose();
     }
 
+    private void drawCharacterGrid(Graphics2D g, CharacterGrid characterGrid) {
+        if (renderSettings.getRenderMode() == RainRenderMode.PERSISTENT_BUFFER) {
+            // The back buffer covers the whole pane, so there's no need to clear anything first
+            persistentBufferRenderer.draw(g, characterGrid, getWidth(), getHeight());
+            return;
+        }
+        // The back buffer is only kept while it's drawn, it's discarded here as it's only touched while drawing
+        persistentBufferRenderer.discardBackBuffer();
+        if (renderSettings.getRenderMode() == RainRenderMode.SOFTWARE_BLIT) {
+            drawWithSoftwareGlyphBlitter(g, characterGrid);
+            return;
+        }
+        if (renderSettings.getRenderMode() == RainRenderMode.RENDER_THREAD && drawLatestRenderedFrame(g)) {
+            return;
+        }
+        clearBackground(g);
+        if (renderSettings.getRenderMode() == RainRenderMode.CHARACTER_GRID) {
+            characterGridRenderer.draw(g, characterGrid);
+        }
+    }
+
+    private void drawWithSoftwareGlyphBlitter(Graphics2D g, CharacterGrid characterGrid) {
+        if (getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        BufferedImage frame = softwareGlyphBlitter.getFrame();
+        long frameNumber = characterGrids.getFrameNumber(characterGrid);
+        // Partial repaints of an unchanged frame only need the existing image drawn again
+        if (frameNumber != frameNumberInSoftwareBlitFrame || frame == null || frame.getWidth() != getWidth() ||
+                frame.getHeight() != getHeight()) {
+            frame = softwareGlyphBlitter.render(characterGrid, getWidth(), getHeight());
+            frameNumberInSoftwareBlitFrame = frameNumber;
+        }
+        g.drawImage(frame, 0, 0, null);
+    }
+
     @Override
-    protected synchronized void debugDraw(Graphics2D g) {
+    protected void debugDraw(Graphics2D g) {
         Graphics debugGraphics = g.create();
         debugGraphics.setColor(Color.WHITE);
-        debugGraphics.drawLine(closetXCoordinateFromLeftForAnotherRainDropLine, 0,
-                closetXCoordinateFromLeftForAnotherRainDropLine, this.getHeight());
+        // The RainLineSprites change while this is drawn, so the debug graphics are drawn from the latest frame
+        RainDropSpriteFrame frame = rainDropSpriteFrames.acquireLatestFrame();
+        try {
+            frame.drawOutlines(debugGraphics);
+        } finally {
+            rainDropSpriteFrames.release(frame);
+        }
         debugGraphics.dispose();
     }
+
+    /**
+     * Adds each cell reported as changed by a character grid diff to the dirty region, which keeps the changes of each
+     * column apart from the changes of other columns.
+     */
+    private class ChangedCellMarker implements CharacterGridCellListener {
+        @Override
+        public void cellChanged(int column, int row, short glyphIndex, byte paletteIndex) {
+            dirtyRegion.add(characterGridRenderer.getCellXCoordinate(column),
+                    characterGridRenderer.getCellYCoordinate(row), characterGridRenderer.getCellWidth(),
+                    characterGridRenderer.getCellHeight());
+        }
+    }
 }
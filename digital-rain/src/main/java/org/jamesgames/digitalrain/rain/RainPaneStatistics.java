@@ -0,0 +1,181 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RainPaneStatistics holds running counters that describe the sprites and caches used by a {@link RainPaneSprite}. The
+ * counters are maintained as the sprites change rather than computed when queried, so reading them is cheap enough to
+ * do every frame (for example by a performance overlay) without walking the sprite tree.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class RainPaneStatistics {
+    private final AtomicInteger rainLineSpriteCount = new AtomicInteger();
+    private final AtomicInteger rainDropSpriteCount = new AtomicInteger();
+    private final AtomicInteger cachedRainDropSpriteCount = new AtomicInteger();
+    private final AtomicInteger retiredRainLineSpriteCount = new AtomicInteger();
+    private volatile int rainDropSpriteHighWaterMark;
+    private volatile int lastUpdateSimulationStepCount;
+    private final AtomicLong skippedSimulationStepCount = new AtomicLong();
+    private volatile QualityLevel qualityLevel = QualityLevel.FULL;
+    private final RainDropCharacterImageStore characterImageStore;
+    private final OffsetAnimationMap offsetAnimationMap;
+    private final int unitsFromOneRowToAnother;
+
+    RainPaneStatistics(RainDropCharacterImageStore characterImageStore, OffsetAnimationMap offsetAnimationMap,
+            int unitsFromOneRowToAnother) {
+        this.characterImageStore = characterImageStore;
+        this.offsetAnimationMap = offsetAnimationMap;
+        this.unitsFromOneRowToAnother = unitsFromOneRowToAnother;
+    }
+
+    void rainLineSpritesAdded(int count) {
+        rainLineSpriteCount.addAndGet(count);
+    }
+
+    void rainDropSpritesAdded(int count) {
+        rainDropSpriteCount.addAndGet(count);
+    }
+
+    void cachedRainDropSpritesAdded(int count) {
+        cachedRainDropSpriteCount.addAndGet(count);
+    }
+
+    void retiredRainLineSpritesAdded(int count) {
+        retiredRainLineSpriteCount.addAndGet(count);
+    }
+
+    void rainDropSpriteHighWaterMarkReached(int highWaterMark) {
+        rainDropSpriteHighWaterMark = highWaterMark;
+    }
+
+    void qualityLevelApplied(QualityLevel qualityLevel) {
+        this.qualityLevel = qualityLevel;
+    }
+
+    void simulationStepsRun(int count) {
+        lastUpdateSimulationStepCount = count;
+    }
+
+    void simulationStepsSkipped(long count) {
+        skippedSimulationStepCount.addAndGet(count);
+    }
+
+    /**
+     * @return Number of RainLineSprites in the pane
+     */
+    public int getRainLineSpriteCount() {
+        return rainLineSpriteCount.get();
+    }
+
+    /**
+     * @return Number of RainDropSprites currently part of a RainLineSprite in the pane
+     */
+    public int getRainDropSpriteCount() {
+        return rainDropSpriteCount.get();
+    }
+
+    /**
+     * @return Number of idle RainDropSprites in the pool the pane's RainLineSprites share, kept for later reuse
+     */
+    public int getCachedRainDropSpriteCount() {
+        return cachedRainDropSpriteCount.get();
+    }
+
+    /**
+     * @return Most RainDropSprites the pane's RainLineSprites had taken from their shared pool at once since the pool
+     * was last trimmed, which is how many RainDropSprites (in use and idle) the pool keeps after its next trim
+     */
+    public int getRainDropSpriteHighWaterMark() {
+        return rainDropSpriteHighWaterMark;
+    }
+
+    /**
+     * @return Number of RainLineSprites removed as the pane narrowed, kept to be put back into use as it widens
+     */
+    public int getRetiredRainLineSpriteCount() {
+        return retiredRainLineSpriteCount.get();
+    }
+
+    /**
+     * @return The quality level the pane currently renders at
+     */
+    public QualityLevel getQualityLevel() {
+        return qualityLevel;
+    }
+
+    /**
+     * @return Number of fixed length simulation steps run by the pane's latest update
+     */
+    public int getLastUpdateSimulationStepCount() {
+        return lastUpdateSimulationStepCount;
+    }
+
+    /**
+     * @return Number of simulation steps skipped since the pane was created, as the pane fell too far behind to catch
+     * up on them
+     */
+    public long getSkippedSimulationStepCount() {
+        return skippedSimulationStepCount.get();
+    }
+
+    /**
+     * @return Approximate number of bytes used by the rasterized character images of the pane
+     */
+    public long getApproximateGlyphMemoryInBytes() {
+        return characterImageStore.getApproximateImageMemoryInBytes();
+    }
+
+    /**
+     * @return Number of glyphs currently rasterized in the pane's glyph cache
+     */
+    public int getCachedGlyphCount() {
+        return characterImageStore.getCachedGlyphCount();
+    }
+
+    /**
+     * @return Ratio of glyph lookups answered from the glyph cache, 0 if nothing was looked up yet
+     */
+    public float getGlyphCacheHitRatio() {
+        long hits = characterImageStore.getGlyphCacheHitCount();
+        long lookups = hits + characterImageStore.getGlyphCacheMissCount();
+        return lookups == 0 ? 0 : hits / (float) lookups;
+    }
+
+    /**
+     * @return Number of glyphs evicted from the glyph cache to make room for others, which climbs steadily when the
+     * character set and colors in use don't fit the cache
+     */
+    public long getGlyphCacheEvictionCount() {
+        return characterImageStore.getGlyphCacheEvictionCount();
+    }
+
+    /**
+     * @return Number of y coordinates the pane's offset animation map has computed offsets for
+     */
+    public int getCachedOffsetCount() {
+        return offsetAnimationMap.getCachedOffsetCount();
+    }
+
+    /**
+     * @param paneHeight
+     *         Height of the pane the offsets are used in
+     * @return Ratio of computed offsets to the number of rows that fit in the passed height. Can exceed 1 as rain is
+     * also positioned above the pane.
+     */
+    public float getOffsetTableFillRatio(int paneHeight) {
+        return getCachedOffsetCount() / (float) Math.max(1, paneHeight / unitsFromOneRowToAnother);
+    }
+
+    /**
+     * @return Ratio of offset queries answered from previously computed offsets, 0 if nothing was queried yet
+     */
+    public float getOffsetCacheHitRatio() {
+        long lookups = offsetAnimationMap.getLookupCount();
+        return lookups == 0 ? 0 : (lookups - offsetAnimationMap.getMissCount()) / (float) lookups;
+    }
+}
@@ -0,0 +1,54 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * RainRandom is a small random number generator (SplitMix64) whose entire state is one long that can be read and set,
+ * so a scene restored from a snapshot makes the same random choices it would have made had it kept running. Each
+ * RainLineSprite owns one, used only by whichever thread updates that RainLineSprite, so RainLineSprites updated in
+ * parallel stay deterministic.
+ *
+ * @author James Murphy
+ */
+@NotThreadSafe
+class RainRandom {
+    private long state;
+
+    /**
+     * Creates a RainRandom with a random seed
+     */
+    RainRandom() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    RainRandom(long seed) {
+        this.state = seed;
+    }
+
+    long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return A random int from 0 (inclusive) to the passed bound (exclusive)
+     */
+    int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive (" + bound + " was supplied)");
+        }
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    long getState() {
+        return state;
+    }
+
+    void setState(long state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,51 @@
+package org.jamesgames.digitalrain.rain;
+
+/**
+ * RainRenderMode is an enum of the ways a {@link RainPaneSprite} can draw its rain.
+ *
+ * @author James Murphy
+ */
+public enum RainRenderMode {
+    /**
+     * The character of every RainDropSprite is drawn on its own, from a {@link RainDropSpriteFrame} compiled each
+     * frame.
+     */
+    SPRITES("Sprites"),
+    /**
+     * Each frame is compiled into a {@link CharacterGrid}, which is drawn by the RainPaneSprite.
+     */
+    CHARACTER_GRID("Character grid"),
+    /**
+     * Each frame is compiled into a {@link CharacterGrid}, and only the cells that changed are redrawn into a back
+     * buffer kept from frame to frame, which is then drawn by the RainPaneSprite.
+     */
+    PERSISTENT_BUFFER("Persistent buffer"),
+    /**
+     * Each frame is compiled into a {@link CharacterGrid}, which is composited in software into the pixels of an
+     * image, in parallel tiles, that is then drawn by the RainPaneSprite.
+     */
+    SOFTWARE_BLIT("Software blit"),
+    /**
+     * Each frame is compiled into a {@link CharacterGrid} that is handed to a separate render thread, which composites
+     * it in software into one of two images. Only the latest completed image is drawn when painting.
+     */
+    RENDER_THREAD("Render thread");
+
+    private final String description;
+
+    RainRenderMode(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return True if frames are compiled into a CharacterGrid in this mode
+     */
+    public boolean isRenderedFromCharacterGrid() {
+        return this != SPRITES;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,31 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * RainRenderSettings holds how a {@link RainPaneSprite} currently renders, shared with its RainLineSprites and
+ * RainDropSprites so they can adjust what they do without each one being told individually.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+class RainRenderSettings {
+    private volatile RainRenderMode renderMode = RainRenderMode.SPRITES;
+    private volatile QualityLevel qualityLevel = QualityLevel.FULL;
+
+    public RainRenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public void setRenderMode(RainRenderMode renderMode) {
+        this.renderMode = renderMode;
+    }
+
+    public QualityLevel getQualityLevel() {
+        return qualityLevel;
+    }
+
+    public void setQualityLevel(QualityLevel qualityLevel) {
+        this.qualityLevel = qualityLevel;
+    }
+}
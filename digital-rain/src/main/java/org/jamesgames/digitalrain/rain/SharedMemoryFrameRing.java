@@ -0,0 +1,197 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SharedMemoryFrameRing publishes rendered frames of a {@link RainPaneSprite} through a memory-mapped file, so another
+ * process on the same machine can map the same file and read frames without them being copied or serialized on the
+ * way. Frames are rendered by a {@link SoftwareGlyphBlitter} straight into one of several slots of the mapped file,
+ * going round the slots in turn, so a reader has the time it takes to render the other slots to read a frame before
+ * it's overwritten.
+ * <p>
+ * Every number in the file is in the byte order of the machine. The file starts with a header:
+ * <pre>
+ * offset  size  field
+ *      0     4  magic number, "DRFR" as the int 0x44524652
+ *      4     4  layout version, currently 1
+ *      8     4  header size in bytes, which is where the first slot starts
+ *     12     4  slot count
+ *     16     4  frame width in pixels
+ *     20     4  frame height in pixels
+ *     24     4  pixel format, 1 for 32 bit 0x00RRGGBB ints
+ *     28     4  bytes per row of pixels
+ *     32     8  bytes per slot, the distance from the start of one slot to the next
+ *     40     8  sequence number of the latest completely written frame, 0 until the first frame is written
+ *     48  16*n  per slot: sequence number of the frame in the slot (8 bytes), and the wall clock time in milliseconds
+ *               since the epoch the frame was completed at (8 bytes)
+ * </pre>
+ * Frames are numbered from 1, and frame n is written to slot (n - 1) % slot count. While a frame is being written its
+ * slot's sequence number is the negative of the frame's number. To read the latest frame, read the latest sequence
+ * number, then the slot's sequence number, copy or use the pixels, and read the slot's sequence number again; the
+ * pixels are intact if both slot sequence numbers equal the latest sequence number that was read.
+ * <p>
+ * Frames are published by one thread at a time, and the ring can be closed from any thread (like a shutdown hook) while
+ * a frame is being published, in which case it's closed once that frame is published.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class SharedMemoryFrameRing implements Closeable {
+    public static final int magicNumber = 0x44524652;
+    public static final int layoutVersion = 1;
+    public static final int pixelFormatXrgbInts = 1;
+
+    private static final int bytesPerPixel = 4;
+    private static final int latestSequenceOffset = 40;
+    private static final int firstSlotEntryOffset = 48;
+    private static final int bytesPerSlotEntry = 16;
+    /**
+     * Slots start on cache line boundaries, so a reader copying one slot never shares a cache line with another.
+     */
+    private static final int slotAlignmentInBytes = 64;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer mappedFile;
+    private final IntBuffer[] slotPixels;
+    private final SoftwareGlyphBlitter blitter;
+    private final int width;
+    private final int height;
+    private long latestSequence = 0;
+    /**
+     * Written between writes to the mapped file that another process must see in order, as the writes to the mapped
+     * file are plain writes that neither the compiler nor the processor would otherwise keep in order. See
+     * {@link #orderWrites()}.
+     */
+    private volatile long writesOrderedUpTo = 0;
+    private boolean closed;
+
+    /**
+     * Creates (or replaces the contents of) the passed file, sized to hold the header and every slot.
+     *
+     * @param rainPaneSprite
+     *         RainPaneSprite whose character grids will be published, which is only used for how it renders
+     *         characters
+     */
+    public SharedMemoryFrameRing(Path file, RainPaneSprite rainPaneSprite, int width, int height, int slotCount)
+            throws IOException {
+        if (width <= 0 || height <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("Width (" + width + "), height (" + height + ") and slot count (" +
+                    slotCount + ") must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.blitter = rainPaneSprite.createSoftwareGlyphBlitter();
+        int headerSize = (int) alignToSlotBoundary(firstSlotEntryOffset + (long) slotCount * bytesPerSlotEntry);
+        long slotSize = alignToSlotBoundary((long) width * height * bytesPerPixel);
+        long fileSize = headerSize + slotSize * slotCount;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Frames are too large to map " + slotCount + " slots of them at once");
+        }
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            mappedFile = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        mappedFile.order(ByteOrder.nativeOrder());
+        slotPixels = new IntBuffer[slotCount];
+        for (int slot = 0; slot < slotCount; slot++) {
+            ByteBuffer slotBytes = mappedFile.duplicate();
+            slotBytes.position((int) (headerSize + slotSize * slot));
+            slotBytes.limit((int) (headerSize + slotSize * slot + (long) width * height * bytesPerPixel));
+            slotPixels[slot] = slotBytes.slice().order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+
+        mappedFile.putInt(4, layoutVersion);
+        mappedFile.putInt(8, headerSize);
+        mappedFile.putInt(12, slotCount);
+        mappedFile.putInt(16, width);
+        mappedFile.putInt(20, height);
+        mappedFile.putInt(24, pixelFormatXrgbInts);
+        mappedFile.putInt(28, width * bytesPerPixel);
+        mappedFile.putLong(32, slotSize);
+        mappedFile.putLong(latestSequenceOffset, 0);
+        // The magic number goes in last, so a reader finding it knows the rest of the header is in place
+        orderWrites();
+        mappedFile.putInt(0, magicNumber);
+    }
+
+    /**
+     * Renders the grid into the next slot and publishes it as the latest frame. Cells past the ring's frame size are
+     * left out.
+     *
+     * @return Sequence number of the published frame
+     * @throws IllegalStateException
+     *         If the ring was closed
+     */
+    public synchronized long publishFrame(CharacterGrid grid) {
+        if (closed) {
+            throw new IllegalStateException("Frames can't be published once the ring is closed");
+        }
+        long sequence = latestSequence + 1;
+        int slot = (int) ((sequence - 1) % slotPixels.length);
+        int slotEntryOffset = firstSlotEntryOffset + slot * bytesPerSlotEntry;
+        mappedFile.putLong(slotEntryOffset, -sequence);
+        orderWrites();
+        blitter.render(grid, slotPixels[slot], width, height);
+        orderWrites();
+        mappedFile.putLong(slotEntryOffset + 8, System.currentTimeMillis());
+        mappedFile.putLong(slotEntryOffset, sequence);
+        orderWrites();
+        mappedFile.putLong(latestSequenceOffset, sequence);
+        latestSequence = sequence;
+        return sequence;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getSlotCount() {
+        return slotPixels.length;
+    }
+
+    /**
+     * Closes the file, after which no more frames can be published. The file is left in place with the last published
+     * frames so readers can finish reading them, and the mapping itself is released once it's garbage collected (or
+     * when the process exits). Closing an already closed ring does nothing.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        channel.close();
+    }
+
+    /**
+     * Keeps the writes to the mapped file made before this call from being seen after the writes made after it. A
+     * volatile write keeps the writes before it from moving after it, and HotSpot follows every volatile write with a
+     * full fence, which keeps the writes after it from moving before it as well.
+     */
+    private void orderWrites() {
+        writesOrderedUpTo = latestSequence;
+    }
+
+    private static long alignToSlotBoundary(long size) {
+        return (size + slotAlignmentInBytes - 1) / slotAlignmentInBytes * slotAlignmentInBytes;
+    }
+}
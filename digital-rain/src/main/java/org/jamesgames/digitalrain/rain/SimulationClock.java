@@ -0,0 +1,23 @@
+package org.jamesgames.digitalrain.rain;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * SimulationClock is a source of time shared by RainPaneSprites that should simulate in phase with one another, like
+ * the RainPaneSprites of each display of a multiple display wall. RainPaneSprites following a clock simulate the time
+ * that passed on the clock rather than the time their own updater reports, so panes updated on different threads at
+ * different paces run their simulation steps at the same moments on the clock.
+ *
+ * @author James Murphy
+ */
+@ThreadSafe
+public class SimulationClock {
+    private final long startTimeInNanoseconds = System.nanoTime();
+
+    /**
+     * @return Milliseconds passed since the clock was created
+     */
+    public long getElapsedTimeInMilliseconds() {
+        return (System.nanoTime() - startTimeInNanoseconds) / 1_000_000;
+    }
+}
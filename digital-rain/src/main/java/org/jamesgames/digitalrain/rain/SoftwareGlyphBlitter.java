@@ -0,0 +1,280 @@
+package org.jamesgames.digitalrain.rain;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * SoftwareGlyphBlitter renders a {@link CharacterGrid} without Java2D, by compositing the glyph alpha masks of a {@link
+ * RainDropCharacterImageStore} directly into the int array behind a {@link BufferedImage}. The frame is split into
+ * column aligned tiles that are rendered in parallel on the common fork join pool, each tile only writing pixels within
+ * its own horizontal range, and the finished image is then drawn in a single image draw. Frames can also be rendered
+ * straight into a buffer of pixels held elsewhere, like memory shared with another process. This avoids the per image
+ * overhead of Java2D for many tiny images, which dominates when there's no graphics hardware to render with.
+ *
+ * @author James Murphy
+ */
+class SoftwareGlyphBlitter {
+    /**
+     * Tiles are never split narrower than this many pixels, as a task per handful of columns costs more than it saves.
+     */
+    private static final int smallestTileWidth = 128;
+
+    private final RainDropCharacterImageStore characterImageStore;
+    private final OffsetAnimationMap offsetAnimationMap;
+    private final CharacterGridRenderer cellLayout;
+    private final int cellWidth;
+    private final int cellHeight;
+    private final int columnWidth;
+
+    private BufferedImage frame;
+    private IntBuffer framePixels;
+
+    /**
+     * Pixels of the frame currently being rendered and its size, set for the duration of a render.
+     */
+    private IntBuffer targetPixels;
+    private int targetWidth;
+    private int targetHeight;
+    private int[] rowXOffsets = new int[0];
+    private int[] rowYOffsets = new int[0];
+    private int[] paletteRgb = new int[0];
+
+    /**
+     * Alpha mask of each glyph in the frame being rendered, indexed by glyph index, and the glyph indices that have a
+     * mask set. Masks are only held here for the duration of a render, so the store's cache decides what stays around.
+     */
+    private byte[][] frameGlyphMasks = new byte[0][];
+    private short[] glyphIndicesInFrame = new short[0];
+    private int glyphCountInFrame;
+
+    SoftwareGlyphBlitter(RainDropCharacterImageStore characterImageStore, OffsetAnimationMap offsetAnimationMap,
+            CharacterGridRenderer cellLayout) {
+        this.characterImageStore = characterImageStore;
+        this.offsetAnimationMap = offsetAnimationMap;
+        this.cellLayout = cellLayout;
+        this.cellWidth = cellLayout.getCellWidth();
+        this.cellHeight = cellLayout.getCellHeight();
+        this.columnWidth = cellLayout.getCellXCoordinate(1);
+    }
+
+    /**
+     * Renders the grid into the frame image, which is recreated if the passed size differs from the last one.
+     *
+     * @return The image holding the rendered frame
+     */
+    BufferedImage render(CharacterGrid grid, int width, int height) {
+        if (frame == null || frame.getWidth() != width || frame.getHeight() != height) {
+            frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            framePixels = IntBuffer.wrap(((DataBufferInt) frame.getRaster().getDataBuffer()).getData());
+        }
+        render(grid, framePixels, width, height);
+        return frame;
+    }
+
+    /**
+     * Renders the grid into the passed pixels rather than the frame image, with the same layout as the frame image's
+     * pixels: 0x00RRGGBB ints, row by row from the top left with no padding between rows.
+     *
+     * @param pixels
+     *         At least width times height pixels, starting at index 0 of the buffer
+     */
+    void render(CharacterGrid grid, IntBuffer pixels, int width, int height) {
+        targetPixels = pixels;
+        targetWidth = width;
+        targetHeight = height;
+        prepareRowOffsetsAndPalette(grid);
+        prepareGlyphMasks(grid);
+        try {
+            ForkJoinPool.commonPool().invoke(new TileRenderer(grid, 0, width));
+        } finally {
+            for (int i = 0; i < glyphCountInFrame; i++) {
+                frameGlyphMasks[glyphIndicesInFrame[i]] = null;
+            }
+            glyphCountInFrame = 0;
+            targetPixels = null;
+        }
+    }
+
+    /**
+     * @return The image holding the last rendered frame, or null if nothing was rendered yet
+     */
+    BufferedImage getFrame() {
+        return frame;
+    }
+
+    /**
+     * Offsets and colors are looked up before rendering in parallel, so tiles don't each look up the same values.
+     */
+    private void prepareRowOffsetsAndPalette(CharacterGrid grid) {
+        if (rowXOffsets.length < grid.getRows()) {
+            rowXOffsets = new int[grid.getRows()];
+            rowYOffsets = new int[grid.getRows()];
+        }
+        for (int row = 0; row < grid.getRows(); row++) {
+            int rowYCoordinate = cellLayout.getCellYCoordinate(row);
+            rowXOffsets[row] = offsetAnimationMap.getXOffset(rowYCoordinate);
+            rowYOffsets[row] = rowYCoordinate + offsetAnimationMap.getYOffset(rowYCoordinate);
+        }
+        if (paletteRgb.length < grid.getPaletteSize()) {
+            paletteRgb = new int[grid.getPaletteSize()];
+        }
+        for (int i = 0; i < grid.getPaletteSize(); i++) {
+            paletteRgb[i] = grid.getColor((byte) i).getRGB() & 0xFFFFFF;
+        }
+    }
+
+    /**
+     * Looks up the mask of each glyph in the grid once, before rendering in parallel, so tiles never wait on the
+     * store's cache.
+     */
+    private void prepareGlyphMasks(CharacterGrid grid) {
+        int glyphCount = grid.getCharacterSet().size();
+        if (frameGlyphMasks.length < glyphCount) {
+            frameGlyphMasks = new byte[glyphCount][];
+            glyphIndicesInFrame = new short[glyphCount];
+        }
+        for (int row = 0; row < grid.getRows(); row++) {
+            for (int column = 0; column < grid.getColumns(); column++) {
+                if (grid.isEmpty(column, row)) {
+                    continue;
+                }
+                short glyphIndex = grid.getGlyphIndex(column, row);
+                if (frameGlyphMasks[glyphIndex] == null) {
+                    frameGlyphMasks[glyphIndex] = characterImageStore.getGlyphAlphaMask(glyphIndex);
+                    glyphIndicesInFrame[glyphCountInFrame++] = glyphIndex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears and renders the pixels of the frame within a horizontal range, splitting itself in half while the range
+     * is wide enough.
+     */
+    private class TileRenderer extends RecursiveAction {
+        private final CharacterGrid grid;
+        private final int tileLeft;
+        private final int tileRight;
+
+        private TileRenderer(CharacterGrid grid, int tileLeft, int tileRight) {
+            this.grid = grid;
+            this.tileLeft = tileLeft;
+            this.tileRight = tileRight;
+        }
+
+        @Override
+        protected void compute() {
+            int tileWidth = tileRight - tileLeft;
+            if (tileWidth >= smallestTileWidth * 2) {
+                // Split on a column boundary, so most glyphs fall entirely within one tile
+                int middle = tileLeft + (tileWidth / 2) / columnWidth * columnWidth;
+                invokeAll(new TileRenderer(grid, tileLeft, middle), new TileRenderer(grid, middle, tileRight));
+            } else {
+                renderTile();
+            }
+        }
+
+        private void renderTile() {
+            IntBuffer pixels = targetPixels;
+            // Pixels of a heap buffer (like the frame image's) are written straight into its array, as going through
+            // the buffer for every pixel costs a bounds check and an indirect call each
+            int[] pixelArray = pixels.hasArray() ? pixels.array() : null;
+            int arrayOffset = pixels.hasArray() ? pixels.arrayOffset() : 0;
+            int frameWidth = targetWidth;
+            int frameHeight = targetHeight;
+            clearTile(pixels, frameWidth, frameHeight);
+            for (int row = 0; row < grid.getRows(); row++) {
+                int xOffset = rowXOffsets[row];
+                int drawingY = rowYOffsets[row];
+                if (drawingY >= frameHeight || drawingY + cellHeight <= 0) {
+                    continue;
+                }
+                // Only the columns whose glyphs could reach into this tile
+                int firstColumn = Math.max(0, Math.floorDiv(tileLeft - xOffset - cellWidth, columnWidth));
+                int lastColumn = Math.min(grid.getColumns() - 1, Math.floorDiv(tileRight - xOffset, columnWidth));
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    if (grid.isEmpty(column, row)) {
+                        continue;
+                    }
+                    byte[] mask = frameGlyphMasks[grid.getGlyphIndex(column, row)];
+                    int rgb = paletteRgb[grid.getPaletteIndex(column, row) & 0xFF];
+                    int drawingX = cellLayout.getCellXCoordinate(column) + xOffset;
+                    if (pixelArray != null) {
+                        blitGlyph(pixelArray, arrayOffset, mask, rgb, drawingX, drawingY, frameWidth, frameHeight);
+                    } else {
+                        blitGlyph(pixels, mask, rgb, drawingX, drawingY, frameWidth, frameHeight);
+                    }
+                }
+            }
+        }
+
+        private void clearTile(IntBuffer pixels, int frameWidth, int frameHeight) {
+            if (pixels.hasArray()) {
+                int[] pixelArray = pixels.array();
+                int arrayOffset = pixels.arrayOffset();
+                for (int y = 0; y < frameHeight; y++) {
+                    Arrays.fill(pixelArray, arrayOffset + y * frameWidth + tileLeft,
+                            arrayOffset + y * frameWidth + tileRight, 0);
+                }
+                return;
+            }
+            for (int y = 0; y < frameHeight; y++) {
+                for (int pixelIndex = y * frameWidth + tileLeft; pixelIndex < y * frameWidth + tileRight;
+                     pixelIndex++) {
+                    pixels.put(pixelIndex, 0);
+                }
+            }
+        }
+
+        private void blitGlyph(int[] pixels, int pixelOffset, byte[] mask, int rgb, int drawingX, int drawingY,
+                int frameWidth, int frameHeight) {
+            int left = Math.max(drawingX, tileLeft);
+            int right = Math.min(drawingX + cellWidth, tileRight);
+            int top = Math.max(drawingY, 0);
+            int bottom = Math.min(drawingY + cellHeight, frameHeight);
+            for (int y = top; y < bottom; y++) {
+                int maskIndex = (y - drawingY) * cellWidth + (left - drawingX);
+                int pixelIndex = pixelOffset + y * frameWidth + left;
+                for (int x = left; x < right; x++, maskIndex++, pixelIndex++) {
+                    int alpha = mask[maskIndex] & 0xFF;
+                    if (alpha != 0) {
+                        pixels[pixelIndex] = blend(rgb, pixels[pixelIndex], alpha);
+                    }
+                }
+            }
+        }
+
+        private void blitGlyph(IntBuffer pixels, byte[] mask, int rgb, int drawingX, int drawingY, int frameWidth,
+                int frameHeight) {
+            int left = Math.max(drawingX, tileLeft);
+            int right = Math.min(drawingX + cellWidth, tileRight);
+            int top = Math.max(drawingY, 0);
+            int bottom = Math.min(drawingY + cellHeight, frameHeight);
+            for (int y = top; y < bottom; y++) {
+                int maskIndex = (y - drawingY) * cellWidth + (left - drawingX);
+                int pixelIndex = y * frameWidth + left;
+                for (int x = left; x < right; x++, maskIndex++, pixelIndex++) {
+                    int alpha = mask[maskIndex] & 0xFF;
+                    if (alpha != 0) {
+                        pixels.put(pixelIndex, blend(rgb, pixels.get(pixelIndex), alpha));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The passed source color composited over the destination color with the passed coverage, from 0 to 255
+     */
+    private static int blend(int source, int destination, int alpha) {
+        int inverseAlpha = 255 - alpha;
+        return ((((source >> 16) & 0xFF) * alpha + ((destination >> 16) & 0xFF) * inverseAlpha) / 255) << 16 |
+                ((((source >> 8) & 0xFF) * alpha + ((destination >> 8) & 0xFF) * inverseAlpha) / 255) << 8 |
+                ((source & 0xFF) * alpha + (destination & 0xFF) * inverseAlpha) / 255;
+    }
+}
@@ -0,0 +1,80 @@
+package org.jamesgames.digitalrain.rain;
+
+import org.jamesgames.jamesjavautils.general.IntPair;
+import org.junit.Test;
+
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that a {@link RainPaneSprite} restored from a snapshot continues exactly as the RainPaneSprite the snapshot
+ * was written from, by running one RainPaneSprite without interruption and comparing it to a RainPaneSprite restored
+ * part way through, step by step.
+ *
+ * @author James Murphy
+ */
+public class RainPaneSpriteSnapshotTest {
+    private static final int stepsBeforeSnapshot = 200;
+    private static final int stepsAfterSnapshot = 300;
+    private static final long stepInMilliseconds = 16;
+
+    @Test
+    public void restoredSceneContinuesExactlyAsTheUninterruptedScene() throws IOException {
+        Set<Color> rainColors = new HashSet<>(Arrays.asList(Color.GREEN, new Color(0, 128, 0)));
+        RainPaneSprite uninterrupted = new RainPaneSprite(rainColors, Font.PLAIN, 16, createOffsetAnimationMap());
+        uninterrupted.resize(640, 480);
+        for (int step = 0; step < stepsBeforeSnapshot; step++) {
+            uninterrupted.update(stepInMilliseconds);
+        }
+
+        RainPaneSprite restored = RainPaneSprite.readSnapshot(
+                new DataInputStream(new ByteArrayInputStream(writeSnapshot(uninterrupted))),
+                createOffsetAnimationMap(), null);
+        assertEquals(uninterrupted.getWidth(), restored.getWidth());
+        assertEquals(uninterrupted.getHeight(), restored.getHeight());
+
+        CharacterGrid uninterruptedGrid = new CharacterGrid();
+        CharacterGrid restoredGrid = new CharacterGrid();
+        for (int step = 0; step < stepsAfterSnapshot; step++) {
+            uninterrupted.update(stepInMilliseconds);
+            restored.update(stepInMilliseconds);
+            uninterrupted.compileCharacterGrid(uninterruptedGrid);
+            restored.compileCharacterGrid(restoredGrid);
+            assertSameCells(uninterruptedGrid, restoredGrid, step);
+        }
+        // Beyond what's drawn, every line, drop, timer and random number generator must match as well
+        assertArrayEquals(writeSnapshot(uninterrupted), writeSnapshot(restored));
+    }
+
+    private static void assertSameCells(CharacterGrid expected, CharacterGrid actual, int step) {
+        assertEquals("Columns after step " + step, expected.getColumns(), actual.getColumns());
+        assertEquals("Rows after step " + step, expected.getRows(), actual.getRows());
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int column = 0; column < expected.getColumns(); column++) {
+                String cell = "Cell " + column + "," + row + " after step " + step;
+                assertEquals(cell, expected.getGlyphIndex(column, row), actual.getGlyphIndex(column, row));
+                assertEquals(cell, expected.getPaletteIndex(column, row), actual.getPaletteIndex(column, row));
+            }
+        }
+    }
+
+    private static byte[] writeSnapshot(RainPaneSprite rainPaneSprite) throws IOException {
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        rainPaneSprite.writeSnapshot(new DataOutputStream(snapshot));
+        return snapshot.toByteArray();
+    }
+
+    private static OffsetAnimationMap createOffsetAnimationMap() {
+        return new OffsetAnimationMap(y -> new IntPair(0, 0));
+    }
+}